@@ -0,0 +1,244 @@
+package com.github.dakusui.mddoclet;
+
+import com.sun.source.doctree.DocCommentTree;
+import com.sun.source.doctree.DocTree;
+import com.sun.source.util.DocTrees;
+import jdk.javadoc.doclet.Doclet;
+import jdk.javadoc.doclet.DocletEnvironment;
+import jdk.javadoc.doclet.Reporter;
+
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Inputs of benchmarks, read from Java sources by running javadoc in-process.
+ *
+ * A corpus is specified by one of the following.
+ *
+ * - `example`: The `com.github.dakusui.mddoclet.example` package of this project.
+ * - `synthetic:<n>`: `n` generated classes, each of which has methods with parameterized types, inline tags, block tags,
+ * and unicode escapes in their comments.
+ *
+ * Pages are snapshotted while javadoc is running, so that they can be rendered after it returns.
+ *
+ * @param typePages       Snapshotted pages of types.
+ * @param commentTrees    Comment trees of types and their members.
+ * @param commentTexts    Raw texts in the comment trees, which may contain unicode escapes.
+ * @param blockTags       Block tags in the comment trees.
+ * @param parameterTypes  Types of method parameters.
+ * @param returnTypes     Types of method return values.
+ * @param docResolver     A function that resolves a reference to a link.
+ */
+record BenchmarkCorpus(List<MarkdownPage> typePages,
+                       List<DocCommentTree> commentTrees,
+                       List<String> commentTexts,
+                       List<DocTree> blockTags,
+                       List<TypeMirror> parameterTypes,
+                       List<TypeMirror> returnTypes,
+                       Function<String, String> docResolver) {
+  private static final int METHODS_PER_SYNTHETIC_CLASS = 10;
+  private static final String SYNTHETIC_CLASS = """
+      package %1$s;
+
+      import java.util.List;
+      import java.util.Map;
+
+      /**
+       * Synthetic class number %2$d, which refers to {@link Synthetic%3$d}.
+       *
+       * ```java
+       * Synthetic%2$d s = new Synthetic%2$d("na\\u00efve");
+       * ```
+       *
+       * @see Synthetic%3$d#method0(String, List)
+       */
+      public class Synthetic%2$d {
+        /**
+         * A field with a {@code "caf\\u00e9"} literal.
+         */
+        public static final String FIELD = "cafe";
+
+        /**
+         * Creates an instance.
+         *
+         * @param name A name of the instance.
+         */
+        public Synthetic%2$d(String name) {
+        }
+      %4$s}
+      """;
+  private static final String SYNTHETIC_METHOD = """
+
+        /**
+         * Method %1$d converts {@code values} into a map, as {@link #method%2$d(String, List)} does.
+         * See {@link java.util.Map#get(Object)} for details.
+         *
+         * - It doesn't modify `values`.
+         * - It returns an empty map for an empty list (\\u2205).
+         *
+         * @param key    A key, which is <b>not</b> `null`.
+         * @param values Values to be converted.
+         * @return A map from {@code key} to {@code values}.
+         * @see Synthetic%3$d
+         * @since 1.%1$d
+         */
+        public Map<String, List<java.lang.Integer>> method%1$d(String key, List<java.lang.Integer> values) {
+          return Map.of();
+        }
+      """;
+  
+  private static BenchmarkCorpus loaded;
+  
+  /**
+   * Loads a corpus.
+   *
+   * @param spec `example` or `synthetic:<n>`.
+   * @return A loaded corpus.
+   */
+  static synchronized BenchmarkCorpus load(String spec) {
+    try {
+      Path sourceDirectory;
+      String packageName;
+      if (spec.equals("example")) {
+        sourceDirectory = Path.of("src/main/java");
+        packageName = "com.github.dakusui.mddoclet.example";
+      } else if (spec.startsWith("synthetic:")) {
+        sourceDirectory = Files.createTempDirectory("mddoclet-benchmark");
+        packageName = "org.example.synthetic";
+        generateSyntheticSources(sourceDirectory, packageName, Integer.parseInt(spec.substring("synthetic:".length())));
+      } else {
+        throw new IllegalArgumentException("Unknown corpus: " + spec);
+      }
+      DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+      try (StandardJavaFileManager fileManager = tool.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+           Stream<Path> files = Files.list(sourceDirectory.resolve(packageName.replace('.', File.separatorChar)))) {
+        Iterable<? extends JavaFileObject> sources = fileManager.getJavaFileObjectsFromPaths(files.filter(p -> p.toString()
+                                                                                                                .endsWith(".java"))
+                                                                                                  .toList());
+        loaded = null;
+        if (!tool.getTask(Writer.nullWriter(), fileManager, null, Collector.class, List.of("-protected"), sources)
+                 .call())
+          throw new IllegalStateException("javadoc failed for corpus: " + spec);
+        return Objects.requireNonNull(loaded);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+  
+  private static void generateSyntheticSources(Path sourceDirectory, String packageName, int numberOfClasses) throws IOException {
+    Path packageDirectory = Files.createDirectories(sourceDirectory.resolve(packageName.replace('.', File.separatorChar)));
+    for (int i = 0; i < numberOfClasses; i++) {
+      int next = (i + 1) % numberOfClasses;
+      StringBuilder methods = new StringBuilder();
+      for (int j = 0; j < METHODS_PER_SYNTHETIC_CLASS; j++)
+        methods.append(SYNTHETIC_METHOD.formatted(j, (j + 1) % METHODS_PER_SYNTHETIC_CLASS, next));
+      Files.writeString(packageDirectory.resolve("Synthetic" + i + ".java"),
+                        SYNTHETIC_CLASS.formatted(packageName, i, next, methods));
+    }
+  }
+  
+  /**
+   * A doclet that builds a corpus from the included elements.
+   */
+  public static class Collector implements Doclet {
+    /**
+     * Creates an instance of this class.
+     */
+    public Collector() {
+    }
+    
+    @Override
+    public void init(Locale locale, Reporter reporter) {
+    }
+    
+    @Override
+    public String getName() {
+      return "benchmarkCorpusCollector";
+    }
+    
+    @Override
+    public Set<? extends Option> getSupportedOptions() {
+      return Set.of();
+    }
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latest();
+    }
+    
+    @Override
+    public boolean run(DocletEnvironment docEnv) {
+      var utils = docEnv.getElementUtils();
+      DocTrees docTrees = docEnv.getDocTrees();
+      List<TypeElement> types = ElementFilter.typesIn(docEnv.getIncludedElements())
+                                             .stream()
+                                             .sorted(Comparator.comparing(e -> e.getQualifiedName()
+                                                                                .toString()))
+                                             .toList();
+      LinkIndex linkIndex = LinkIndex.build(LinkIndex.typesOf(types, utils), "/", "", List.of(), Map.of());
+      List<MarkdownPage> typePages = new ArrayList<>();
+      List<DocCommentTree> commentTrees = new ArrayList<>();
+      List<String> commentTexts = new ArrayList<>();
+      List<DocTree> blockTags = new ArrayList<>();
+      List<TypeMirror> parameterTypes = new ArrayList<>();
+      List<TypeMirror> returnTypes = new ArrayList<>();
+      for (TypeElement each : types) {
+        LinkIndex.Context context = LinkIndex.Context.of(each, docTrees, utils);
+        MarkdownPage page = new MarkdownPage(each, docEnv, reference -> linkIndex.resolve(reference, context))
+            .title(each.getKind(), each.getQualifiedName()
+                                       .toString());
+        DocCommentTree docCommentTree = docTrees.getDocCommentTree(each);
+        if (docCommentTree != null)
+          page.commentTree(docCommentTree);
+        List<Element> members = new ArrayList<>(each.getEnclosedElements());
+        members.forEach(page::addChild);
+        typePages.add(page.snapshot());
+        members.add(each);
+        for (Element member : members) {
+          DocCommentTree tree = docTrees.getDocCommentTree(member);
+          if (tree != null) {
+            commentTrees.add(tree);
+            commentTexts.add(tree.toString());
+            blockTags.addAll(tree.getBlockTags());
+          }
+          if (member instanceof ExecutableElement executableElement) {
+            returnTypes.add(executableElement.getReturnType());
+            executableElement.getParameters()
+                             .forEach(p -> parameterTypes.add(p.asType()));
+          }
+        }
+      }
+      LinkIndex.Context docContext = types.isEmpty()
+                                     ? null
+                                     : LinkIndex.Context.of(types.getFirst(), docTrees, utils);
+      Function<String, String> docResolver = docContext == null
+                                             ? reference -> LinkIndex.UNKNOWN_TYPE
+                                             : reference -> linkIndex.resolve(reference, docContext);
+      loaded = new BenchmarkCorpus(List.copyOf(typePages),
+                                   List.copyOf(commentTrees),
+                                   List.copyOf(commentTexts),
+                                   List.copyOf(blockTags),
+                                   List.copyOf(parameterTypes),
+                                   List.copyOf(returnTypes),
+                                   docResolver);
+      return true;
+    }
+  }
+}
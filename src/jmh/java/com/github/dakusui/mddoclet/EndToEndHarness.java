@@ -0,0 +1,277 @@
+package com.github.dakusui.mddoclet;
+
+import jdk.javadoc.doclet.DocletEnvironment;
+
+import javax.tools.DocumentationTool;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Runs the doclet end-to-end on a generated source tree, and records its throughput.
+ *
+ * The harness generates a {@link SyntheticSourceTree}, runs javadoc in-process with {@link MdDoclet}, and writes a JSON
+ * report, which can be kept as a baseline and compared with a later run.
+ *
+ * ```
+ * EndToEndHarness [--modules n] [--packages n] [--types n] [--members n] [--work dir] [--output file]
+ *                 [--baseline file] [-- docletOptions...]
+ * ```
+ *
+ * - `--modules`, `--packages`, `--types`, `--members`: The size of the tree. See {@link SyntheticSourceTree}.
+ * - `--work`: A directory in which sources and pages are generated. A temporary directory by default.
+ * - `--output`: A file to which the report is written. `target/end-to-end.json` by default.
+ * - `--baseline`: A report of a previous run to compare with.
+ * - Options after `--` are given to the doclet as they are, for instance, `-- -threads 4`.
+ *
+ * The phases are `generate` (writing the sources), `parse` (javadoc reading the sources), and `doclet` (`MdDoclet#run`).
+ * The peak heap is the sum of the peak usages of heap memory pools during `parse` and `doclet`.
+ */
+public final class EndToEndHarness {
+  private static final Pattern NUMBER_FIELD = Pattern.compile("\"(\\w+)\"\\s*:\\s*(-?[0-9.]+)");
+  private static long docletNanos;
+  
+  private EndToEndHarness() {
+  }
+  
+  /**
+   * Runs the harness.
+   *
+   * @param args Arguments described in the class comment.
+   * @throws IOException If a file cannot be read or written.
+   */
+  public static void main(String... args) throws IOException {
+    Map<String, String> options = new HashMap<>(Map.of("--modules", "2",
+                                                       "--packages", "10",
+                                                       "--types", "50",
+                                                       "--members", "10",
+                                                       "--output", "target/end-to-end.json"));
+    List<String> docletOptions = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--")) {
+        docletOptions.addAll(Arrays.asList(args)
+                                   .subList(i + 1, args.length));
+        break;
+      }
+      if (i + 1 >= args.length)
+        throw new IllegalArgumentException("Missing value for " + args[i]);
+      options.put(args[i], args[++i]);
+    }
+    SyntheticSourceTree tree = new SyntheticSourceTree(Integer.parseInt(options.get("--modules")),
+                                                       Integer.parseInt(options.get("--packages")),
+                                                       Integer.parseInt(options.get("--types")),
+                                                       Integer.parseInt(options.get("--members")));
+    Path work = options.containsKey("--work")
+                ? Files.createDirectories(Path.of(options.get("--work")))
+                : Files.createTempDirectory("mddoclet-end-to-end");
+    Map<String, Number> results = run(tree, work, docletOptions);
+    
+    String report = toJson(tree, docletOptions, results);
+    Path output = Path.of(options.get("--output"));
+    if (output.toAbsolutePath()
+              .getParent() != null)
+      Files.createDirectories(output.toAbsolutePath()
+                                    .getParent());
+    Files.writeString(output, report);
+    System.out.println(report);
+    if (options.containsKey("--baseline"))
+      System.out.println(compare(parseNumbers(Files.readString(Path.of(options.get("--baseline")))), results));
+  }
+  
+  /**
+   * Generates a source tree and runs the doclet on it.
+   *
+   * @param tree          A tree to be generated.
+   * @param work          A directory in which sources and pages are generated.
+   * @param docletOptions Extra options given to the doclet.
+   * @return Measured values, keyed by their names.
+   * @throws IOException If a file cannot be written.
+   */
+  static Map<String, Number> run(SyntheticSourceTree tree, Path work, List<String> docletOptions) throws IOException {
+    Path sources = work.resolve("src");
+    Path destination = work.resolve("out");
+    // Pages left by a previous run in the same directory would be counted otherwise.
+    deleteRecursively(destination);
+    long generateStart = System.nanoTime();
+    tree.writeTo(sources);
+    long generateNanos = System.nanoTime() - generateStart;
+    
+    List<String> javadocOptions = new ArrayList<>(List.of("--module-source-path", sources.toString(),
+                                                          "--module", String.join(",", tree.moduleNames()),
+                                                          "-encoding", "UTF-8",
+                                                          "-protected",
+                                                          "-quiet",
+                                                          "-Xmaxwarns", "1",
+                                                          "-d", destination.toString(),
+                                                          "-verbosity", "quiet"));
+    javadocOptions.addAll(docletOptions);
+    DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+    System.gc();
+    List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans()
+                                                        .stream()
+                                                        .filter(p -> p.getType() == MemoryType.HEAP)
+                                                        .toList();
+    heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+    docletNanos = 0;
+    long javadocStart = System.nanoTime();
+    if (!tool.getTask(null, null, null, TimedMdDoclet.class, javadocOptions, null)
+             .call())
+      throw new IllegalStateException("javadoc failed: " + javadocOptions);
+    long javadocNanos = System.nanoTime() - javadocStart;
+    long peakHeapBytes = heapPools.stream()
+                                  .mapToLong(p -> p.getPeakUsage()
+                                                   .getUsed())
+                                  .sum();
+    
+    long pages;
+    long bytesWritten;
+    try (Stream<Path> files = Files.walk(destination)) {
+      List<Path> markdownFiles = files.filter(p -> p.toString()
+                                                    .endsWith(".md"))
+                                      .toList();
+      pages = markdownFiles.size();
+      bytesWritten = markdownFiles.stream()
+                                  .mapToLong(EndToEndHarness::sizeOf)
+                                  .sum();
+    }
+    Map<String, Number> ret = new LinkedHashMap<>();
+    ret.put("topLevelTypes", tree.topLevelTypes());
+    ret.put("pages", pages);
+    ret.put("bytesWritten", bytesWritten);
+    ret.put("peakHeapBytes", peakHeapBytes);
+    ret.put("generateMillis", generateNanos / 1_000_000);
+    ret.put("parseMillis", (javadocNanos - docletNanos) / 1_000_000);
+    ret.put("docletMillis", docletNanos / 1_000_000);
+    ret.put("totalMillis", javadocNanos / 1_000_000);
+    ret.put("pagesPerSecond", Math.round(pages * 1e9 / Math.max(docletNanos, 1)));
+    return ret;
+  }
+  
+  private static void deleteRecursively(Path directory) throws IOException {
+    if (!Files.exists(directory))
+      return;
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path each : files.sorted(Comparator.reverseOrder())
+                            .toList())
+        Files.delete(each);
+    }
+  }
+  
+  private static long sizeOf(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+  
+  private static String toJson(SyntheticSourceTree tree, List<String> docletOptions, Map<String, Number> results) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\n")
+      .append("  \"version\": \"")
+      .append(Objects.toString(MdDoclet.class.getPackage()
+                                             .getImplementationVersion(), "unknown"))
+      .append("\",\n")
+      .append("  \"java\": \"")
+      .append(System.getProperty("java.version"))
+      .append("\",\n")
+      .append("  \"availableProcessors\": ")
+      .append(Runtime.getRuntime()
+                     .availableProcessors())
+      .append(",\n")
+      .append(String.format("  \"tree\": {\"modules\": %d, \"packages\": %d, \"types\": %d, \"members\": %d},%n",
+                            tree.modules(),
+                            tree.packages(),
+                            tree.types(),
+                            tree.members()))
+      .append("  \"docletOptions\": [");
+    for (int i = 0; i < docletOptions.size(); i++)
+      sb.append(i == 0
+                ? ""
+                : ", ")
+        .append('"')
+        .append(docletOptions.get(i)
+                             .replace("\\", "\\\\")
+                             .replace("\"", "\\\""))
+        .append('"');
+    sb.append("],\n")
+      .append("  \"results\": {\n");
+    Iterator<Map.Entry<String, Number>> i = results.entrySet()
+                                                   .iterator();
+    while (i.hasNext()) {
+      Map.Entry<String, Number> each = i.next();
+      sb.append("    \"")
+        .append(each.getKey())
+        .append("\": ")
+        .append(each.getValue())
+        .append(i.hasNext()
+                ? ",\n"
+                : "\n");
+    }
+    return sb.append("  }\n")
+             .append("}\n")
+             .toString();
+  }
+  
+  /**
+   * Reads numeric fields of a report written by this harness.
+   * Since a report is flat except for `tree`, fields are picked up by a regular expression, not by a JSON parser.
+   *
+   * @param json A report.
+   * @return Numeric fields keyed by their names.
+   */
+  static Map<String, Double> parseNumbers(String json) {
+    Map<String, Double> ret = new LinkedHashMap<>();
+    Matcher m = NUMBER_FIELD.matcher(json);
+    while (m.find())
+      ret.put(m.group(1), Double.parseDouble(m.group(2)));
+    return ret;
+  }
+  
+  private static String compare(Map<String, Double> baseline, Map<String, Number> results) {
+    StringBuilder sb = new StringBuilder("Compared with the baseline:\n");
+    results.forEach((k, v) -> {
+      Double base = baseline.get(k);
+      if (base == null || base == 0)
+        return;
+      sb.append(String.format("  %-16s %14s -> %14s (%+.1f%%)%n", k, format(base), v, (v.doubleValue() - base) * 100 / base));
+    });
+    return sb.toString();
+  }
+  
+  private static String format(double value) {
+    return value == Math.rint(value)
+           ? Long.toString((long) value)
+           : Double.toString(value);
+  }
+  
+  /**
+   * A doclet that measures the time spent in `MdDoclet#run`.
+   */
+  public static class TimedMdDoclet extends MdDoclet {
+    /**
+     * Creates an instance of this class.
+     */
+    public TimedMdDoclet() {
+    }
+    
+    @Override
+    public boolean run(DocletEnvironment docEnv) {
+      long start = System.nanoTime();
+      try {
+        return super.run(docEnv);
+      } finally {
+        docletNanos = System.nanoTime() - start;
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.github.dakusui.mddoclet;
+
+import com.sun.source.doctree.DocCommentTree;
+import com.sun.source.doctree.DocTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.lang.model.type.TypeMirror;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of hot paths in rendering pages.
+ *
+ * Each benchmark processes the whole corpus once per invocation, so the throughput is "corpora per second".
+ * Run with `-prof gc` to see allocation rates, which the `jmh` profile does by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarkdownPageBenchmark {
+  @Param({"example", "synthetic:50", "synthetic:500"})
+  public String corpus;
+  
+  private BenchmarkCorpus input;
+  private StringBuilder out;
+  
+  @Setup
+  public void setUp() {
+    this.input = BenchmarkCorpus.load(corpus);
+    this.out = new StringBuilder(1 << 16);
+  }
+  
+  @Benchmark
+  public void renderAsTypePage(Blackhole blackhole) throws IOException {
+    for (MarkdownPage each : input.typePages()) {
+      out.setLength(0);
+      each.renderAsTypePage(out);
+      blackhole.consume(out.length());
+    }
+  }
+  
+  @Benchmark
+  public void extractCommentBody(Blackhole blackhole) {
+    CommentRenderer renderer = new CommentRenderer(input.docResolver());
+    for (DocCommentTree each : input.commentTrees())
+      blackhole.consume(renderer.render(each));
+  }
+  
+  @Benchmark
+  public void decodeUnicodeEscapes(Blackhole blackhole) {
+    for (String each : input.commentTexts())
+      blackhole.consume(CommentRenderer.decodeUnicodeEscapes(each));
+  }
+  
+  @Benchmark
+  public void renderBlockTags(Blackhole blackhole) throws IOException {
+    TagHandlers tagHandlers = TagHandlers.instance();
+    CommentRenderer renderer = new CommentRenderer(input.docResolver());
+    for (DocTree each : input.blockTags()) {
+      out.setLength(0);
+      tagHandlers.render(each, renderer, out);
+      blackhole.consume(out.length());
+    }
+  }
+  
+  @Benchmark
+  public void printParameterTypes(Blackhole blackhole) {
+    TypeNamePrinter printer = new TypeNamePrinter();
+    for (TypeMirror each : input.parameterTypes())
+      blackhole.consume(printer.print(each));
+  }
+  
+  @Benchmark
+  public void printReturnTypes(Blackhole blackhole) {
+    TypeNamePrinter printer = new TypeNamePrinter();
+    for (TypeMirror each : input.returnTypes())
+      blackhole.consume(printer.print(each));
+  }
+}
@@ -0,0 +1,260 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a tree of Java modules to run the doclet on.
+ *
+ * Each package has types of various kinds in turn (classes with nested types, interfaces, enums, and records), whose
+ * members have long comments with inline tags, code blocks, and block tags.
+ * Every type refers to another type in another package, so that references go across packages and modules.
+ *
+ * @param modules  Number of modules.
+ * @param packages Number of packages in each module.
+ * @param types    Number of top-level types in each package.
+ * @param members  Number of methods in each top-level type.
+ */
+record SyntheticSourceTree(int modules, int packages, int types, int members) {
+  private static final String MODULE_INFO = """
+      /**
+       * Synthetic module %1$s.
+       */
+      module %1$s {
+      %2$s}
+      """;
+  private static final String CLASS = """
+      package %1$s;
+
+      import java.util.List;
+      import java.util.Map;
+      import java.util.function.Function;
+
+      %2$s
+      public class %3$s {
+        /**
+         * A constant, whose value is {@value}.
+         */
+        public static final String NAME = "%3$s";
+
+        /**
+         * Creates an instance of {@link %3$s}.
+         *
+         * @param name A name, which must not be {@code null}.
+         */
+        public %3$s(String name) {
+        }
+      %4$s
+        /**
+         * A nested class of {@link %3$s}.
+         */
+        public static class Nested {
+          /**
+           * Returns a value.
+           *
+           * @return A value.
+           */
+          public int value() {
+            return 0;
+          }
+        }
+
+        /**
+         * A nested record.
+         *
+         * @param key   A key.
+         * @param value A value.
+         */
+        public record Entry(String key, List<String> value) {
+        }
+      }
+      """;
+  private static final String INTERFACE = """
+      package %1$s;
+
+      import java.util.List;
+      import java.util.Map;
+      import java.util.function.Function;
+
+      %2$s
+      public interface %3$s {%4$s}
+      """;
+  private static final String ENUM = """
+      package %1$s;
+
+      %2$s
+      public enum %3$s {
+        /**
+         * The first constant.
+         */
+        FIRST,
+        /**
+         * The second constant, which follows {@link #FIRST}.
+         */
+        SECOND;
+
+        /**
+         * Returns a label of this constant.
+         *
+         * @param prefix A prefix of the label.
+         * @return A label.
+         */
+        public String label(String prefix) {
+          return prefix + name();
+        }
+      }
+      """;
+  private static final String RECORD = """
+      package %1$s;
+
+      import java.util.List;
+      import java.util.Map;
+      import java.util.function.Function;
+
+      %2$s
+      public record %3$s(String name, List<Integer> values) {
+        /**
+         * Creates a record.
+         *
+         * @param name   A name.
+         * @param values Values.
+         */
+        public %3$s {
+        }
+      %4$s}
+      """;
+  private static final String TYPE_COMMENT = """
+      /**
+       * Synthetic type `%1$s`, which works together with {@link %2$s}.
+       *
+       * This type is generated to measure the throughput of the doclet.
+       * It has a long comment with a code block, a list, an HTML element, and a unicode escape (caf\\u00e9).
+       *
+       * ```java
+       * var instance = %1$s.class.getName();
+       * System.out.println(instance);
+       * ```
+       *
+       * - The first item, which has {@code code}.
+       * - The second item, which has <b>bold</b> text.
+       *
+       * @see %2$s
+       * @see java.util.List
+       */""";
+  private static final String METHOD = """
+
+        /**
+         * Method number %1$d, which converts {@code values} with a {@link Function}.
+         * See {@link #method%2$d(String, List, Function)} and {@link %3$s} for related operations.
+         *
+         * The conversion is done in the following steps.
+         *
+         * 1. Each value is applied to `function`.
+         * 2. Results are collected into a map keyed by `key`.
+         *
+         * @param key      A key, which is <b>not</b> `null`.
+         * @param values   Values to be converted.
+         * @param function A function applied to each value.
+         * @param <T>      A type of converted values.
+         * @return A map from {@code key} to converted values.
+         * @throws IllegalArgumentException If {@code key} is empty.
+         * @see %3$s
+         * @since 1.%1$d
+         */
+        %4$s<T> Map<String, List<T>> method%1$d(String key, List<Integer> values, Function<Integer, T> function)%5$s
+      """;
+  
+  /**
+   * Returns the number of top-level types this tree has.
+   *
+   * @return Number of top-level types.
+   */
+  int topLevelTypes() {
+    return modules * packages * types;
+  }
+  
+  /**
+   * Returns names of the modules in this tree.
+   *
+   * @return Names of the modules.
+   */
+  List<String> moduleNames() {
+    List<String> ret = new ArrayList<>();
+    for (int m = 0; m < modules; m++)
+      ret.add(moduleName(m));
+    return ret;
+  }
+  
+  /**
+   * Writes this tree under a given directory in the layout of `--module-source-path`.
+   *
+   * @param root A root directory of the module source path.
+   * @throws IOException If a file cannot be written.
+   */
+  void writeTo(Path root) throws IOException {
+    for (int m = 0; m < modules; m++) {
+      Path moduleDirectory = Files.createDirectories(root.resolve(moduleName(m)));
+      StringBuilder directives = new StringBuilder();
+      if (m > 0)
+        directives.append("  requires ")
+                  .append(moduleName(m - 1))
+                  .append(";\n");
+      for (int p = 0; p < packages; p++)
+        directives.append("  exports ")
+                  .append(packageName(m, p))
+                  .append(";\n");
+      Files.writeString(moduleDirectory.resolve("module-info.java"), MODULE_INFO.formatted(moduleName(m), directives));
+      for (int p = 0; p < packages; p++) {
+        Path packageDirectory = Files.createDirectories(moduleDirectory.resolve(packageName(m, p).replace('.', File.separatorChar)));
+        for (int t = 0; t < types; t++)
+          Files.writeString(packageDirectory.resolve(typeName(t) + ".java"), typeSource(m, p, t));
+      }
+    }
+  }
+  
+  private String typeSource(int m, int p, int t) {
+    String packageName = packageName(m, p);
+    String typeName = typeName(t);
+    // Refers to a type in the previous package, which is in the previous module for the first package.
+    String referredType = m == 0 && p == 0
+                          ? typeName(Math.max(t - 1, 0))
+                          : (p > 0
+                             ? packageName(m, p - 1)
+                             : packageName(m - 1, packages - 1)) + "." + typeName(t);
+    String comment = TYPE_COMMENT.formatted(typeName, referredType);
+    return switch (t % 4) {
+      case 0 -> CLASS.formatted(packageName, comment, typeName, methods(referredType, "public ", " {\n    return Map.of();\n  }"));
+      case 1 -> INTERFACE.formatted(packageName, comment, typeName, methods(referredType, "", ";"));
+      case 2 -> ENUM.formatted(packageName, comment, typeName);
+      default -> RECORD.formatted(packageName, comment, typeName, methods(referredType, "public ", " {\n    return Map.of();\n  }"));
+    };
+  }
+  
+  private String methods(String referredType, String modifiers, String body) {
+    StringBuilder ret = new StringBuilder();
+    for (int i = 0; i < members; i++)
+      ret.append(METHOD.formatted(i, (i + 1) % members, referredType, modifiers, body));
+    return ret.toString();
+  }
+  
+  private static String moduleName(int m) {
+    return "synthetic.m" + m;
+  }
+  
+  private static String packageName(int m, int p) {
+    return "synthetic.m" + m + ".p" + p;
+  }
+  
+  private static String typeName(int t) {
+    return switch (t % 4) {
+      case 0 -> "Class";
+      case 1 -> "Interface";
+      case 2 -> "Enum";
+      default -> "Record";
+    } + t;
+  }
+}
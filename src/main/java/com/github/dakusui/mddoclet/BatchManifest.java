@@ -0,0 +1,93 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A list of projects whose pages are generated in one JVM by `-batch` of {@link MdJavadoc}.
+ *
+ * A manifest is a text file, in which a project starts with its name in brackets, followed by its options of javadoc
+ * and the doclet, one per line.
+ *
+ * ```
+ * # Options before the first project are common to all projects.
+ * -encoding UTF-8
+ * -quiet
+ *
+ * [billing]
+ * --source-path services/billing/src/main/java
+ * --class-path services/billing/target/classes
+ * -subpackages com.example.billing
+ * -d docs/billing
+ * -base-path /docs/billing/
+ * -overview services/billing/src/main/javadoc/overview.md
+ * -target-packages .*#com\.example\..*
+ * ```
+ *
+ * A line is an option and its argument, separated by the first whitespace, so an argument can contain spaces and
+ * doesn't need quotes.
+ * A line without an argument is a flag, such as `-incremental`, and a line that doesn't start with `-` is a source file
+ * or a package name.
+ * Blank lines and lines starting with `#` are ignored.
+ * Relative paths are resolved against the working directory, as javadoc does.
+ *
+ * @param commonOptions Options given to all projects, before their own ones.
+ * @param projects      Projects in the order they are written.
+ */
+record BatchManifest(List<String> commonOptions, List<Project> projects) {
+  /**
+   * Reads a manifest from a file.
+   *
+   * @param file A file to be read.
+   * @return A manifest.
+   * @throws IOException If the file cannot be read, or it has a malformed line.
+   */
+  static BatchManifest readFrom(File file) throws IOException {
+    List<String> commonOptions = new ArrayList<>();
+    List<Project> projects = new ArrayList<>();
+    Set<String> names = new HashSet<>();
+    List<String> options = commonOptions;
+    int lineNumber = 0;
+    for (String each : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+      lineNumber++;
+      String line = each.strip();
+      if (line.isEmpty() || line.startsWith("#"))
+        continue;
+      if (line.startsWith("[")) {
+        String name = line.endsWith("]")
+                      ? line.substring(1, line.length() - 1)
+                            .strip()
+                      : "";
+        if (name.isEmpty())
+          throw new IOException(file + ":" + lineNumber + ": Malformed project name: " + line);
+        if (!names.add(name))
+          throw new IOException(file + ":" + lineNumber + ": Duplicate project: " + name);
+        options = new ArrayList<>();
+        projects.add(new Project(name, options));
+        continue;
+      }
+      String[] optionAndArgument = line.split("\\s+", 2);
+      options.addAll(List.of(optionAndArgument));
+    }
+    if (projects.isEmpty())
+      throw new IOException(file + ": No project is found");
+    return new BatchManifest(List.copyOf(commonOptions), projects.stream()
+                                                                 .map(p -> new Project(p.name(), List.copyOf(p.options())))
+                                                                 .toList());
+  }
+  
+  /**
+   * A project in a manifest.
+   *
+   * @param name    A name of the project, by which its messages are prefixed.
+   * @param options Options of javadoc and the doclet of the project.
+   */
+  record Project(String name, List<String> options) {
+  }
+}
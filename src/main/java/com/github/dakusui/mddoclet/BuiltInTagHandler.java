@@ -0,0 +1,114 @@
+package com.github.dakusui.mddoclet;
+
+import com.sun.source.doctree.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Handlers of the block tags this doclet renders by itself.
+ */
+enum BuiltInTagHandler implements TagHandler {
+  SEE(DocTree.Kind.SEE) {
+    @Override
+    public void render(DocTree tag, Context context, Appendable out) throws IOException {
+      List<? extends DocTree> reference = ((SeeTree) tag).getReference();
+      if (reference.isEmpty() || !(reference.getFirst() instanceof ReferenceTree referenceTree)) {
+        // A quoted string or an HTML link.
+        TagHandler.renderItem("SEE", context.render(reference), out);
+        return;
+      }
+      String signature = referenceTree.getSignature();
+      List<? extends DocTree> label = reference.subList(1, reference.size());
+      String renderedLabel = context.render(label)
+                                    .trim();
+      TagHandler.renderItem("SEE",
+                            "[" + (renderedLabel.isEmpty()
+                                   ? "`" + signature + "`"
+                                   : renderedLabel) + "](" + context.resolve(signature) + ")",
+                            out);
+    }
+  },
+  PARAM(DocTree.Kind.PARAM) {
+    @Override
+    public void render(DocTree tag, Context context, Appendable out) throws IOException {
+      ParamTree paramTree = (ParamTree) tag;
+      String name = paramTree.getName()
+                             .getName()
+                             .toString();
+      TagHandler.renderItem("PARAM",
+                            "`" + (paramTree.isTypeParameter()
+                                   ? "<" + name + ">"
+                                   : name) + "` " + descriptionOf(paramTree.getDescription(), context),
+                            out);
+    }
+  },
+  RETURN(DocTree.Kind.RETURN) {
+    @Override
+    public void render(DocTree tag, Context context, Appendable out) throws IOException {
+      TagHandler.renderItem("RETURN", descriptionOf(((ReturnTree) tag).getDescription(), context), out);
+    }
+  },
+  THROWS(DocTree.Kind.THROWS) {
+    @Override
+    public void render(DocTree tag, Context context, Appendable out) throws IOException {
+      renderThrows((ThrowsTree) tag, context, out);
+    }
+  },
+  EXCEPTION(DocTree.Kind.EXCEPTION) {
+    @Override
+    public void render(DocTree tag, Context context, Appendable out) throws IOException {
+      renderThrows((ThrowsTree) tag, context, out);
+    }
+  },
+  SINCE(DocTree.Kind.SINCE) {
+    @Override
+    public void render(DocTree tag, Context context, Appendable out) throws IOException {
+      TagHandler.renderItem("SINCE", descriptionOf(((SinceTree) tag).getBody(), context), out);
+    }
+  },
+  DEPRECATED(DocTree.Kind.DEPRECATED) {
+    @Override
+    public void render(DocTree tag, Context context, Appendable out) throws IOException {
+      TagHandler.renderItem("DEPRECATED", descriptionOf(((DeprecatedTree) tag).getBody(), context), out);
+    }
+  },
+  API_NOTE(DocTree.Kind.UNKNOWN_BLOCK_TAG) {
+    @Override
+    public Set<String> tagNames() {
+      return Set.of("apiNote");
+    }
+    
+    @Override
+    public void render(DocTree tag, Context context, Appendable out) throws IOException {
+      TagHandler.renderItem("API NOTE", descriptionOf(((UnknownBlockTagTree) tag).getContent(), context), out);
+    }
+  };
+  
+  private final DocTree.Kind kind;
+  
+  BuiltInTagHandler(DocTree.Kind kind) {
+    this.kind = kind;
+  }
+  
+  @Override
+  public DocTree.Kind kind() {
+    return this.kind;
+  }
+  
+  private static void renderThrows(ThrowsTree tag, Context context, Appendable out) throws IOException {
+    TagHandler.renderItem("THROWS",
+                          "`" + tag.getExceptionName()
+                                   .getSignature() + "` " + descriptionOf(tag.getDescription(), context),
+                          out);
+  }
+  
+  private static String descriptionOf(List<? extends DocTree> description, Context context) {
+    String ret = context.render(description)
+                        .trim();
+    return ret.isEmpty()
+           ? "t.b.d."
+           : ret;
+  }
+}
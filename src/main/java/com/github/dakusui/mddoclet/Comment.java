@@ -0,0 +1,100 @@
+package com.github.dakusui.mddoclet;
+
+import com.sun.source.doctree.DocCommentTree;
+
+/**
+ * A doc comment of an element, rendered by the {@link CommentRenderer} of the page in which it appears.
+ *
+ * A comment is either a comment tree read from the javadoc model ({@link OfTree}), or a comment rendered in advance
+ * ({@link Rendered}).
+ * A page renders its comment trees in advance when it takes a snapshot, since comment trees must not be walked by the
+ * threads that render pages, and a {@link DocModel} stores comments rendered in the same way.
+ * References in the latter are left unresolved ({@link CommentRenderer#deferring()}) and resolved when the comment is
+ * rendered in a page, so that it links to pages in the same way as a comment tree does.
+ */
+sealed interface Comment permits Comment.OfTree, Comment.Rendered {
+  /**
+   * Renders the body of this comment, followed by block tags without a {@link TagHandler}.
+   *
+   * @param renderer A renderer of the page.
+   * @return A rendered markdown text.
+   */
+  String body(CommentRenderer renderer);
+  
+  /**
+   * Renders block tags of this comment with the {@link TagHandlers} of a renderer.
+   *
+   * @param renderer A renderer of the page.
+   * @return A rendered markdown text. Empty if this comment doesn't have a block tag that has a handler.
+   */
+  String tags(CommentRenderer renderer);
+  
+  /**
+   * Renders the first sentence of this comment.
+   *
+   * @param renderer A renderer of the page.
+   * @return A rendered markdown text.
+   */
+  String firstSentence(CommentRenderer renderer);
+  
+  /**
+   * Renders this comment in advance, leaving references unresolved, so that it can be stored without the javadoc model.
+   *
+   * @return A rendered comment.
+   */
+  default Rendered deferred() {
+    CommentRenderer renderer = CommentRenderer.deferring();
+    return new Rendered(body(renderer), tags(renderer), firstSentence(renderer));
+  }
+  
+  /**
+   * A comment tree read from the javadoc model.
+   *
+   * @param docCommentTree A comment tree.
+   */
+  record OfTree(DocCommentTree docCommentTree) implements Comment {
+    @Override
+    public String body(CommentRenderer renderer) {
+      return renderer.render(docCommentTree);
+    }
+    
+    @Override
+    public String tags(CommentRenderer renderer) {
+      return renderer.renderBlockTags(docCommentTree);
+    }
+    
+    @Override
+    public String firstSentence(CommentRenderer renderer) {
+      return renderer.render(docCommentTree.getFirstSentence());
+    }
+  }
+  
+  /**
+   * A comment rendered in advance by {@link CommentRenderer#deferring()}.
+   *
+   * @param body          A rendered body.
+   * @param tags          Rendered block tags.
+   * @param firstSentence A rendered first sentence.
+   */
+  record Rendered(String body, String tags, String firstSentence) implements Comment {
+    @Override
+    public String body(CommentRenderer renderer) {
+      return renderer.resolveDeferred(body);
+    }
+    
+    @Override
+    public String tags(CommentRenderer renderer) {
+      return renderer.resolveDeferred(tags);
+    }
+    
+    @Override
+    public String firstSentence(CommentRenderer renderer) {
+      return renderer.resolveDeferred(firstSentence);
+    }
+    
+    @Override
+    public Rendered deferred() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,361 @@
+package com.github.dakusui.mddoclet;
+
+import com.sun.source.doctree.*;
+import com.sun.source.util.SimpleDocTreeVisitor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Renders a `DocCommentTree` into markdown in one pass, by walking its nodes.
+ *
+ * Text nodes are emitted as they are, because comments are written in markdown.
+ * Inline tags such as `{@link}` and `{@code}` are converted into corresponding markdown notations.
+ *
+ * An instance of this class doesn't have a mutable state and can be shared among threads.
+ */
+final class CommentRenderer extends SimpleDocTreeVisitor<Void, StringBuilder> implements TagHandler.Context {
+  private static final String NEWLINE = String.format("%n");
+  /**
+   * A character that encloses a reference left unresolved by {@link #deferring()}, which never appears in a comment.
+   */
+  private static final char DEFERRED_REFERENCE = '\u0000';
+  private static final CommentRenderer DEFERRING = new CommentRenderer(reference -> DEFERRED_REFERENCE + reference + DEFERRED_REFERENCE);
+  
+  private final Function<String, String> docResolver;
+  private final TagHandlers tagHandlers;
+  
+  /**
+   * Creates an instance of this class, which renders block tags with {@link TagHandlers#instance()}.
+   *
+   * @param docResolver A function that resolves a reference in a `{@link}` tag to a path of a document.
+   */
+  CommentRenderer(Function<String, String> docResolver) {
+    this(docResolver, TagHandlers.instance());
+  }
+  
+  /**
+   * Creates an instance of this class.
+   *
+   * @param docResolver A function that resolves a reference in a `{@link}` tag to a path of a document.
+   * @param tagHandlers A registry of handlers with which block tags are rendered.
+   */
+  CommentRenderer(Function<String, String> docResolver, TagHandlers tagHandlers) {
+    this.docResolver = docResolver;
+    this.tagHandlers = tagHandlers;
+  }
+  
+  /**
+   * Returns a renderer that leaves references unresolved, so that a comment can be rendered before links are known.
+   * References in a text rendered by it are resolved later by {@link #resolveDeferred(String)}.
+   *
+   * @return A renderer that defers resolving references.
+   */
+  static CommentRenderer deferring() {
+    return DEFERRING;
+  }
+  
+  /**
+   * Resolves references left in a text rendered by {@link #deferring()}.
+   *
+   * @param text A text rendered by {@link #deferring()}.
+   * @return A text whose references are resolved by this renderer.
+   */
+  String resolveDeferred(String text) {
+    int begin = text.indexOf(DEFERRED_REFERENCE);
+    if (begin < 0)
+      return text;
+    StringBuilder sb = new StringBuilder(text.length());
+    int i = 0;
+    while (begin >= 0) {
+      int end = text.indexOf(DEFERRED_REFERENCE, begin + 1);
+      sb.append(text, i, begin)
+        .append(docResolver.apply(text.substring(begin + 1, end)));
+      i = end + 1;
+      begin = text.indexOf(DEFERRED_REFERENCE, i);
+    }
+    return sb.append(text, i, text.length())
+             .toString();
+  }
+  
+  /**
+   * Returns references left in a text rendered by {@link #deferring()}, in the order they appear.
+   *
+   * @param text A text rendered by {@link #deferring()}.
+   * @return References in `text`.
+   */
+  static List<String> deferredReferencesIn(String text) {
+    List<String> ret = new ArrayList<>();
+    int begin = text.indexOf(DEFERRED_REFERENCE);
+    while (begin >= 0) {
+      int end = text.indexOf(DEFERRED_REFERENCE, begin + 1);
+      ret.add(text.substring(begin + 1, end));
+      begin = text.indexOf(DEFERRED_REFERENCE, end + 1);
+    }
+    return ret;
+  }
+  
+  /**
+   * Renders the body of a given comment tree.
+   *
+   * Block tags without a {@link TagHandler} are appended after the body as they are written.
+   *
+   * @param docCommentTree A comment tree to be rendered.
+   * @return A rendered markdown text.
+   */
+  String render(DocCommentTree docCommentTree) {
+    StringBuilder sb = new StringBuilder();
+    renderAll(docCommentTree.getFullBody(), sb);
+    boolean first = true;
+    for (DocTree each : docCommentTree.getBlockTags()) {
+      if (this.tagHandlers.handles(each))
+        continue;
+      sb.append(first
+                ? NEWLINE + NEWLINE
+                : NEWLINE);
+      appendText(each.toString(), sb);
+      first = false;
+    }
+    return sb.toString();
+  }
+  
+  /**
+   * Renders block tags of a given comment tree that have a {@link TagHandler}.
+   *
+   * @param docCommentTree A comment tree whose block tags are rendered.
+   * @return A rendered markdown text. Empty if the comment doesn't have a block tag that has a handler.
+   */
+  String renderBlockTags(DocCommentTree docCommentTree) {
+    StringBuilder sb = new StringBuilder();
+    try {
+      for (DocTree each : docCommentTree.getBlockTags())
+        this.tagHandlers.render(each, this, sb);
+    } catch (IOException e) {
+      // StringBuilder doesn't throw an IOException.
+      throw new RuntimeException(e);
+    }
+    return sb.toString();
+  }
+  
+  @Override
+  public String render(List<? extends DocTree> content) {
+    StringBuilder sb = new StringBuilder();
+    renderAll(content, sb);
+    return sb.toString();
+  }
+  
+  @Override
+  public String resolve(String reference) {
+    return docResolver.apply(reference);
+  }
+  
+  private void renderAll(List<? extends DocTree> trees, StringBuilder sb) {
+    for (DocTree each : trees)
+      each.accept(this, sb);
+  }
+  
+  @Override
+  public Void visitText(TextTree node, StringBuilder sb) {
+    appendText(node.getBody(), sb);
+    return null;
+  }
+  
+  @Override
+  public Void visitLink(LinkTree node, StringBuilder sb) {
+    // A tag without a reference, such as `{@link}` mentioned in a comment, is emitted as it is written.
+    if (node.getReference() == null) {
+      sb.append("{@")
+        .append(node.getTagName());
+      if (!node.getLabel()
+               .isEmpty())
+        sb.append(" ")
+          .append(render(node.getLabel()));
+      sb.append("}");
+      return null;
+    }
+    String reference = node.getReference()
+                           .getSignature();
+    sb.append("[");
+    if (!node.getLabel()
+             .isEmpty())
+      renderAll(node.getLabel(), sb);
+    else if (node.getKind() == DocTree.Kind.LINK)
+      sb.append("`")
+        .append(reference)
+        .append("`");
+    else
+      sb.append(reference);
+    sb.append("](")
+      .append(docResolver.apply(reference))
+      .append(")");
+    return null;
+  }
+  
+  @Override
+  public Void visitLiteral(LiteralTree node, StringBuilder sb) {
+    // An empty code span isn't a code span in markdown, so a tag without a body is emitted as it is written.
+    if (node.getBody()
+            .getBody()
+            .isEmpty())
+      sb.append("{@")
+        .append(node.getTagName())
+        .append("}");
+    else if (node.getKind() == DocTree.Kind.CODE)
+      sb.append("`")
+        .append(decodeUnicodeEscapes(node.getBody()
+                                         .getBody()))
+        .append("`");
+    else
+      sb.append(decodeUnicodeEscapes(node.getBody()
+                                         .getBody()));
+    return null;
+  }
+  
+  @Override
+  public Void visitValue(ValueTree node, StringBuilder sb) {
+    if (node.getReference() == null)
+      return defaultAction(node, sb);
+    sb.append("`")
+      .append(node.getReference()
+                  .getSignature())
+      .append("`");
+    return null;
+  }
+  
+  @Override
+  public Void visitSummary(SummaryTree node, StringBuilder sb) {
+    renderAll(node.getSummary(), sb);
+    return null;
+  }
+  
+  @Override
+  public Void visitIndex(IndexTree node, StringBuilder sb) {
+    node.getSearchTerm()
+        .accept(this, sb);
+    return null;
+  }
+  
+  @Override
+  public Void visitSystemProperty(SystemPropertyTree node, StringBuilder sb) {
+    sb.append("`")
+      .append(node.getPropertyName())
+      .append("`");
+    return null;
+  }
+  
+  @Override
+  public Void visitSnippet(SnippetTree node, StringBuilder sb) {
+    if (node.getBody() == null)
+      return defaultAction(node, sb);
+    sb.append(NEWLINE)
+      .append("```")
+      .append(NEWLINE)
+      .append(decodeUnicodeEscapes(node.getBody()
+                                       .getBody()))
+      .append("```")
+      .append(NEWLINE);
+    return null;
+  }
+  
+  @Override
+  public Void visitEscape(EscapeTree node, StringBuilder sb) {
+    sb.append(node.getBody());
+    return null;
+  }
+  
+  @Override
+  public Void visitEntity(EntityTree node, StringBuilder sb) {
+    sb.append("&")
+      .append(node.getName())
+      .append(";");
+    return null;
+  }
+  
+  @Override
+  public Void visitErroneous(ErroneousTree node, StringBuilder sb) {
+    appendText(node.getBody(), sb);
+    return null;
+  }
+  
+  /**
+   * Emits a node as it is written in the source, for instance, HTML elements and unknown inline tags.
+   */
+  @Override
+  protected Void defaultAction(DocTree node, StringBuilder sb) {
+    appendText(node.toString(), sb);
+    return null;
+  }
+  
+  /**
+   * Appends a text, decoding unicode escapes in it.
+   * Indentations before code fences (` ``` `) and headings (`#`) are removed so that markdown renderers recognize them.
+   */
+  private static void appendText(String text, StringBuilder sb) {
+    String decoded = decodeUnicodeEscapes(text);
+    int lineStart = 0;
+    int newline;
+    while ((newline = decoded.indexOf('\n', lineStart)) >= 0) {
+      appendLine(decoded, lineStart, newline, lineStart > 0, sb);
+      sb.append(NEWLINE);
+      lineStart = newline + 1;
+    }
+    appendLine(decoded, lineStart, decoded.length(), lineStart > 0, sb);
+  }
+  
+  private static void appendLine(String text, int begin, int end, boolean atLineStart, StringBuilder sb) {
+    if (atLineStart) {
+      int i = begin;
+      while (i < end && text.charAt(i) == ' ')
+        i++;
+      if (i > begin && (text.startsWith("```", i) || text.startsWith("#", i)))
+        begin = i;
+    }
+    sb.append(text, begin, end);
+  }
+  
+  /**
+   * Decodes unicode escapes (a backslash followed by `u` and four hexadecimal digits), which are left as they are in doc
+   * comment trees.
+   * Other backslashes are kept.
+   *
+   * @param input A string to be decoded.
+   * @return A decoded string.
+   */
+  static String decodeUnicodeEscapes(String input) {
+    int backslash = input.indexOf('\\');
+    if (backslash < 0)
+      return input;
+    StringBuilder sb = new StringBuilder(input.length());
+    int i = 0;
+    while (backslash >= 0) {
+      int u = backslash + 1;
+      while (u < input.length() && input.charAt(u) == 'u')
+        u++;
+      if (u > backslash + 1 && u + 4 <= input.length() && isPrecededByEvenNumberOfBackslashes(input, backslash) && isHex(input, u, u + 4)) {
+        sb.append(input, i, backslash)
+          .append((char) Integer.parseInt(input, u, u + 4, 16));
+        i = u + 4;
+      }
+      backslash = input.indexOf('\\', Math.max(backslash + 1, i));
+    }
+    return sb.append(input, i, input.length())
+             .toString();
+  }
+  
+  private static boolean isPrecededByEvenNumberOfBackslashes(String input, int index) {
+    int n = 0;
+    for (int i = index - 1; i >= 0 && input.charAt(i) == '\\'; i--)
+      n++;
+    return n % 2 == 0;
+  }
+  
+  private static boolean isHex(String input, int begin, int end) {
+    for (int i = begin; i < end; i++) {
+      if (Character.digit(input.charAt(i), 16) < 0)
+        return false;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,325 @@
+package com.github.dakusui.mddoclet;
+
+import javax.lang.model.element.ElementKind;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * A documentation model, that is, everything this doclet extracts from the javadoc model to generate pages: types to
+ * build a {@link LinkIndex} from, and snapshots of pages ({@link MarkdownPage.Model}).
+ *
+ * A model is written to a compact binary file by `-model-cache`, from which {@link MdRender} generates pages without
+ * running javadoc.
+ * Since comments in a model are rendered with their references unresolved, options that affect links, such as
+ * `-base-path`, `-link-index`, and `-max-members`, as well as templates, take effect when pages are generated from it.
+ *
+ * The file consists of the following, all numbers in big-endian.
+ *
+ * ```
+ * magic          4 bytes    "MDDM"
+ * version        int        2
+ * typeCount      int
+ * types          typeCount times of:
+ *   qualifiedName, simpleName, constructorName, documentPath    string
+ *   memberCount  int
+ *   members      memberCount times of kind, name, and parameters, all string
+ * pageCount      int
+ * pages          pageCount times of:
+ *   outputPath, elementName, kind                               string
+ *   navigationNames                                             list of string
+ *   context      typeName, enclosingTypes, packageName, singleTypeImports, onDemandImports
+ *   model        fields of MarkdownPage.Model in their order
+ * ```
+ *
+ * A string is an int length followed by its UTF-8 bytes, and `-1` for `null`.
+ * A list is an int size followed by its elements, and a map is a list of keys and values.
+ * A kind is written by its name.
+ * A comment is a boolean that tells if it is present, followed by its rendered body, tags, and first sentence.
+ *
+ * @param types Types for which pages are generated.
+ * @param pages Pages to be generated, in the order they are generated.
+ */
+record DocModel(List<LinkIndex.Type> types, List<Page> pages) {
+  private static final byte[] MAGIC = "MDDM".getBytes(StandardCharsets.US_ASCII);
+  static final int VERSION = 2;
+  
+  /**
+   * Writes this model to a file.
+   *
+   * @param file A file to be written.
+   */
+  void writeTo(File file) {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+      out.write(MAGIC);
+      out.writeInt(VERSION);
+      writeList(out, this.types, DocModel::writeType);
+      writeList(out, this.pages, DocModel::writePage);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  /**
+   * Reads a model from a file written by {@link #writeTo(File)}.
+   *
+   * @param file A file to be read.
+   * @return A model.
+   * @throws IOException If the file cannot be read or is not a model of a supported version.
+   */
+  static DocModel readFrom(File file) throws IOException {
+    try (ModelInput in = new ModelInput(new BufferedInputStream(Files.newInputStream(file.toPath())), file.length())) {
+      byte[] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      if (!Arrays.equals(magic, MAGIC))
+        throw new IOException("Not a model cache file: " + file);
+      int version = in.readInt();
+      if (version != VERSION)
+        throw new IOException("Unsupported version of model cache file: " + file + ": " + version);
+      return new DocModel(readList(in, DocModel::readType), readList(in, DocModel::readPage));
+    } catch (EOFException | IllegalArgumentException e) {
+      throw new IOException("Broken model cache file: " + file, e);
+    }
+  }
+  
+  private static void writeType(DataOutput out, LinkIndex.Type type) throws IOException {
+    writeString(out, type.qualifiedName());
+    writeString(out, type.simpleName());
+    writeString(out, type.constructorName());
+    writeString(out, type.documentPath());
+    writeList(out, type.members(), (o, m) -> {
+      writeString(o, m.kind()
+                      .name());
+      writeString(o, m.name());
+      writeString(o, m.parameters());
+    });
+  }
+  
+  private static LinkIndex.Type readType(ModelInput in) throws IOException {
+    return new LinkIndex.Type(readString(in),
+                              readString(in),
+                              readString(in),
+                              readString(in),
+                              readList(in, i -> new LinkIndex.Member(ElementKind.valueOf(readString(i)), readString(i), readString(i))));
+  }
+  
+  private static void writePage(DataOutput out, Page page) throws IOException {
+    writeString(out, page.outputPath());
+    writeString(out, page.elementName());
+    writeString(out, page.kind()
+                         .name());
+    writeList(out, page.navigationNames(), DocModel::writeString);
+    LinkIndex.Context context = page.context();
+    writeString(out, context.typeName());
+    writeList(out, context.enclosingTypes(), DocModel::writeString);
+    writeString(out, context.packageName());
+    writeList(out, new TreeMap<>(context.singleTypeImports()).entrySet()
+                                                            .stream()
+                                                            .toList(), (o, e) -> {
+      writeString(o, e.getKey());
+      writeString(o, e.getValue());
+    });
+    writeList(out, context.onDemandImports(), DocModel::writeString);
+    MarkdownPage.Model model = page.model();
+    writeString(out, model.pageStyle()
+                          .name());
+    writeString(out, model.elementName());
+    writeString(out, model.elementKind());
+    writeString(out, model.displayName());
+    writeString(out, model.ownerName());
+    writeString(out, model.simpleName());
+    writeString(out, model.title());
+    writeString(out, model.overview());
+    writeComment(out, model.comment());
+    writeList(out, model.members(), (o, m) -> {
+      writeString(o, m.anchor());
+      writeString(o, m.kind()
+                      .name());
+      writeString(o, m.name());
+      writeString(o, m.returnType());
+      writeString(o, m.parameters());
+      o.writeBoolean(m.executable());
+      writeComment(o, m.comment());
+    });
+    writeList(out, model.entries(), (o, e) -> {
+      writeString(o, e.kind()
+                      .name());
+      writeString(o, e.name());
+      writeString(o, e.target());
+    });
+  }
+  
+  private static Page readPage(ModelInput in) throws IOException {
+    String outputPath = readString(in);
+    String elementName = readString(in);
+    ElementKind kind = ElementKind.valueOf(readString(in));
+    List<String> navigationNames = readList(in, DocModel::readString);
+    LinkIndex.Context context = new LinkIndex.Context(readString(in),
+                                                      readList(in, DocModel::readString),
+                                                      readString(in),
+                                                      readMap(in),
+                                                      readList(in, DocModel::readString));
+    MarkdownPage.Model model = new MarkdownPage.Model(MarkdownPage.PageStyle.valueOf(readString(in)),
+                                                      readString(in),
+                                                      readString(in),
+                                                      readString(in),
+                                                      readString(in),
+                                                      readString(in),
+                                                      readString(in),
+                                                      readString(in),
+                                                      readComment(in),
+                                                      readList(in, i -> new MarkdownPage.Member(readString(i),
+                                                                                                ElementKind.valueOf(readString(i)),
+                                                                                                readString(i),
+                                                                                                readString(i),
+                                                                                                readString(i),
+                                                                                                i.readBoolean(),
+                                                                                                readComment(i))),
+                                                      readList(in, i -> new MarkdownPage.Entry(ElementKind.valueOf(readString(i)),
+                                                                                               readString(i),
+                                                                                               readString(i))));
+    return new Page(outputPath, elementName, kind, navigationNames, context, model);
+  }
+  
+  private static void writeComment(DataOutput out, Comment comment) throws IOException {
+    out.writeBoolean(comment != null);
+    if (comment == null)
+      return;
+    Comment.Rendered rendered = comment.deferred();
+    writeString(out, rendered.body());
+    writeString(out, rendered.tags());
+    writeString(out, rendered.firstSentence());
+  }
+  
+  private static Comment readComment(ModelInput in) throws IOException {
+    if (!in.readBoolean())
+      return null;
+    return new Comment.Rendered(readString(in), readString(in), readString(in));
+  }
+  
+  private static Map<String, String> readMap(ModelInput in) throws IOException {
+    Map<String, String> ret = new HashMap<>();
+    int size = readSize(in);
+    for (int i = 0; i < size; i++)
+      ret.put(readString(in), readString(in));
+    return Map.copyOf(ret);
+  }
+  
+  private static void writeString(DataOutput out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+  
+  private static String readString(ModelInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0)
+      return null;
+    if (length > in.remaining())
+      throw new IllegalArgumentException("Length beyond the end of the file: " + length);
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+  
+  private static <T> void writeList(DataOutput out, List<T> list, ElementWriter<T> writer) throws IOException {
+    out.writeInt(list.size());
+    for (T each : list)
+      writer.write(out, each);
+  }
+  
+  private static <T> List<T> readList(ModelInput in, ElementReader<T> reader) throws IOException {
+    int size = readSize(in);
+    List<T> ret = new ArrayList<>(size);
+    for (int i = 0; i < size; i++)
+      ret.add(reader.read(in));
+    return List.copyOf(ret);
+  }
+  
+  private static int readSize(ModelInput in) throws IOException {
+    int ret = in.readInt();
+    if (ret < 0)
+      throw new IllegalArgumentException("Negative size: " + ret);
+    // Every element takes at least a byte, so a larger size can't be right.
+    if (ret > in.remaining())
+      throw new IllegalArgumentException("Size beyond the end of the file: " + ret);
+    return ret;
+  }
+  
+  /**
+   * A page to be generated.
+   *
+   * @param outputPath      A path of the page, relative to the destination.
+   * @param elementName     A fully qualified name of the element documented by the page.
+   * @param kind            A kind of the element.
+   * @param navigationNames Names of the element and its ancestors in a navigation tree.
+   * @param context         A context in which references in comments of the page are resolved.
+   * @param model           A snapshot of the page.
+   */
+  record Page(String outputPath, String elementName, ElementKind kind, List<String> navigationNames,
+              LinkIndex.Context context, MarkdownPage.Model model) {
+  }
+  
+  /**
+   * A stream of a model file, which knows how many bytes are left in it, so that a length read from a broken file is
+   * rejected before anything of that length is allocated.
+   */
+  private static final class ModelInput extends DataInputStream {
+    private final long length;
+    
+    ModelInput(InputStream in, long length) {
+      super(new CountingInputStream(in));
+      this.length = length;
+    }
+    
+    long remaining() {
+      return this.length - ((CountingInputStream) this.in).count;
+    }
+  }
+  
+  private static final class CountingInputStream extends FilterInputStream {
+    private long count = 0;
+    
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+    
+    @Override
+    public int read() throws IOException {
+      int ret = super.read();
+      if (ret >= 0)
+        this.count++;
+      return ret;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int ret = super.read(b, off, len);
+      if (ret > 0)
+        this.count += ret;
+      return ret;
+    }
+    
+    @Override
+    public long skip(long n) throws IOException {
+      long ret = super.skip(n);
+      this.count += ret;
+      return ret;
+    }
+  }
+  
+  @FunctionalInterface
+  private interface ElementWriter<T> {
+    void write(DataOutput out, T value) throws IOException;
+  }
+  
+  @FunctionalInterface
+  private interface ElementReader<T> {
+    T read(ModelInput in) throws IOException;
+  }
+}
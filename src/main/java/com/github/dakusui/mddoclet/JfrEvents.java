@@ -0,0 +1,131 @@
+package com.github.dakusui.mddoclet;
+
+import jdk.jfr.*;
+
+import java.io.IOException;
+
+/**
+ * Java Flight Recorder events emitted by this doclet.
+ *
+ * Record them by running javadoc with `-J-XX:StartFlightRecording:filename=mddoclet.jfr` and look at the events in the
+ * `mddoclet` category.
+ * When a recording is not running, an event costs a check of {@link Event#isEnabled()} only.
+ */
+enum JfrEvents {
+  ;
+  
+  /**
+   * An event covering the construction of a page in `MdDoclet#run`, from reading the javadoc model to taking a snapshot.
+   */
+  @Name("com.github.dakusui.mddoclet.PageBuild")
+  @Label("Page Build")
+  @Category("mddoclet")
+  @Description("Builds a page from the javadoc model and takes a snapshot of it")
+  static final class PageBuild extends Event {
+    @Label("Element")
+    String element;
+    @Label("Kind")
+    String kind;
+    @Label("Members")
+    @Description("Number of member sections of a type page, or entries of an index page")
+    int members;
+  }
+  
+  /**
+   * An event covering the rendering of a page.
+   */
+  @Name("com.github.dakusui.mddoclet.PageRender")
+  @Label("Page Render")
+  @Category("mddoclet")
+  @Description("Renders a page into markdown")
+  static final class PageRender extends Event {
+    @Label("Element")
+    String element;
+    @Label("Kind")
+    String kind;
+    @Label("Members")
+    @Description("Number of member sections of a type page, or entries of an index page")
+    int members;
+    @Label("Output Size")
+    @Description("Number of characters rendered")
+    long outputSize;
+  }
+  
+  /**
+   * An event covering the rendering of a comment.
+   */
+  @Name("com.github.dakusui.mddoclet.CommentRender")
+  @Label("Comment Render")
+  @Category("mddoclet")
+  @Description("Renders a doc comment of an element or one of its members into markdown")
+  static final class CommentRender extends Event {
+    @Label("Element")
+    @Description("An element whose page has the comment")
+    String element;
+    @Label("Kind")
+    String kind;
+    @Label("Output Size")
+    @Description("Number of characters rendered")
+    long outputSize;
+  }
+  
+  /**
+   * An event covering writing a rendered page to a file, on the page writer thread.
+   */
+  @Name("com.github.dakusui.mddoclet.PageWrite")
+  @Label("Page Write")
+  @Category("mddoclet")
+  @Description("Writes a page to a file")
+  static final class PageWrite extends Event {
+    @Label("Element")
+    String element;
+    @Label("Kind")
+    String kind;
+    @Label("Members")
+    @Description("Number of member sections of a type page, or entries of an index page")
+    int members;
+    @Label("Output Size")
+    @DataAmount
+    long outputSize;
+    @Label("Path")
+    String path;
+  }
+  
+  /**
+   * An `Appendable` that counts characters appended to another one, to fill the output size of {@link PageRender}.
+   */
+  static final class CountingAppendable implements Appendable {
+    private final Appendable out;
+    private long count = 0;
+    
+    CountingAppendable(Appendable out) {
+      this.out = out;
+    }
+    
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+      CharSequence s = String.valueOf(csq);
+      count += s.length();
+      out.append(s);
+      return this;
+    }
+    
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+      count += end - start;
+      out.append(csq, start, end);
+      return this;
+    }
+    
+    @Override
+    public Appendable append(char c) throws IOException {
+      count++;
+      out.append(c);
+      return this;
+    }
+    
+    long count() {
+      return count;
+    }
+  }
+}
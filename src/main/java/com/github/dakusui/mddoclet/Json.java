@@ -0,0 +1,30 @@
+package com.github.dakusui.mddoclet;
+
+/**
+ * A utility class to write files in JSON, such as a metrics report and a search index.
+ */
+enum Json {
+  ;
+  
+  /**
+   * Quotes a string as a JSON string.
+   * Since it is also a double-quoted scalar of YAML, it can be used in a YAML file as well.
+   *
+   * @param s A string to be quoted.
+   * @return A quoted string.
+   */
+  static String quote(String s) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (char c : s.toCharArray()) {
+      if (c == '"' || c == '\\')
+        sb.append('\\')
+          .append(c);
+      else if (c < 0x20)
+        sb.append(String.format("\\u%04x", (int) c));
+      else
+        sb.append(c);
+    }
+    return sb.append('"')
+             .toString();
+  }
+}
@@ -0,0 +1,505 @@
+package com.github.dakusui.mddoclet;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.util.DocTrees;
+import com.sun.source.util.TreePath;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.Elements;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.github.dakusui.mddoclet.MdDoclet.moduleNameOf;
+import static com.github.dakusui.mddoclet.MdDoclet.packageNameOf;
+import static com.github.dakusui.mddoclet.MdDoclet.typeNameOf;
+import static java.util.stream.Collectors.toSet;
+import static javax.lang.model.element.Modifier.PROTECTED;
+import static javax.lang.model.element.Modifier.PUBLIC;
+
+/**
+ * An index to resolve references in `@see` and `{@link}` tags to links to generated pages.
+ *
+ * Types are indexed by their fully qualified names and by their simple names (containing enclosing classes, such as
+ * `Outer.Inner`).
+ * Since a simple name can be shared by types in different packages, a simple name is resolved in the way the Java
+ * language does, that is, the type itself and its enclosing types, single-type imports, the same package, and then
+ * on-demand imports of the compilation unit in which the reference appears.
+ * Only if none of them matches, a type that has the simple name anywhere is picked.
+ *
+ * A qualified name that is not in this index is looked up in external indexes (see {@link LinkIndexFile}), which are
+ * written by runs of this doclet for other projects, so that pages can link to types documented in other sites.
+ *
+ * Links to types and their members (methods, constructors, and fields) are computed once when the index is built,
+ * so that resolving a reference is a hash lookup.
+ * A reference to a method with parameter types, such as `#put(Object, Object)`, links to the section of the overload,
+ * whose anchor is its {@link #parametersOf(ExecutableElement) signature}, while a reference without them links to the
+ * first overload declared.
+ * Constructors share one anchor, {@link #CONSTRUCTOR_ANCHOR}.
+ * A link to a member of a type whose page is split ({@link PageSplit}) points to the part in which the member is
+ * rendered.
+ * An index is built from {@link Type}s, which are read from the javadoc model or from a {@link DocModel}.
+ *
+ * Once built, this class is thread-safe.
+ */
+final class LinkIndex {
+  /**
+   * A link returned for a reference that cannot be resolved.
+   */
+  static final String UNKNOWN_TYPE = "unknownType.md";
+  /**
+   * An anchor of constructors in a type page, that is `id="&lt;&lt;init&gt;&gt;"`, encoded as a URL fragment.
+   */
+  static final String CONSTRUCTOR_ANCHOR = "%3C%3Cinit%3E%3E";
+  
+  private final String basePath;
+  private final String linkExtension;
+  private final List<LinkIndexFile> externalIndexes;
+  private final Map<String, Target> byQualifiedName = new HashMap<>();
+  private final Map<String, List<Target>> bySimpleName = new HashMap<>();
+  private final LongAdder unresolvedReferences = new LongAdder();
+  private final LongAdder ambiguousReferences = new LongAdder();
+  
+  /**
+   * Creates an empty index.
+   *
+   * @param basePath        A path from the site URL to the document root, which ends with `/`.
+   * @param linkExtension   An extension appended to links to pages, such as `.html`. Empty for markdown.
+   * @param externalIndexes Indexes of other projects, looked up in the given order.
+   */
+  LinkIndex(String basePath, String linkExtension, List<LinkIndexFile> externalIndexes) {
+    this.basePath = basePath;
+    this.linkExtension = linkExtension;
+    this.externalIndexes = List.copyOf(externalIndexes);
+  }
+  
+  /**
+   * Builds an index of given types.
+   *
+   * @param types           Types for which pages are generated.
+   * @param basePath        A path from the site URL to the document root, which ends with `/`.
+   * @param linkExtension   An extension appended to links to pages, such as `.html`. Empty for markdown.
+   * @param externalIndexes Indexes of other projects, looked up in the given order.
+   * @param pageSplits      Splits of type pages, keyed by fully qualified names of the types.
+   * @return A new index.
+   */
+  static LinkIndex build(Collection<Type> types, String basePath, String linkExtension, List<LinkIndexFile> externalIndexes, Map<String, PageSplit> pageSplits) {
+    LinkIndex ret = new LinkIndex(basePath, linkExtension, externalIndexes);
+    types.stream()
+         .sorted(Comparator.comparing(Type::qualifiedName))
+         .forEach(t -> ret.add(t, pageSplits.get(t.qualifiedName())));
+    return ret;
+  }
+  
+  /**
+   * Returns types in given elements, in the form this index is built from.
+   *
+   * @param elements Elements for which pages are generated. Elements other than types are ignored.
+   * @param utils    Element utilities.
+   * @return Types in `elements`.
+   */
+  static List<Type> typesOf(Collection<? extends Element> elements, Elements utils) {
+    return elements.stream()
+                   .filter(e -> e instanceof TypeElement)
+                   .map(e -> Type.of((TypeElement) e, utils))
+                   .toList();
+  }
+  
+  private void add(Type type, PageSplit pageSplit) {
+    Map<String, String> members = new HashMap<>();
+    for (Member each : type.members()) {
+      String memberPath = this.basePath + type.documentPath() + (pageSplit == null
+                                                                 ? ""
+                                                                 : pageSplit.suffixOf(each.kind(), each.name())
+                                                                            .orElse("")) + this.linkExtension;
+      // A name without parameter types is linked to the first member declared with it.
+      if (each.kind() == ElementKind.CONSTRUCTOR) {
+        members.putIfAbsent(type.constructorName(), memberPath + "#" + CONSTRUCTOR_ANCHOR);
+        members.put(type.constructorName() + each.parameters(), memberPath + "#" + CONSTRUCTOR_ANCHOR);
+      } else if (each.kind() == ElementKind.METHOD) {
+        String link = memberPath + "#" + fragmentOf(each.name() + each.parameters());
+        members.putIfAbsent(each.name(), link);
+        members.put(each.name() + each.parameters(), link);
+      } else if (each.kind() == ElementKind.FIELD)
+        members.putIfAbsent(each.name(), memberPath + "#" + each.name());
+    }
+    Target target = new Target(type.qualifiedName(), type.simpleName(), this.basePath + type.documentPath() + this.linkExtension, members);
+    byQualifiedName.put(type.qualifiedName(), target);
+    bySimpleName.computeIfAbsent(type.simpleName(), k -> new ArrayList<>())
+                .add(target);
+  }
+  
+  /**
+   * Returns a path to the document of a type from the document root, without an extension.
+   *
+   * @param typeElement A type.
+   * @param utils       Element utilities.
+   * @return A path to the document.
+   */
+  static String documentPathOf(TypeElement typeElement, Elements utils) {
+    return String.format("%s/%s/%s",
+                         moduleNameOf(typeElement, utils),
+                         packageNameOf(typeElement, utils),
+                         typeNameOf(typeElement));
+  }
+  
+  /**
+   * Returns the parameter types of an executable, by which a reference to one of overloads is resolved, such as
+   * `(Object,Object)` or `(String[])`.
+   * They are simple names of the erasures of the types, and the name of a method followed by them is the anchor of its
+   * section in a type page.
+   *
+   * @param executable A method or a constructor.
+   * @return Parameter types in parentheses.
+   */
+  static String parametersOf(ExecutableElement executable) {
+    StringJoiner ret = new StringJoiner(",", "(", ")");
+    for (VariableElement each : executable.getParameters())
+      ret.add(erasedSimpleNameOf(each.asType()));
+    return ret.toString();
+  }
+  
+  private static String erasedSimpleNameOf(TypeMirror type) {
+    return switch (type.getKind()) {
+      case DECLARED, ERROR -> ((DeclaredType) type).asElement()
+                                                   .getSimpleName()
+                                                   .toString();
+      case ARRAY -> erasedSimpleNameOf(((ArrayType) type).getComponentType()) + "[]";
+      case TYPEVAR -> erasedSimpleNameOf(((TypeVariable) type).getUpperBound());
+      case INTERSECTION -> erasedSimpleNameOf(((IntersectionType) type).getBounds()
+                                                                       .getFirst());
+      default -> type.getKind()
+                     .name()
+                     .toLowerCase();
+    };
+  }
+  
+  /**
+   * Normalizes parameter types written in a reference, such as `(java.lang.String... args)`, in the form
+   * {@link #parametersOf(ExecutableElement)} returns, such as `(String[])`.
+   *
+   * @param written Parameter types in parentheses, as written in a reference.
+   * @return Normalized parameter types.
+   */
+  static String parametersOf(String written) {
+    int end = written.lastIndexOf(')');
+    String inner = written.substring(written.indexOf('(') + 1, end < 0
+                                                               ? written.length()
+                                                               : end);
+    // Type arguments are erased from the innermost ones.
+    for (String erased; !(erased = inner.replaceAll("<[^<>]*>", "")).equals(inner); )
+      inner = erased;
+    inner = inner.replaceAll("\\s+(?=\\[|\\.\\.\\.)", "");
+    StringJoiner ret = new StringJoiner(",", "(", ")");
+    if (inner.isBlank())
+      return ret.toString();
+    for (String each : inner.split(",")) {
+      // A parameter name may follow the type.
+      String parameterType = each.trim()
+                                 .split("\\s+")[0];
+      String dimensions = "";
+      if (parameterType.endsWith("...")) {
+        parameterType = parameterType.substring(0, parameterType.length() - 3);
+        dimensions = "[]";
+      }
+      while (parameterType.endsWith("[]")) {
+        parameterType = parameterType.substring(0, parameterType.length() - 2);
+        dimensions += "[]";
+      }
+      ret.add(parameterType.substring(parameterType.lastIndexOf('.') + 1) + dimensions);
+    }
+    return ret.toString();
+  }
+  
+  /**
+   * Encodes an anchor in a page as a URL fragment.
+   *
+   * @param anchor An anchor, such as `put(Object,Object)`.
+   * @return An encoded anchor.
+   */
+  static String fragmentOf(String anchor) {
+    return URLEncoder.encode(anchor, StandardCharsets.UTF_8);
+  }
+  
+  /**
+   * Resolves a reference, such as `Type`, `pkg.Type#method(int)`, or `#field`, to a link.
+   *
+   * @param reference A reference in `@see` or `{@link}`.
+   * @param context   A context in which the reference appears.
+   * @return A link to the referenced type or member, or {@link #UNKNOWN_TYPE} if the reference cannot be resolved.
+   */
+  String resolve(String reference, Context context) {
+    int poundSignPosition = reference.indexOf('#');
+    String typePart = (poundSignPosition < 0
+                       ? reference
+                       : reference.substring(0, poundSignPosition)).trim();
+    MemberReference member = null;
+    if (poundSignPosition >= 0) {
+      String memberPart = reference.substring(poundSignPosition + 1);
+      int parenthesisPosition = memberPart.indexOf('(');
+      member = parenthesisPosition < 0
+               ? new MemberReference(memberPart.trim(), null)
+               : new MemberReference(memberPart.substring(0, parenthesisPosition)
+                                               .trim(), parametersOf(memberPart.substring(parenthesisPosition)));
+    }
+    String ret = typePart.isEmpty()
+                 ? linkTo(byQualifiedName.get(context.typeName()), member)
+                 : resolveType(typePart, member, context);
+    if (ret == null) {
+      unresolvedReferences.increment();
+      return UNKNOWN_TYPE;
+    }
+    return ret;
+  }
+  
+  private String resolveType(String name, MemberReference member, Context context) {
+    String ret;
+    if ((ret = resolveQualifiedName(name, member)) != null)
+      return ret;
+    for (String each : context.enclosingTypes()) {
+      if ((ret = resolveQualifiedName(each + "." + name, member)) != null)
+        return ret;
+    }
+    int dot = name.indexOf('.');
+    String firstSegment = dot < 0
+                          ? name
+                          : name.substring(0, dot);
+    String imported = context.singleTypeImports()
+                             .get(firstSegment);
+    if (imported != null && (ret = resolveQualifiedName(imported + name.substring(firstSegment.length()), member)) != null)
+      return ret;
+    if (!context.packageName()
+                .isEmpty() && (ret = resolveQualifiedName(context.packageName() + "." + name, member)) != null)
+      return ret;
+    for (String each : context.onDemandImports()) {
+      if ((ret = resolveQualifiedName(each + "." + name, member)) != null)
+        return ret;
+    }
+    List<Target> candidates = bySimpleName.getOrDefault(name, List.of());
+    if (candidates.size() > 1)
+      ambiguousReferences.increment();
+    return candidates.isEmpty()
+           ? null
+           : linkTo(candidates.getFirst(), member);
+  }
+  
+  /**
+   * Resolves a fully qualified type name in this index, and then in the external indexes.
+   *
+   * @param qualifiedName A fully qualified name of a type.
+   * @param member        A member in the type. `null` if the reference is to the type itself.
+   * @return A link, or `null` if none of the indexes has the type.
+   */
+  private String resolveQualifiedName(String qualifiedName, MemberReference member) {
+    Target target = byQualifiedName.get(qualifiedName);
+    if (target != null)
+      return linkTo(target, member);
+    for (LinkIndexFile each : externalIndexes) {
+      String ret;
+      if (member != null && member.parameters() != null && (ret = each.find(qualifiedName + "#" + member.name() + member.parameters())) != null)
+        return ret;
+      if (member != null && (ret = each.find(qualifiedName + "#" + member.name())) != null)
+        return ret;
+      if ((ret = each.find(qualifiedName)) != null)
+        return ret;
+    }
+    return null;
+  }
+  
+  private static String linkTo(Target target, MemberReference member) {
+    if (target == null)
+      return null;
+    if (member == null)
+      return target.link();
+    String ret;
+    if (member.parameters() != null && (ret = target.members()
+                                                    .get(member.name() + member.parameters())) != null)
+      return ret;
+    return target.members()
+                 .getOrDefault(member.name(), target.link());
+  }
+  
+  /**
+   * Returns the number of references that could not be resolved so far.
+   *
+   * @return The number of unresolved references.
+   */
+  long unresolvedReferences() {
+    return unresolvedReferences.sum();
+  }
+  
+  /**
+   * Returns the number of references resolved so far by picking one of the types that share the same simple name.
+   *
+   * @return The number of ambiguous references.
+   */
+  long ambiguousReferences() {
+    return ambiguousReferences.sum();
+  }
+  
+  /**
+   * Returns links to indexed types, keyed and sorted by their fully qualified names.
+   *
+   * @return Links to indexed types.
+   */
+  SortedMap<String, String> typeLinks() {
+    SortedMap<String, String> ret = new TreeMap<>();
+    byQualifiedName.forEach((k, v) -> ret.put(k, v.link()));
+    return ret;
+  }
+  
+  /**
+   * Returns links to indexed types and their members, keyed by fully qualified type names and `type#member`.
+   * These are the entries written to a {@link LinkIndexFile}.
+   *
+   * @return Links to indexed types and members.
+   */
+  Map<String, String> entries() {
+    Map<String, String> ret = new HashMap<>();
+    byQualifiedName.forEach((k, v) -> {
+      ret.put(k, v.link());
+      v.members()
+       .forEach((m, l) -> ret.put(k + "#" + m, l));
+    });
+    return ret;
+  }
+  
+  /**
+   * Returns simple names shared by more than one indexed type.
+   *
+   * @return Ambiguous simple names, sorted.
+   */
+  SortedSet<String> ambiguousSimpleNames() {
+    SortedSet<String> ret = new TreeSet<>();
+    bySimpleName.forEach((k, v) -> {
+      if (v.size() > 1)
+        ret.add(k);
+    });
+    return ret;
+  }
+  
+  /**
+   * An indexed type.
+   *
+   * @param qualifiedName A fully qualified name of the type.
+   * @param simpleName    A simple name of the type containing enclosing classes.
+   * @param link          A link to the page of the type.
+   * @param members       Links to members of the type, keyed by their simple names, and by the names followed by
+   *                      parameter types for methods and constructors.
+   *                      Constructors are keyed by the simple name of the type.
+   */
+  private record Target(String qualifiedName, String simpleName, String link, Map<String, String> members) {
+  }
+  
+  /**
+   * A reference to a member, parsed from the part after `#`.
+   *
+   * @param name       A simple name of the member.
+   * @param parameters Normalized parameter types, or `null` if the reference doesn't have them.
+   */
+  private record MemberReference(String name, String parameters) {
+  }
+  
+  /**
+   * A member of a type to be indexed.
+   *
+   * @param kind       A kind of the member.
+   * @param name       A simple name of the member, or `<init>` for a constructor.
+   * @param parameters Parameter types returned by {@link #parametersOf(ExecutableElement)}, or `null` for a field.
+   */
+  record Member(ElementKind kind, String name, String parameters) {
+  }
+  
+  /**
+   * A type to be indexed, read from the javadoc model.
+   *
+   * @param qualifiedName   A fully qualified name of the type.
+   * @param simpleName      A simple name of the type containing enclosing classes.
+   * @param constructorName A simple name of the type without enclosing classes, by which constructors are referred to.
+   * @param documentPath    A path to the document of the type from the document root, without an extension.
+   * @param members         Public and protected members of the type, which are documented in its page and can be referred
+   *                        to, in the order they are declared.
+   */
+  record Type(String qualifiedName, String simpleName, String constructorName, String documentPath, List<Member> members) {
+    static Type of(TypeElement typeElement, Elements utils) {
+      Set<String> recordComponents = typeElement.getRecordComponents()
+                                                .stream()
+                                                .map(c -> c.getSimpleName()
+                                                           .toString())
+                                                .collect(toSet());
+      List<Member> members = new ArrayList<>();
+      for (Element each : typeElement.getEnclosedElements()) {
+        // Accessors of record components don't have sections in a type page, nor do private and package-private members.
+        if (recordComponents.contains(each.getSimpleName()
+                                          .toString()))
+          continue;
+        if (!each.getModifiers()
+                 .contains(PUBLIC) && !each.getModifiers()
+                                           .contains(PROTECTED))
+          continue;
+        members.add(new Member(each.getKind(),
+                               each.getSimpleName()
+                                   .toString(),
+                               each instanceof ExecutableElement executable
+                               ? parametersOf(executable)
+                               : null));
+      }
+      return new Type(typeElement.getQualifiedName()
+                                 .toString(),
+                      typeNameOf(typeElement),
+                      typeElement.getSimpleName()
+                                 .toString(),
+                      documentPathOf(typeElement, utils),
+                      List.copyOf(members));
+    }
+  }
+  
+  /**
+   * A context, in which a reference appears.
+   *
+   * @param typeName          A fully qualified name of the type in which the reference appears. Empty if it doesn't
+   *                          appear in a type.
+   * @param enclosingTypes    Fully qualified names of the type and its enclosing types, from the innermost.
+   * @param packageName       A name of the package in which the reference appears. Empty if unnamed.
+   * @param singleTypeImports Fully qualified names of types imported by single-type imports, keyed by simple names.
+   * @param onDemandImports   Names of packages and types imported by on-demand imports.
+   */
+  record Context(String typeName, List<String> enclosingTypes, String packageName, Map<String, String> singleTypeImports, List<String> onDemandImports) {
+    static Context of(Element element, DocTrees docTrees, Elements utils) {
+      List<String> enclosingTypes = new ArrayList<>();
+      for (Element cur = element; cur instanceof TypeElement typeElement; cur = cur.getEnclosingElement())
+        enclosingTypes.add(typeElement.getQualifiedName()
+                                      .toString());
+      String typeName = enclosingTypes.isEmpty()
+                        ? ""
+                        : enclosingTypes.getFirst();
+      PackageElement packageElement = element instanceof PackageElement
+                                      ? (PackageElement) element
+                                      : utils.getPackageOf(element);
+      String packageName = packageElement == null || packageElement.isUnnamed()
+                           ? ""
+                           : packageElement.getQualifiedName()
+                                           .toString();
+      Map<String, String> singleTypeImports = new HashMap<>();
+      List<String> onDemandImports = new ArrayList<>();
+      TreePath treePath = docTrees.getPath(element);
+      if (treePath != null) {
+        CompilationUnitTree compilationUnit = treePath.getCompilationUnit();
+        for (ImportTree each : compilationUnit.getImports()) {
+          if (each.isStatic())
+            continue;
+          String imported = each.getQualifiedIdentifier()
+                                .toString();
+          if (imported.endsWith(".*"))
+            onDemandImports.add(imported.substring(0, imported.length() - 2));
+          else
+            singleTypeImports.put(imported.substring(imported.lastIndexOf('.') + 1), imported);
+        }
+      }
+      return new Context(typeName, List.copyOf(enclosingTypes), packageName, Map.copyOf(singleTypeImports), List.copyOf(onDemandImports));
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A link index persisted in a compact binary file, which lets a project link to pages generated by another project.
+ *
+ * The file consists of the following, all numbers in big-endian.
+ *
+ * ```
+ * magic          4 bytes    "MDLI"
+ * version        int        1
+ * entryCount     int
+ * offsets        int[entryCount]   positions of entries from the beginning of the file
+ * entries        entryCount times of:
+ *   keyLength    unsigned short
+ *   key          UTF-8 bytes       a fully qualified type name, or a type name and a member name joined by `#`
+ *   linkLength   unsigned short
+ *   link         UTF-8 bytes       a link to the page, including the base path of the project
+ * ```
+ *
+ * Entries are sorted by the UTF-8 bytes of their keys, so that a key can be looked up by a binary search.
+ * A file is memory-mapped when opened and entries are read on demand, so a large index doesn't cost heap nor parse
+ * time.
+ *
+ * An opened instance of this class is thread-safe.
+ */
+final class LinkIndexFile {
+  /**
+   * A name of the file written in a destination directory.
+   */
+  static final String FILE_NAME = "mddoclet-link-index.bin";
+  private static final byte[] MAGIC = "MDLI".getBytes(StandardCharsets.US_ASCII);
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES + Integer.BYTES;
+  
+  private final File file;
+  private final ByteBuffer buffer;
+  private final int entryCount;
+  
+  private LinkIndexFile(File file, ByteBuffer buffer, int entryCount) {
+    this.file = file;
+    this.buffer = buffer;
+    this.entryCount = entryCount;
+  }
+  
+  /**
+   * Opens a link index file by mapping it into memory.
+   *
+   * @param file A file to be opened.
+   * @return An opened link index.
+   * @throws IOException If the file cannot be read or is not a link index of a supported version.
+   */
+  static LinkIndexFile open(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      byte[] magic = new byte[MAGIC.length];
+      if (buffer.capacity() >= HEADER_SIZE)
+        buffer.get(0, magic);
+      if (!Arrays.equals(magic, MAGIC))
+        throw new IOException("Not a link index file: " + file);
+      if (buffer.getInt(MAGIC.length) != VERSION)
+        throw new IOException("Unsupported version of link index file: " + file + ": " + buffer.getInt(MAGIC.length));
+      int entryCount = buffer.getInt(MAGIC.length + Integer.BYTES);
+      if (entryCount < 0 || HEADER_SIZE + (long) entryCount * Integer.BYTES > buffer.capacity())
+        throw new IOException("Broken link index file: " + file);
+      return new LinkIndexFile(file, buffer, entryCount);
+    }
+  }
+  
+  /**
+   * Writes given entries to a link index file.
+   *
+   * @param entries Links keyed by fully qualified type names or `type#member`.
+   * @param file    A file to be written.
+   */
+  static void write(Map<String, String> entries, File file) {
+    try (OutputStream out = Files.newOutputStream(file.toPath())) {
+      write(entries, out);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  /**
+   * Writes given entries in the link index format to a stream.
+   *
+   * @param entries Links keyed by fully qualified type names or `type#member`.
+   * @param out     A stream to be written.
+   * @throws IOException Thrown by `out`.
+   */
+  static void write(Map<String, String> entries, OutputStream out) throws IOException {
+    // Keys are sorted by their UTF-8 bytes, not by String#compareTo, which compares UTF-16 chars.
+    byte[][][] sorted = entries.entrySet()
+                               .stream()
+                               .map(e -> new byte[][]{utf8(e.getKey()), utf8(e.getValue())})
+                               .filter(e -> e[0].length <= 0xFFFF && e[1].length <= 0xFFFF)
+                               .sorted((a, b) -> Arrays.compareUnsigned(a[0], b[0]))
+                               .toArray(byte[][][]::new);
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    data.write(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(sorted.length);
+    int offset = HEADER_SIZE + sorted.length * Integer.BYTES;
+    for (byte[][] each : sorted) {
+      data.writeInt(offset);
+      offset += Short.BYTES + each[0].length + Short.BYTES + each[1].length;
+    }
+    for (byte[][] each : sorted) {
+      data.writeShort(each[0].length);
+      data.write(each[0]);
+      data.writeShort(each[1].length);
+      data.write(each[1]);
+    }
+    data.flush();
+  }
+  
+  private static byte[] utf8(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+  
+  /**
+   * Looks up a link for a given key.
+   *
+   * @param key A fully qualified type name, or `type#member`.
+   * @return A link or `null` if this index doesn't have the key.
+   */
+  String find(String key) {
+    byte[] keyBytes = utf8(key);
+    int low = 0;
+    int high = entryCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int entry = buffer.getInt(HEADER_SIZE + mid * Integer.BYTES);
+      int c = compareKeyAt(entry, keyBytes);
+      if (c < 0)
+        low = mid + 1;
+      else if (c > 0)
+        high = mid - 1;
+      else
+        return linkAt(entry);
+    }
+    return null;
+  }
+  
+  private int compareKeyAt(int entry, byte[] keyBytes) {
+    int keyLength = Short.toUnsignedInt(buffer.getShort(entry));
+    int n = Math.min(keyLength, keyBytes.length);
+    for (int i = 0; i < n; i++) {
+      int c = Byte.compareUnsigned(buffer.get(entry + Short.BYTES + i), keyBytes[i]);
+      if (c != 0)
+        return c;
+    }
+    return Integer.compare(keyLength, keyBytes.length);
+  }
+  
+  private String linkAt(int entry) {
+    int keyLength = Short.toUnsignedInt(buffer.getShort(entry));
+    int linkPosition = entry + Short.BYTES + keyLength;
+    byte[] link = new byte[Short.toUnsignedInt(buffer.getShort(linkPosition))];
+    buffer.get(linkPosition + Short.BYTES, link);
+    return new String(link, StandardCharsets.UTF_8);
+  }
+  
+  /**
+   * Returns a hash of the content of this index, with which pages linking to it are checked if they are up-to-date.
+   *
+   * @return A hash string.
+   */
+  String contentHash() {
+    try {
+      return Manifest.hash(Files.newInputStream(file.toPath()));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  @Override
+  public String toString() {
+    return file + " (" + entryCount + " entries)";
+  }
+}
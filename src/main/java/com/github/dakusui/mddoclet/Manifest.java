@@ -0,0 +1,217 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A manifest of pages generated into a destination directory.
+ *
+ * For each page, the manifest records a hash of the inputs from which the page was rendered (source file,
+ * options, and so on) and a hash of the rendered output.
+ * On the next run, a page whose input hash is unchanged is not rendered again, and a page whose output hash is
+ * unchanged is not written again, so that its modification time is preserved.
+ * Pages recorded in the previous manifest but not generated by the current run are pruned.
+ *
+ * This class is thread-safe.
+ */
+final class Manifest {
+  /**
+   * A name of the manifest file created in a destination directory.
+   */
+  static final String FILE_NAME = ".mddoclet-manifest";
+  private static final String HEADER = "# mddoclet manifest v1";
+  
+  private final File baseDirectory;
+  private final Map<String, Record> previous;
+  private final Map<String, Record> current = new ConcurrentHashMap<>();
+  
+  private Manifest(File baseDirectory, Map<String, Record> previous) {
+    this.baseDirectory = baseDirectory;
+    this.previous = previous;
+  }
+  
+  /**
+   * Loads a manifest from a given destination directory.
+   * If the directory doesn't have a manifest or it is written in an unknown format, an empty one is returned.
+   *
+   * @param baseDirectory A destination directory.
+   * @return A manifest object.
+   */
+  static Manifest load(File baseDirectory) {
+    Map<String, Record> previous = new HashMap<>();
+    File manifestFile = new File(baseDirectory, FILE_NAME);
+    if (manifestFile.isFile()) {
+      try (var reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+        if (HEADER.equals(reader.readLine())) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            String[] columns = line.split("\t", 4);
+            if (columns.length == 4)
+              previous.put(columns[0], new Record(columns[1], columns[2], columns[3]));
+          }
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return new Manifest(baseDirectory, previous);
+  }
+  
+  /**
+   * Checks if a page was rendered from the same inputs in the previous run and still exists.
+   * If so, the page is carried over to the manifest being built.
+   *
+   * @param page A page to be checked.
+   * @return `true` if the page doesn't need to be rendered.
+   */
+  boolean carryOverIfUpToDate(Page page) {
+    Record record = previous.get(page.path());
+    if (record == null || !Objects.equals(record.inputHash(), page.inputHash()) || !exists(page.path()))
+      return false;
+    current.put(page.path(), record);
+    return true;
+  }
+  
+  /**
+   * Records a page rendered by the current run.
+   *
+   * @param page       A rendered page.
+   * @param outputHash A hash of the rendered content of the page, computed by {@link #hashing(OutputStream)}.
+   * @return `true` if the content needs to be written, `false` if the existing file already has it.
+   */
+  boolean update(Page page, String outputHash) {
+    current.put(page.path(), new Record(page.element(), page.inputHash(), outputHash));
+    Record record = previous.get(page.path());
+    return record == null || !Objects.equals(record.outputHash(), outputHash) || !exists(page.path());
+  }
+  
+  private boolean exists(String path) {
+    return new File(baseDirectory, path).isFile();
+  }
+  
+  /**
+   * Removes pages recorded in the previous run, but not in the current one.
+   * Directories that become empty are removed as well.
+   *
+   * @return Paths of the removed pages.
+   */
+  List<String> prune() {
+    List<String> ret = new ArrayList<>();
+    for (String path : new TreeSet<>(previous.keySet())) {
+      if (current.containsKey(path))
+        continue;
+      File file = new File(baseDirectory, path);
+      if (file.delete()) {
+        ret.add(path);
+        for (File dir = file.getParentFile(); !dir.equals(baseDirectory) && dir.delete(); dir = dir.getParentFile()) {
+          // Just walk up and remove directories while they are empty.
+        }
+      }
+    }
+    return ret;
+  }
+  
+  /**
+   * Writes the manifest built by the current run to the destination directory.
+   */
+  void store() {
+    try (var writer = Files.newBufferedWriter(new File(baseDirectory, FILE_NAME).toPath(), StandardCharsets.UTF_8)) {
+      writer.write(HEADER);
+      writer.write("\n");
+      for (Map.Entry<String, Record> each : new TreeMap<>(current).entrySet()) {
+        Record record = each.getValue();
+        writer.write(String.join("\t", each.getKey(), record.element(), record.inputHash(), record.outputHash()));
+        writer.write("\n");
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  /**
+   * Returns a hex encoded SHA-256 hash of given strings.
+   *
+   * @param values Strings to be hashed.
+   * @return A hash string.
+   */
+  static String hash(String... values) {
+    MessageDigest digest = sha256();
+    for (String each : values) {
+      digest.update(each.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+    }
+    return HexFormat.of()
+                    .formatHex(digest.digest());
+  }
+  
+  /**
+   * Returns a hex encoded SHA-256 hash of the content read from a given stream.
+   *
+   * @param inputStream A stream to be hashed.
+   * @return A hash string.
+   */
+  static String hash(InputStream inputStream) {
+    MessageDigest digest = sha256();
+    try (var in = inputStream) {
+      byte[] buffer = new byte[8192];
+      int n;
+      while ((n = in.read(buffer)) > 0)
+        digest.update(buffer, 0, n);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return HexFormat.of()
+                    .formatHex(digest.digest());
+  }
+  
+  /**
+   * Returns a stream that writes bytes to `out`, computing a hash of them, so that content is hashed while it is
+   * rendered.
+   * The hash is returned by {@link #hashOf(DigestOutputStream)} after the content is written.
+   *
+   * @param out A stream to which bytes are written.
+   * @return A stream that computes a hash.
+   */
+  static DigestOutputStream hashing(OutputStream out) {
+    return new DigestOutputStream(out, sha256());
+  }
+  
+  /**
+   * Returns a hex encoded SHA-256 hash of the bytes written to a stream returned by {@link #hashing(OutputStream)}.
+   *
+   * @param out A stream returned by {@link #hashing(OutputStream)}.
+   * @return A hash string.
+   */
+  static String hashOf(DigestOutputStream out) {
+    return HexFormat.of()
+                    .formatHex(out.getMessageDigest()
+                                  .digest());
+  }
+  
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  /**
+   * A page to be checked against a manifest.
+   *
+   * @param path      A path to the page from the destination directory, separated by `/`.
+   * @param element   A name of the element from which the page is rendered.
+   * @param inputHash A hash of the inputs of the page.
+   */
+  record Page(String path, String element, String inputHash) {
+  }
+  
+  private record Record(String element, String inputHash, String outputHash) {
+  }
+}
@@ -0,0 +1,509 @@
+package com.github.dakusui.mddoclet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Converts markdown, into which this doclet renders comments, into another markup.
+ *
+ * It understands the subset of markdown that comments and pages of this doclet use: paragraphs, ATX headings (`#`),
+ * fenced code blocks, bulleted and numbered lists, code spans, links, and strong and emphasized texts.
+ * A line that has only an HTML tag or an HTML comment is a block by itself.
+ * An inline HTML tag is handed to {@link #html(String, int, int, StringBuilder)} of each converter, and other text is
+ * passed through as it is.
+ * Since lines of a comment usually start with a space, the indentation of a paragraph is not significant.
+ *
+ * An instance of this class doesn't have a mutable state and can be shared among threads.
+ */
+abstract sealed class MarkdownConverter permits MarkdownConverter.Html, MarkdownConverter.AsciiDoc {
+  private static final String NEWLINE = String.format("%n");
+  
+  /**
+   * Converts markdown that consists of blocks, such as a comment body.
+   *
+   * @param markdown A markdown text.
+   * @return A converted text.
+   */
+  final String blocks(String markdown) {
+    StringBuilder sb = new StringBuilder();
+    List<Block> blocks = parse(markdown);
+    for (int i = 0; i < blocks.size(); i++)
+      i = render(blocks, i, sb);
+    return sb.toString();
+  }
+  
+  /**
+   * Converts markdown in a line, such as a title.
+   *
+   * @param markdown A markdown text.
+   * @return A converted text.
+   */
+  final String inline(String markdown) {
+    StringBuilder sb = new StringBuilder(markdown.length());
+    int i = 0;
+    while (i < markdown.length()) {
+      char c = markdown.charAt(i);
+      int next = switch (c) {
+        case '`' -> codeSpan(markdown, i, sb);
+        case '[' -> link(markdown, i, sb);
+        case '*', '_' -> emphasis(markdown, i, sb);
+        case '<' -> htmlTag(markdown, i, sb);
+        default -> -1;
+      };
+      if (next < 0) {
+        sb.append(c);
+        next = i + 1;
+      }
+      i = next;
+    }
+    return sb.toString();
+  }
+  
+  /**
+   * Renders a block, or consecutive blocks such as items of a list, from `index`.
+   *
+   * @return The index of the last block rendered.
+   */
+  abstract int render(List<Block> blocks, int index, StringBuilder out);
+  
+  abstract void code(String code, StringBuilder out);
+  
+  abstract void link(String label, String target, StringBuilder out);
+  
+  abstract void strong(String text, StringBuilder out);
+  
+  abstract void emphasis(String text, StringBuilder out);
+  
+  /**
+   * Converts an inline HTML tag at `s[begin, end)`, and possibly the text up to its closing tag.
+   *
+   * @return The index from which the conversion continues.
+   */
+  abstract int html(String s, int begin, int end, StringBuilder out);
+  
+  private int htmlTag(String s, int begin, StringBuilder out) {
+    int end = s.indexOf('>', begin + 1);
+    if (end < 0 || !isHtml(s.substring(begin, end + 1)))
+      return -1;
+    return html(s, begin, end + 1, out);
+  }
+  
+  private int codeSpan(String s, int begin, StringBuilder out) {
+    int ticks = 0;
+    while (begin + ticks < s.length() && s.charAt(begin + ticks) == '`')
+      ticks++;
+    String fence = "`".repeat(ticks);
+    int end = s.indexOf(fence, begin + ticks);
+    if (end < 0)
+      return -1;
+    code(s.substring(begin + ticks, end)
+          .strip(), out);
+    return end + ticks;
+  }
+  
+  private int link(String s, int begin, StringBuilder out) {
+    int depth = 0;
+    int close = -1;
+    for (int i = begin; i < s.length() && close < 0; i++) {
+      char c = s.charAt(i);
+      if (c == '`') {
+        int end = s.indexOf('`', i + 1);
+        if (end > 0)
+          i = end;
+      } else if (c == '[') {
+        depth++;
+      } else if (c == ']' && --depth == 0) {
+        close = i;
+      }
+    }
+    if (close < 0 || !s.startsWith("(", close + 1))
+      return -1;
+    int end = s.indexOf(')', close + 2);
+    if (end < 0)
+      return -1;
+    link(inline(s.substring(begin + 1, close)), s.substring(close + 2, end), out);
+    return end + 1;
+  }
+  
+  private int emphasis(String s, int begin, StringBuilder out) {
+    char c = s.charAt(begin);
+    boolean strong = s.startsWith(String.valueOf(c)
+                                        .repeat(2), begin);
+    String delimiter = String.valueOf(c)
+                             .repeat(strong
+                                     ? 2
+                                     : 1);
+    int from = begin + delimiter.length();
+    // `_` in an identifier, such as `MAX_VALUE`, and `*` followed by a space, such as `a * b`, are not delimiters.
+    if (from >= s.length() || Character.isWhitespace(s.charAt(from)) || c == '_' && begin > 0 && Character.isLetterOrDigit(s.charAt(begin - 1)))
+      return -1;
+    int end = s.indexOf(delimiter, from);
+    if (end <= from || Character.isWhitespace(s.charAt(end - 1)) || c == '_' && end + 1 < s.length() && Character.isLetterOrDigit(s.charAt(end + 1)))
+      return -1;
+    String inner = inline(s.substring(from, end));
+    if (strong)
+      strong(inner, out);
+    else
+      emphasis(inner, out);
+    return end + delimiter.length();
+  }
+  
+  private static List<Block> parse(String markdown) {
+    List<Block> ret = new ArrayList<>();
+    String[] lines = markdown.replace("\r\n", "\n")
+                             .split("\n", -1);
+    List<String> paragraph = new ArrayList<>();
+    Item item = null;
+    for (int i = 0; i < lines.length; i++) {
+      String line = lines[i];
+      String stripped = line.strip();
+      boolean blank = stripped.isEmpty();
+      if (stripped.startsWith("```") || blank || isHeading(stripped) || isHtml(stripped) || itemOf(line) != null) {
+        if (!paragraph.isEmpty())
+          ret.add(new Paragraph(String.join(NEWLINE, paragraph)));
+        paragraph.clear();
+      }
+      if (stripped.startsWith("```")) {
+        item = null;
+        List<String> code = new ArrayList<>();
+        int j = i + 1;
+        while (j < lines.length && !lines[j].strip()
+                                             .startsWith("```"))
+          code.add(lines[j++]);
+        ret.add(new Code(stripped.substring(3)
+                                 .strip(), code));
+        i = j;
+      } else if (blank) {
+        item = null;
+      } else if (isHeading(stripped)) {
+        item = null;
+        int level = 0;
+        while (level < stripped.length() && stripped.charAt(level) == '#')
+          level++;
+        ret.add(new Heading(level, stripped.substring(level)
+                                           .strip()));
+      } else if (isHtml(stripped)) {
+        item = null;
+        ret.add(new HtmlBlock(stripped));
+      } else if (itemOf(line) != null) {
+        item = itemOf(line);
+        ret.add(item);
+      } else if (item != null) {
+        // A continuation of the previous item.
+        item = new Item(item.ordered(), item.depth(), item.text() + " " + stripped);
+        ret.set(ret.size() - 1, item);
+      } else {
+        paragraph.add(line.stripLeading());
+      }
+    }
+    if (!paragraph.isEmpty())
+      ret.add(new Paragraph(String.join(NEWLINE, paragraph)));
+    return ret;
+  }
+  
+  private static boolean isHeading(String stripped) {
+    int level = 0;
+    while (level < stripped.length() && stripped.charAt(level) == '#')
+      level++;
+    return level >= 1 && level <= 6 && (level == stripped.length() || stripped.charAt(level) == ' ');
+  }
+  
+  private static boolean isHtml(String stripped) {
+    return stripped.startsWith("<") && stripped.endsWith(">") && stripped.length() > 2 && (Character.isLetter(stripped.charAt(1)) || stripped.charAt(1) == '/' || stripped.charAt(1) == '!');
+  }
+  
+  private static Item itemOf(String line) {
+    int indent = 0;
+    while (indent < line.length() && line.charAt(indent) == ' ')
+      indent++;
+    String rest = line.substring(indent);
+    if (rest.length() > 1 && "-*+".indexOf(rest.charAt(0)) >= 0 && rest.charAt(1) == ' ')
+      return new Item(false, indent / 2, rest.substring(2)
+                                             .strip());
+    int digits = 0;
+    while (digits < rest.length() && Character.isDigit(rest.charAt(digits)))
+      digits++;
+    if (digits > 0 && rest.startsWith(". ", digits))
+      return new Item(true, indent / 2, rest.substring(digits + 2)
+                                            .strip());
+    return null;
+  }
+  
+  private sealed interface Block permits Paragraph, Heading, Code, Item, HtmlBlock {
+  }
+  
+  private record Paragraph(String text) implements Block {
+  }
+  
+  private record Heading(int level, String text) implements Block {
+  }
+  
+  private record Code(String language, List<String> lines) implements Block {
+  }
+  
+  private record Item(boolean ordered, int depth, String text) implements Block {
+  }
+  
+  private record HtmlBlock(String line) implements Block {
+  }
+  
+  /**
+   * A converter into HTML.
+   * Since markdown allows inline HTML, characters other than those in code are not escaped.
+   */
+  static final class Html extends MarkdownConverter {
+    @Override
+    int render(List<Block> blocks, int index, StringBuilder out) {
+      switch (blocks.get(index)) {
+        case Paragraph p -> out.append("<p>")
+                               .append(inline(p.text()))
+                               .append("</p>")
+                               .append(NEWLINE);
+        case Heading h -> out.append("<h")
+                             .append(h.level())
+                             .append(">")
+                             .append(inline(h.text()))
+                             .append("</h")
+                             .append(h.level())
+                             .append(">")
+                             .append(NEWLINE);
+        case Code c -> {
+          out.append(c.language()
+                      .isEmpty()
+                     ? "<pre><code>"
+                     : "<pre><code class=\"language-" + escape(c.language()) + "\">");
+          c.lines()
+           .forEach(l -> out.append(escape(l))
+                            .append(NEWLINE));
+          out.append("</code></pre>")
+             .append(NEWLINE);
+        }
+        case Item ignored -> {
+          return renderList(blocks, index, out);
+        }
+        case HtmlBlock h -> out.append(h.line())
+                               .append(NEWLINE);
+      }
+      return index;
+    }
+    
+    private int renderList(List<Block> blocks, int index, StringBuilder out) {
+      Deque<Item> open = new ArrayDeque<>();
+      int i = index;
+      for (; i < blocks.size() && blocks.get(i) instanceof Item item; i++) {
+        while (!open.isEmpty() && open.peek()
+                                      .depth() > item.depth())
+          close(open.pop(), out);
+        if (!open.isEmpty() && open.peek()
+                                   .depth() == item.depth()) {
+          if (open.peek()
+                  .ordered() != item.ordered())
+            close(open.pop(), out);
+          else
+            out.append("</li>")
+               .append(NEWLINE);
+        }
+        if (open.isEmpty() || open.peek()
+                                  .depth() < item.depth()) {
+          out.append(item.ordered()
+                     ? "<ol>"
+                     : "<ul>")
+             .append(NEWLINE);
+          open.push(item);
+        }
+        out.append("<li>")
+           .append(inline(item.text()));
+      }
+      while (!open.isEmpty())
+        close(open.pop(), out);
+      return i - 1;
+    }
+    
+    private static void close(Item item, StringBuilder out) {
+      out.append("</li>")
+         .append(NEWLINE)
+         .append(item.ordered()
+                 ? "</ol>"
+                 : "</ul>")
+         .append(NEWLINE);
+    }
+    
+    @Override
+    void code(String code, StringBuilder out) {
+      out.append("<code>")
+         .append(escape(code))
+         .append("</code>");
+    }
+    
+    @Override
+    void link(String label, String target, StringBuilder out) {
+      out.append("<a href=\"")
+         .append(target.replace("\"", "%22"))
+         .append("\">")
+         .append(label)
+         .append("</a>");
+    }
+    
+    @Override
+    void strong(String text, StringBuilder out) {
+      out.append("<strong>")
+         .append(text)
+         .append("</strong>");
+    }
+    
+    @Override
+    void emphasis(String text, StringBuilder out) {
+      out.append("<em>")
+         .append(text)
+         .append("</em>");
+    }
+    
+    @Override
+    int html(String s, int begin, int end, StringBuilder out) {
+      out.append(s, begin, end);
+      return end;
+    }
+    
+    /**
+     * Escapes characters that would be taken as tags.
+     * `&` is not escaped, since names rendered by this doclet, such as `&lt;&lt;init&gt;&gt;`, already use entities.
+     *
+     * @param text A text.
+     * @return An escaped text.
+     */
+    static String escape(String text) {
+      return text.replace("<", "&lt;")
+                 .replace(">", "&gt;");
+    }
+  }
+  
+  /**
+   * A converter into AsciiDoc.
+   * An HTML tag on a line by itself is kept in a passthrough block, and an HTML comment becomes a comment line.
+   * Inline `<b>`, `<strong>`, `<i>`, `<em>`, `<code>`, and `<tt>` with their closing tags are converted into AsciiDoc
+   * markup, and other inline tags are kept in inline passthroughs, since asciidoctor would escape them.
+   */
+  static final class AsciiDoc extends MarkdownConverter {
+    @Override
+    int render(List<Block> blocks, int index, StringBuilder out) {
+      Block block = blocks.get(index);
+      // AsciiDoc needs a blank line between blocks, while consecutive items make a list.
+      // A line comment ends a list, so that a following list of another kind is not nested in it.
+      Block previous = index > 0
+                       ? blocks.get(index - 1)
+                       : null;
+      if (previous != null && !(block instanceof Item && previous instanceof Item))
+        out.append(NEWLINE);
+      else if (block instanceof Item item && previous instanceof Item p && item.depth() == 0 && item.ordered() != p.ordered())
+        out.append(NEWLINE)
+           .append("//")
+           .append(NEWLINE)
+           .append(NEWLINE);
+      switch (block) {
+        case Paragraph p -> out.append(inline(p.text()))
+                               .append(NEWLINE);
+        case Heading h -> out.append("=".repeat(h.level() + 1))
+                             .append(" ")
+                             .append(inline(h.text()))
+                             .append(NEWLINE);
+        case Code c -> {
+          out.append(c.language()
+                      .isEmpty()
+                     ? "[source]"
+                     : "[source," + c.language() + "]")
+             .append(NEWLINE)
+             .append("----")
+             .append(NEWLINE);
+          c.lines()
+           .forEach(l -> out.append(l)
+                            .append(NEWLINE));
+          out.append("----")
+             .append(NEWLINE);
+        }
+        case Item item -> out.append((item.ordered()
+                                      ? "."
+                                      : "*").repeat(item.depth() + 1))
+                             .append(" ")
+                             .append(inline(item.text()))
+                             .append(NEWLINE);
+        case HtmlBlock h -> {
+          if (h.line()
+               .startsWith("<!--"))
+            out.append("// ")
+               .append(h.line())
+               .append(NEWLINE);
+          else
+            out.append("++++")
+               .append(NEWLINE)
+               .append(h.line())
+               .append(NEWLINE)
+               .append("++++")
+               .append(NEWLINE);
+        }
+      }
+      return index;
+    }
+    
+    @Override
+    void code(String code, StringBuilder out) {
+      // A literal monospace, in which nothing is substituted.
+      out.append("`+")
+         .append(code)
+         .append("+`");
+    }
+    
+    @Override
+    void link(String label, String target, StringBuilder out) {
+      out.append("link:")
+         .append(target.replace(" ", "%20")
+                       .replace("[", "%5B"))
+         .append("[")
+         .append(label.replace("]", "\\]"))
+         .append("]");
+    }
+    
+    @Override
+    void strong(String text, StringBuilder out) {
+      out.append("*")
+         .append(text)
+         .append("*");
+    }
+    
+    @Override
+    void emphasis(String text, StringBuilder out) {
+      out.append("_")
+         .append(text)
+         .append("_");
+    }
+    
+    @Override
+    int html(String s, int begin, int end, StringBuilder out) {
+      String tag = s.substring(begin, end);
+      String name = tag.substring(1, tag.length() - 1)
+                       .strip()
+                       .toLowerCase(Locale.ROOT);
+      String closingTag = "</" + name + ">";
+      int close = s.toLowerCase(Locale.ROOT)
+                   .indexOf(closingTag, end);
+      if (close < 0 || !List.of("b", "strong", "i", "em", "code", "tt")
+                            .contains(name)) {
+        out.append("+++")
+           .append(tag)
+           .append("+++");
+        return end;
+      }
+      String inner = s.substring(end, close);
+      switch (name) {
+        case "b", "strong" -> strong(inline(inner), out);
+        case "i", "em" -> emphasis(inline(inner), out);
+        default -> code(inner.replace("&lt;", "<")
+                             .replace("&gt;", ">")
+                             .replace("&amp;", "&"), out);
+      }
+      return close + closingTag.length();
+    }
+  }
+}
@@ -1,58 +1,174 @@
 package com.github.dakusui.mddoclet;
 
 import com.sun.source.doctree.DocCommentTree;
-import com.sun.source.doctree.DocTree;
 import com.sun.source.util.DocTrees;
 import jdk.javadoc.doclet.DocletEnvironment;
 
-import javax.annotation.processing.Generated;
 import javax.lang.model.element.*;
-import java.io.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static com.github.dakusui.mddoclet.MdDoclet.packageNameOf;
 import static com.github.dakusui.mddoclet.MdDoclet.typeNameOf;
-import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.toSet;
 
 public class MarkdownPage {
-  public static final String LINEBREAK_PLACEHOLDER = "__MDDOCLET_LINEBREAK__";
   private final PageStyle pageStyle;
   private final Element targetElement;
+  private final String elementName;
+  private final String elementKind;
+  private final String displayName;
+  private final String ownerName;
+  private final String simpleName;
   private String overview = null;
   
   
   enum PageStyle {
-    TYPE {
+    TYPE(schema(Map.of("members",
+                       schema(Map.of(), "anchor", "kind", "name", "returnType", "parameters", "executable", "comment", "body", "tags")))) {
       @Override
-      String render(MarkdownPage p) {
-        return p.renderAsTypePage();
+      void render(MarkdownPage p, Appendable out) throws IOException {
+        p.renderAsTypePage(out);
       }
     },
-    INDEX {
+    INDEX(schema(Map.of("entries", schema(Map.of(), "kind", "name", "target")))) {
       @Override
-      String render(MarkdownPage p) {
-        return p.renderAsIndexPage();
+      void render(MarkdownPage p, Appendable out) throws IOException {
+        p.renderAsIndexPage(out);
       }
     };
     
-    abstract String render(MarkdownPage p);
+    private final Template.Schema schema;
+    
+    PageStyle(Template.Schema schema) {
+      this.schema = schema;
+    }
+    
+    abstract void render(MarkdownPage p, Appendable out) throws IOException;
+    
+    String render(MarkdownPage p) {
+      StringBuilder sb = new StringBuilder();
+      try {
+        render(p, sb);
+      } catch (IOException e) {
+        // StringBuilder doesn't throw an IOException.
+        throw new RuntimeException(e);
+      }
+      return sb.toString();
+    }
+    
+    /**
+     * Returns names available in a template of pages of this style.
+     *
+     * @return Names available in a template.
+     */
+    Template.Schema schema() {
+      return this.schema;
+    }
+    
+    /**
+     * Returns a schema of a page, which has the names common to all styles in addition to given ones.
+     */
+    private static Template.Schema schema(Map<String, Template.Schema> lists) {
+      Map<String, Template.Schema> allLists = new HashMap<>(lists);
+      allLists.put("parts", schema(Map.of(), "label", "target"));
+      return new Template.Schema(Set.of("title", "elementName", "elementKind", "overview", "comment", "body", "tags"), Map.copyOf(allLists));
+    }
+    
+    private static Template.Schema schema(Map<String, Template.Schema> lists, String... values) {
+      return new Template.Schema(Set.of(values), lists);
+    }
   }
   
   private final DocletEnvironment docletEnvironment;
   private String body;
-  
-  private List<? extends DocTree> tags = new ArrayList<>();
+  private Comment comment = null;
   private final List<Element> children = new ArrayList<>();
   private String title;
-  private final Function<String, String> docResolver;
+  private final CommentRenderer commentRenderer;
+  private List<Member> members = null;
+  private List<Entry> entries = null;
+  private List<Part> parts = null;
+  private PageSplit pageSplit = null;
+  private int maxEntries = 0;
+  private TypeNamePrinter typeNamePrinter = new TypeNamePrinter();
+  private OutputFormat format = OutputFormat.MD;
+  private PageTemplates templates = PageTemplates.defaults();
+  private Consumer<String> debug = message -> {
+  };
   
   MarkdownPage(Element targetElement, DocletEnvironment docletEnvironment, Function<String, String> docResolver) {
     this.pageStyle = pageStyleFor(targetElement);
     this.targetElement = targetElement;
+    this.elementName = qualifiedNameOf(targetElement);
+    this.elementKind = targetElement.getKind()
+                                    .toString();
+    this.displayName = targetElement instanceof TypeElement typeElement
+                       ? typeNameOf(typeElement)
+                       : this.elementName;
+    this.ownerName = targetElement.getEnclosingElement() instanceof QualifiedNameable qualifiedNameable
+                     ? qualifiedNameable.getQualifiedName()
+                                        .toString()
+                     : "";
+    this.simpleName = targetElement.getSimpleName()
+                                   .toString();
     this.docletEnvironment = docletEnvironment;
-    this.docResolver = docResolver;
+    this.commentRenderer = new CommentRenderer(docResolver);
+  }
+  
+  /**
+   * Creates a page from a model returned by {@link #model()}, which may be read from a {@link DocModel}.
+   * Since the model is a snapshot, the page doesn't touch the javadoc model.
+   *
+   * @param model       A model of the page.
+   * @param docResolver A function that resolves a reference in a comment to a link.
+   */
+  MarkdownPage(Model model, Function<String, String> docResolver) {
+    this.pageStyle = model.pageStyle();
+    this.targetElement = null;
+    this.elementName = model.elementName();
+    this.elementKind = model.elementKind();
+    this.displayName = model.displayName();
+    this.ownerName = model.ownerName();
+    this.simpleName = model.simpleName();
+    this.docletEnvironment = null;
+    this.commentRenderer = new CommentRenderer(docResolver);
+    this.title = model.title();
+    this.overview = model.overview();
+    this.members = model.members();
+    this.entries = model.entries();
+    if (model.comment() != null)
+      comment(model.comment());
+  }
+  
+  /**
+   * Creates a page of a part of a given page.
+   */
+  private MarkdownPage(MarkdownPage page, String label, List<Member> members, List<Entry> entries) {
+    this.pageStyle = page.pageStyle;
+    this.targetElement = page.targetElement;
+    this.elementName = page.elementName;
+    this.elementKind = page.elementKind;
+    this.displayName = page.displayName;
+    this.ownerName = page.ownerName;
+    this.simpleName = page.simpleName;
+    this.docletEnvironment = page.docletEnvironment;
+    this.commentRenderer = page.commentRenderer;
+    this.typeNamePrinter = page.typeNamePrinter;
+    this.format = page.format;
+    this.templates = page.templates;
+    this.title = page.title + ": " + label;
+    this.body = String.format("A part of [`%s`](%s).", page.displayName, page.format.targetOf(page.fileName()));
+    this.members = members;
+    this.entries = entries;
+    this.parts = List.of();
   }
   
   public MarkdownPage title(ElementKind kind, String name) {
@@ -66,8 +182,12 @@ public class MarkdownPage {
   }
   
   public MarkdownPage commentTree(DocCommentTree docCommentTree) {
-    this.body = extractCommentBody(docCommentTree);
-    this.tags = docCommentTree.getBlockTags();
+    return comment(new Comment.OfTree(docCommentTree));
+  }
+  
+  private MarkdownPage comment(Comment comment) {
+    this.comment = comment;
+    this.body = extractCommentBody(comment);
     return this;
   }
   
@@ -77,172 +197,429 @@ public class MarkdownPage {
     return this;
   }
   
-  private static Tag createTag(DocTree blockTagDocTree) {
-    return Tag.create(tagNameOf(blockTagDocTree), tagValueOf(blockTagDocTree));
+  /**
+   * Sets a printer of type names, so that pages share its cache.
+   * If this method is not called, the page uses its own printer.
+   *
+   * @param typeNamePrinter A printer of type names.
+   * @return This object
+   */
+  public MarkdownPage typeNamePrinter(TypeNamePrinter typeNamePrinter) {
+    this.typeNamePrinter = typeNamePrinter;
+    return this;
+  }
+  
+  /**
+   * Sets a format in which this page is rendered, and the default templates of the format.
+   * If this method is not called, the page is rendered in markdown.
+   * Since the templates are reset, call {@link #templates(PageTemplates)} after this method to override them.
+   *
+   * @param format A format of this page.
+   * @return This object
+   */
+  public MarkdownPage format(OutputFormat format) {
+    this.format = format;
+    this.templates = PageTemplates.defaults(format);
+    return this;
   }
   
-  private static String tagNameOf(DocTree blockTagDocTree) {
-    String s = blockTagDocTree.toString();
-    int i = s.indexOf(" ");
-    return i >= 0
-           ? s.substring(0, i)
-           : "@unknown";
+  /**
+   * Returns the format in which this page is rendered.
+   *
+   * @return The format of this page.
+   */
+  OutputFormat format() {
+    return this.format;
   }
   
-  private static String tagValueOf(DocTree blockTagDocTree) {
-    String s = blockTagDocTree.toString();
-    int i = s.indexOf(" ");
-    return i >= 0
-           ? s.substring(i)
-           : "(t.b.d.)";
+  /**
+   * Sets templates with which this page is rendered.
+   * If this method is not called, the default templates of the format are used.
+   *
+   * @param templates Compiled templates.
+   * @return This object
+   */
+  public MarkdownPage templates(PageTemplates templates) {
+    this.templates = templates;
+    return this;
   }
   
   /**
-   * Render this object as a markdown page for a type documentation.
+   * Sets a split of this page into parts, computed by {@link PageSplit#ofMembers(List, int)}.
+   * Only a type page can be split in this way.
    *
-   * @return A rendered content of the page that this object represents
+   * @param pageSplit A split of this page.
+   * @return This object
    */
-  public String renderAsTypePage() {
-    StringBuilder sb = new StringBuilder().append(renderCommonPart());
-    DocTrees docTrees = docletEnvironment.getDocTrees();
-    this.children.stream()
-                 .sorted(comparingByKindThenSimpleName())
-                 .filter(e -> Set.of(ElementKind.METHOD, ElementKind.CONSTRUCTOR, ElementKind.FIELD)
-                                 .contains(e.getKind()))
-                 .filter(e -> !(e instanceof ExecutableElement &&
-                     e.getEnclosingElement()
-                      .getKind() == ElementKind.ENUM &&
-                     Set.of("values",
-                            "valueOf")
-                        .contains(e.getSimpleName()
-                                   .toString())))
-                 .filter(e -> e.getAnnotation(Generated.class) == null)
-                 .filter(e -> !isRecordComponentOrAutogeneratedRecordMethods(e))
-                 .filter(e -> !(isNoParameterConstructor(e) && docTrees.getDocCommentTree(e) == null))
-                 .filter((Element element) -> {
-                   if (element instanceof ExecutableElement executableElement) {
-                     sb.append(renderAnchorForExecutableElement(executableElement));
-                     sb.append(renderSectionTitleForExecutableElement(executableElement));
-                   } else if (element instanceof VariableElement variableElement) {
-                     sb.append(renderAnchorForVariableElement(variableElement));
-                     sb.append(renderSectionTitleForVariableElement(element, variableElement));
-                   }
-                   return true;
-                 })
-                 .map(docTrees::getDocCommentTree)
-                 .peek(tree -> {
-                   if (tree == null) {
-                     sb.append(String.format("%nt.b.d.%n%n"));
-                   }
-                 })
-                 .filter(Objects::nonNull)
-                 .forEach((DocCommentTree t) -> {
-                   sb.append(String.format("%n"));
-                   sb.append(extractCommentBody(t));
-                   sb.append(String.format("%n"));
-                   sb.append(String.format("%n"));
-                   
-                   t.getBlockTags()
-                    .forEach((DocTree blockTagDocTree) -> renderTag(sb, createTag(blockTagDocTree), this.docResolver));
-                   sb.append(String.format("%n"));
-                 });
-    return sb.toString();
-  }
-  
-  private boolean isRecordComponentOrAutogeneratedRecordMethods(Element e) {
-    if (e instanceof ExecutableElement executableElement) {
-      if (executableElement.getEnclosingElement()
-                           .getKind() != ElementKind.RECORD)
-        return false;
-      Set<String> recordComponentNames = ((TypeElement) executableElement.getEnclosingElement())
-          .getRecordComponents()
-          .stream()
-          .map(c -> c.getSimpleName()
-                     .toString())
-          .collect(toSet());
-      String elementName = executableElement.getSimpleName()
-                                            .toString();
-      return (executableElement.getParameters()
-                               .isEmpty() && (recordComponentNames.contains(elementName))
-          || executableElement.getKind() == ElementKind.CONSTRUCTOR
-          // This is a limitation. Even if hashCode, equals, and toString are overloaded methods(, not overriding),
-          // they will be ignored in the documentation if they are in a `record`.
-          || Set.of("hashCode",
-                    "equals",
-                    "toString")
-                .contains(elementName));
+  public MarkdownPage pageSplit(PageSplit pageSplit) {
+    this.pageSplit = pageSplit;
+    return this;
+  }
+  
+  /**
+   * Sets a function that reports a debug message, such as an element that is not listed in an index page.
+   * The function decides whether the message is reported under the current verbosity.
+   * If this method is not called, such messages are discarded.
+   *
+   * @param debug A function that reports a debug message.
+   * @return This object
+   */
+  public MarkdownPage debug(Consumer<String> debug) {
+    this.debug = debug;
+    return this;
+  }
+  
+  /**
+   * Sets the maximum number of entries in an index page.
+   * An index page with more entries is split into buckets of initial letters of the entries.
+   *
+   * @param maxEntries The maximum number of entries. `0` not to split the page.
+   * @return This object
+   */
+  public MarkdownPage maxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+    return this;
+  }
+  
+  /**
+   * Takes a snapshot of the information this page needs from the javadoc model.
+   *
+   * `DocTrees` and `Elements` are not thread-safe, and neither are comment trees, which javac may complete lazily.
+   * Comments are therefore rendered here in advance ({@link Comment#deferred()}), leaving only their references to be
+   * resolved.
+   * Once this method is called, rendering methods of this object only touch the snapshot and
+   * the page can be rendered on any thread.
+   * The rendering methods call this method by themselves if it has not been called yet.
+   *
+   * @return This object
+   */
+  public MarkdownPage snapshot() {
+    if (this.comment != null)
+      this.comment = this.comment.deferred();
+    if (this.members == null)
+      this.members = this.pageStyle == PageStyle.TYPE
+                     ? snapshotMembers()
+                     : List.of();
+    if (this.entries == null)
+      this.entries = this.pageStyle == PageStyle.INDEX
+                     ? snapshotEntries()
+                     : List.of();
+    if (this.parts == null)
+      this.parts = split();
+    return this;
+  }
+  
+  /**
+   * Returns parts into which this page is split.
+   * Each of them is written to a file whose name is {@link PageSplit#fileNameOf(String, String)} of the page and its
+   * suffix, while this page becomes a summary, which links to them.
+   *
+   * @return Parts of this page. Empty if this page is not split.
+   */
+  public List<Part> parts() {
+    return snapshot().parts;
+  }
+  
+  /**
+   * Returns links to which references in comments of this page and its members are resolved, keyed by the references.
+   * Besides its own sources, a page depends on other pages only through these links, so `-incremental` hashes them
+   * instead of the whole link index.
+   *
+   * @return Links of references in this page.
+   */
+  SortedMap<String, String> links() {
+    snapshot();
+    SortedMap<String, String> ret = new TreeMap<>();
+    addLinksOf(this.comment, ret);
+    for (Member each : this.members)
+      addLinksOf(each.comment(), ret);
+    return ret;
+  }
+  
+  private void addLinksOf(Comment comment, SortedMap<String, String> out) {
+    // A snapshot holds comments rendered in advance.
+    if (comment instanceof Comment.Rendered rendered)
+      for (String text : List.of(rendered.body(), rendered.tags(), rendered.firstSentence()))
+        for (String each : CommentRenderer.deferredReferencesIn(text))
+          out.computeIfAbsent(each, this.commentRenderer::resolve);
+  }
+  
+  /**
+   * Returns entries of a search index for the element of this page and the members documented in it.
+   * Members moved into parts are linked to the parts.
+   * An element without a name, such as the unnamed module, doesn't have an entry.
+   *
+   * @param basePath   A path from the site URL to the document root, which ends with `/`.
+   * @param outputPath A path of this page, relative to the destination.
+   * @return Entries of a search index.
+   */
+  List<SearchIndex.Entry> searchEntries(String basePath, String outputPath) {
+    snapshot();
+    String link = this.format.linkOf(basePath, outputPath);
+    List<SearchIndex.Entry> ret = new ArrayList<>();
+    if (this.displayName != null && !this.displayName.isEmpty())
+      ret.add(new SearchIndex.Entry(this.displayName,
+                                    this.elementKind,
+                                    this.ownerName,
+                                    link,
+                                    summaryOf(this.comment)));
+    addSearchEntriesOfMembers(membersInThisPage(), link, ret);
+    for (Part each : this.parts)
+      addSearchEntriesOfMembers(each.page().members, this.format.linkOf(basePath, PageSplit.fileNameOf(outputPath, each.suffix())), ret);
+    return ret;
+  }
+  
+  private void addSearchEntriesOfMembers(List<Member> members, String link, List<SearchIndex.Entry> out) {
+    for (Member each : members)
+      out.add(new SearchIndex.Entry(each.kind() == ElementKind.CONSTRUCTOR
+                                    ? this.simpleName
+                                    : each.name(),
+                                    each.kind()
+                                        .toString(),
+                                    this.elementName,
+                                    link + "#" + (each.kind() == ElementKind.CONSTRUCTOR
+                                                  ? LinkIndex.CONSTRUCTOR_ANCHOR
+                                                  : each.executable()
+                                                    ? LinkIndex.fragmentOf(each.anchor())
+                                                    : each.anchor()),
+                                    summaryOf(each.comment())));
+  }
+  
+  private String summaryOf(Comment comment) {
+    if (comment == null)
+      return "";
+    return SearchIndex.summaryOf(comment.firstSentence(this.commentRenderer));
+  }
+  
+  /**
+   * Divides members or entries of this page into parts, if the page needs to be split.
+   * Then, they are rendered in the parts instead of this page.
+   */
+  private List<Part> split() {
+    Optional<PageSplit> split = this.pageStyle == PageStyle.TYPE
+                                ? Optional.ofNullable(this.pageSplit)
+                                : this.maxEntries > 0
+                                  ? PageSplit.ofEntries(this.entries.stream()
+                                                                    .map(Entry::name)
+                                                                    .toList(), this.maxEntries)
+                                  : Optional.empty();
+    if (split.isEmpty())
+      return List.of();
+    List<Part> ret = new ArrayList<>();
+    for (PageSplit.Part each : split.get()
+                                    .parts()) {
+      List<Member> partMembers = this.pageStyle == PageStyle.TYPE
+                                 ? each.indices()
+                                       .stream()
+                                       .map(this.members::get)
+                                       .toList()
+                                 : List.of();
+      List<Entry> partEntries = this.pageStyle == PageStyle.INDEX
+                                ? each.indices()
+                                      .stream()
+                                      .map(this.entries::get)
+                                      .toList()
+                                : List.of();
+      ret.add(new Part(each.suffix(),
+                       each.label(),
+                       PageSplit.fileNameOf(fileName(), each.suffix()),
+                       new MarkdownPage(this, each.label(), partMembers, partEntries)));
     }
-    return false;
+    return List.copyOf(ret);
   }
   
-  private static boolean isNoParameterConstructor(Element e) {
-    return (e instanceof ExecutableElement elem) && e.getKind() == ElementKind.CONSTRUCTOR && elem.getParameters()
-                                                                                                  .isEmpty();
+  /**
+   * Returns members rendered in this page, that is, none if this page is split into parts.
+   */
+  private List<Member> membersInThisPage() {
+    return this.parts.isEmpty()
+           ? this.members
+           : List.of();
   }
   
-  private static Comparator<Element> comparingByKindThenSimpleName() {
-    return Comparator.comparing(Element::getKind)
-                     .thenComparing(o -> o.getSimpleName()
-                                          .toString());
+  /**
+   * Returns entries rendered in this page, that is, none if this page is split into parts.
+   */
+  private List<Entry> entriesInThisPage() {
+    return this.parts.isEmpty()
+           ? this.entries
+           : List.of();
   }
   
-  private static Comparator<Element> byKindThenQualifiedName() {
-    return Comparator.comparing(Element::getKind)
-                     .thenComparing(MarkdownPage::qualifiedNameOf);
+  /**
+   * Returns a model of this page, from which {@link #MarkdownPage(Model, Function)} creates the same page without the
+   * javadoc model.
+   * Comments in the model are rendered in advance, leaving references to be resolved by the page created from it.
+   *
+   * @return A model of this page.
+   */
+  Model model() {
+    snapshot();
+    return new Model(this.pageStyle,
+                     this.elementName,
+                     this.elementKind,
+                     this.displayName,
+                     this.ownerName,
+                     this.simpleName,
+                     this.title,
+                     this.overview,
+                     this.comment,
+                     this.members,
+                     this.entries);
   }
   
-  private static String qualifiedNameOf(Element o) {
-    if (o instanceof QualifiedNameable e)
-      return e.getQualifiedName()
-              .toString();
-    return "~" + o.getSimpleName()
-                  .toString();
+  /**
+   * Returns the name of the file of this page in markdown, such as `Type.md` or `README.md`.
+   */
+  private String fileName() {
+    return this.pageStyle == PageStyle.TYPE
+           ? this.displayName + ".md"
+           : "README.md";
   }
   
-  private static String extractCommentBody(DocCommentTree t) {
-    // This is a limitation, where @see,@param,@link,@return inside a code block cannot be rendered.
-    // Also, a multi-line text after these cannot be handled properly.
-    return decodeUnicodeEscapes(Objects.toString(t)
-                                       .replace("\n", LINEBREAK_PLACEHOLDER))
-        .replace(LINEBREAK_PLACEHOLDER, String.format("%n"))
-        .replaceAll("@(see|param|link|return)[ \t]+.+", "")
-        .replaceAll(String.format("%n +```"), String.format("%n```"))
-        .replaceAll(String.format("%n +#"), String.format("%n#"));
+  private List<Member> snapshotMembers() {
+    List<Member> ret = new ArrayList<>();
+    for (MemberModel each : MemberModel.of((TypeElement) this.targetElement, this.children, docletEnvironment.getDocTrees())) {
+      if (!each.documented())
+        continue;
+      if (each.element() instanceof ExecutableElement executableElement)
+        ret.add(new Member(anchorOf(executableElement),
+                           executableElement.getKind(),
+                           methodNameOf(executableElement),
+                           returnTypeOf(executableElement),
+                           renderParameters(executableElement),
+                           true,
+                           commentOf(each)));
+      else if (each.element() instanceof VariableElement variableElement)
+        ret.add(new Member(nameOf(variableElement),
+                           variableElement.getKind(),
+                           nameOf(variableElement),
+                           null,
+                           null,
+                           false,
+                           commentOf(each)));
+    }
+    return ret;
   }
   
-  private static String decodeUnicodeEscapes(String input) {
-    Properties props = new Properties();
-    try {
-      props.load(new StringReader("key=" + input));
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+  private static Comment commentOf(MemberModel member) {
+    return member.docCommentTree() != null
+           ? new Comment.OfTree(member.docCommentTree()).deferred()
+           : null;
+  }
+  
+  private List<Entry> snapshotEntries() {
+    List<Entry> ret = new ArrayList<>();
+    for (Element element : children.stream()
+                                   .sorted(byKindThenQualifiedName())
+                                   .toList()) {
+      if (!Objects.equals(this.targetElement, element.getEnclosingElement()))
+        continue;
+      if (element instanceof TypeElement typeElement) {
+        String typeName = typeNameOf(typeElement);
+        ret.add(new Entry(element.getKind(),
+                          typeName,
+                          typeName + ".md"));
+      } else if (element instanceof PackageElement) {
+        String packageName = packageNameOf(element, docletEnvironment.getElementUtils());
+        ret.add(new Entry(element.getKind(),
+                          packageName,
+                          packageName + "/"));
+      } else {
+        this.debug.accept("Ignoring unknown element: " + element);
+      }
     }
-    return props.getProperty("key");
+    return ret;
+  }
+  
+  /**
+   * Render this object as a markdown page for a type documentation.
+   *
+   * @return A rendered content of the page that this object represents
+   */
+  public String renderAsTypePage() {
+    return PageStyle.TYPE.render(this);
   }
   
-  private static String renderAnchorForVariableElement(VariableElement variableElement) {
-    return String.format("<a id=\"%s\"></a>%n", variableElement.getSimpleName());
+  /**
+   * Render this object as a markdown page for a type documentation into a given `Appendable`.
+   *
+   * @param out An `Appendable` to which the page is rendered.
+   * @throws IOException Thrown by `out`.
+   */
+  public void renderAsTypePage(Appendable out) throws IOException {
+    renderWithEvent(out, this::renderTypePageTo);
+  }
+  
+  private void renderTypePageTo(Appendable out) throws IOException {
+    List<Template.Scope> members = new ArrayList<>();
+    for (Member each : snapshot().membersInThisPage())
+      members.add(name -> switch (name) {
+        case "anchor" -> each.anchor();
+        case "kind" -> each.kind()
+                           .toString();
+        case "name" -> each.name();
+        case "returnType" -> this.format.text(each.returnType());
+        case "parameters" -> this.format.inline(each.parameters());
+        case "executable" -> each.executable();
+        case "comment" -> each.comment() != null;
+        case "body" -> each.comment() != null
+                       ? this.format.blocks(extractCommentBody(each.comment()))
+                       : null;
+        case "tags" -> each.comment() != null
+                       ? this.format.blocks(each.comment()
+                                                .tags(this.commentRenderer))
+                       : null;
+        default -> null;
+      });
+    this.templates.of(PageStyle.TYPE)
+                  .render(name -> "members".equals(name)
+                                  ? members
+                                  : valueOfCommonName(name), out);
   }
   
-  private static String renderSectionTitleForVariableElement(Element element, VariableElement variableElement) {
-    return String.format("## **%s:** %s%n", variableElement.getKind(), element.getSimpleName()
-                                                                              .toString());
+  private static Comparator<Element> byKindThenQualifiedName() {
+    return Comparator.comparing(Element::getKind)
+                     .thenComparing(MarkdownPage::qualifiedNameOf);
   }
   
-  private static String renderAnchorForExecutableElement(ExecutableElement element) {
-    return String.format("<a id=\"%s\"></a>%n", methodNameOf(element));
+  private static String qualifiedNameOf(Element o) {
+    if (o instanceof QualifiedNameable e)
+      return e.getQualifiedName()
+              .toString();
+    return "~" + o.getSimpleName()
+                  .toString();
   }
   
-  private static String renderSectionTitleForExecutableElement(ExecutableElement element) {
-    return String.format("## **%s:** `%s` %s(%s)%n",
-                         element.getKind(),
-                         returnTypeOf(element),
-                         methodNameOf(element),
-                         element.getParameters()
-                                .stream()
-                                .map(p -> new String[]{simpleTypeOf(p), nameOf(p)})
-                                .map(p -> String.format("`%s` `%s`", p[0], p[1]))
-                                .collect(joining(", ")));
+  private String extractCommentBody(Comment comment) {
+    JfrEvents.CommentRender event = new JfrEvents.CommentRender();
+    if (!event.isEnabled())
+      return comment.body(this.commentRenderer);
+    event.begin();
+    String ret = comment.body(this.commentRenderer);
+    event.end();
+    if (event.shouldCommit()) {
+      event.element = this.elementName;
+      event.kind = this.elementKind;
+      event.outputSize = ret.length();
+      event.commit();
+    }
+    return ret;
+  }
+  
+  private String renderParameters(ExecutableElement element) {
+    List<? extends VariableElement> parameters = element.getParameters();
+    StringBuilder ret = new StringBuilder();
+    for (int i = 0; i < parameters.size(); i++) {
+      if (i > 0)
+        ret.append(", ");
+      ret.append("`")
+         .append(parameterTypeOf(element, i))
+         .append("` `")
+         .append(nameOf(parameters.get(i)))
+         .append("`");
+    }
+    return ret.toString();
   }
   
   private static MarkdownPage.PageStyle pageStyleFor(Element element) {
@@ -251,14 +628,20 @@ public class MarkdownPage {
            : MarkdownPage.PageStyle.INDEX;
   }
   
-  private static String returnTypeOf(ExecutableElement element) {
-    String returnType;
-    if (element.getKind() != ElementKind.CONSTRUCTOR) {
-      returnType = String.format("%s", simpleReturnTypeOf(element));
-    } else {
-      returnType = "(none)";
-    }
-    return returnType;
+  private String returnTypeOf(ExecutableElement element) {
+    if (element.getKind() == ElementKind.CONSTRUCTOR)
+      return "(none)";
+    return this.typeNamePrinter.print(element.getReturnType());
+  }
+  
+  private String parameterTypeOf(ExecutableElement element, int index) {
+    String ret = this.typeNamePrinter.print(element.getParameters()
+                                                   .get(index)
+                                                   .asType());
+    if (element.isVarArgs() && index == element.getParameters()
+                                               .size() - 1 && ret.endsWith("[]"))
+      return ret.substring(0, ret.length() - 2) + "...";
+    return ret;
   }
   
   private static String nameOf(VariableElement p) {
@@ -266,18 +649,15 @@ public class MarkdownPage {
             .toString();
   }
   
-  private static String simpleTypeOf(VariableElement p) {
-    return p.asType()
-            .toString()
-            .replaceAll("[a-z0-9_]+\\.", "");
-  }
-  
-  private static String simpleReturnTypeOf(ExecutableElement executableElement) {
-    return executableElement.getReturnType()
-                            .toString()
-                            .replaceAll("^([a-z_]\\w+\\.)+", "")
-                            .replaceAll("<([a-z_]\\w+\\.)+", "<")
-                            .replaceAll(",([a-z_]\\w+\\.)+", ",");
+  /**
+   * Returns an anchor of the section of a method, which is its name followed by its parameter types, so that each of
+   * overloads has its own.
+   * Constructors share one anchor.
+   */
+  private static String anchorOf(ExecutableElement executableElement) {
+    return executableElement.getKind() == ElementKind.CONSTRUCTOR
+           ? methodNameOf(executableElement)
+           : methodNameOf(executableElement) + LinkIndex.parametersOf(executableElement);
   }
   
   private static String methodNameOf(Element c) {
@@ -290,62 +670,93 @@ public class MarkdownPage {
     return name;
   }
   
+  /**
+   * Render this object as a markdown page for a module or a package documentation.
+   *
+   * @return A rendered content of the page that this object represents
+   */
   public String renderAsIndexPage() {
-    StringBuilder sb = new StringBuilder();
-    sb.append(renderCommonPart());
-    
-    sb.append(String.format("## Enclosed Elements%n"));
-    for (Element element : children.stream()
-                                   .sorted(byKindThenQualifiedName())
-                                   .toList()) {
-      if (!Objects.equals(this.targetElement, element.getEnclosingElement()))
-        continue;
-      if (element instanceof TypeElement typeElement) {
-        sb.append(String.format("- **%s:** [%s](%s.md)%n",
-                                element.getKind(),
-                                typeNameOf(typeElement),
-                                typeNameOf(typeElement)));
-      } else if (element instanceof PackageElement) {
-        sb.append(String.format("- **%s:** [%s](%s/)%n",
-                                element.getKind(),
-                                packageNameOf(element, docletEnvironment.getElementUtils()),
-                                packageNameOf(element, docletEnvironment.getElementUtils())));
-      } else {
-        System.err.println("Ignoring unknown element: " + element);
-      }
-    }
-    sb.append(String.format("%n"));
-    
-    return sb.toString();
+    return PageStyle.INDEX.render(this);
   }
   
-  private static void renderTag(StringBuilder sb, Tag tag, Function<String, String> docResolver) {
-    if (tag.tagType != Tag.Type.UNKNOWN)
-      sb.append(String.format("+ **%s:** %s%n", tag.tagType(), tag.tagValue(docResolver)));
+  /**
+   * Render this object as a markdown page for a module or a package documentation into a given `Appendable`.
+   *
+   * @param out An `Appendable` to which the page is rendered.
+   * @throws IOException Thrown by `out`.
+   */
+  public void renderAsIndexPage(Appendable out) throws IOException {
+    renderWithEvent(out, this::renderIndexPageTo);
+  }
+  
+  private void renderIndexPageTo(Appendable out) throws IOException {
+    List<Template.Scope> entries = new ArrayList<>();
+    for (Entry each : snapshot().entriesInThisPage())
+      entries.add(name -> switch (name) {
+        case "kind" -> each.kind()
+                           .toString();
+        case "name" -> each.name();
+        case "target" -> this.format.targetOf(each.target());
+        default -> null;
+      });
+    this.templates.of(PageStyle.INDEX)
+                  .render(name -> "entries".equals(name)
+                                  ? entries
+                                  : valueOfCommonName(name), out);
+  }
+  
+  private void renderWithEvent(Appendable out, Renderer renderer) throws IOException {
+    JfrEvents.PageRender event = new JfrEvents.PageRender();
+    if (!event.isEnabled()) {
+      renderer.render(out);
+      return;
+    }
+    event.begin();
+    JfrEvents.CountingAppendable counter = new JfrEvents.CountingAppendable(out);
+    renderer.render(counter);
+    event.end();
+    if (event.shouldCommit()) {
+      event.element = this.elementName;
+      event.kind = this.elementKind;
+      event.members = memberCount();
+      event.outputSize = counter.count();
+      event.commit();
+    }
   }
   
-  
-  private String renderCommonPart() {
-    StringBuilder sb = new StringBuilder();
-    sb.append(String.format("# %s%n%n", title));
-    if (this.overview != null)
-      sb.append(String.format("%s%n%n", overview));
-    if (this.body != null)
-      sb.append(String.format("%s%n%n", this.body));
-    sb.append(String.format("%n"));
-    sb.append(renderTags(this.tags, this.docResolver));
-    sb.append(String.format("%n"));
-    return sb.toString();
+  /**
+   * Returns the number of member sections of a type page, or entries of an index page.
+   *
+   * @return The number of members or entries.
+   */
+  int memberCount() {
+    snapshot();
+    return membersInThisPage().size() + entriesInThisPage().size();
   }
   
-  private static String renderTags(List<? extends DocTree> tags, Function<String, String> docResolver) {
-    StringBuilder sb = new StringBuilder();
-    for (Tag tag : tags.stream()
-                       .map(MarkdownPage::createTag)
-                       .toList()) {
-      renderTag(sb, tag, docResolver);
-    }
-    return sb.toString();
+  /**
+   * Returns a value of a name common to all page styles.
+   */
+  private Object valueOfCommonName(String name) {
+    return switch (name) {
+      case "title" -> this.format.inline(this.title);
+      case "elementName" -> this.elementName;
+      case "elementKind" -> this.elementKind;
+      case "overview" -> this.format.blocks(this.overview);
+      case "comment" -> this.body != null;
+      case "body" -> this.format.blocks(this.body);
+      case "tags" -> this.comment != null
+                     ? this.format.blocks(this.comment.tags(this.commentRenderer))
+                     : "";
+      case "parts" -> this.parts.stream()
+                                .map(each -> (Template.Scope) partName -> switch (partName) {
+                                  case "label" -> this.format.inline(each.label());
+                                  case "target" -> this.format.targetOf(each.fileName());
+                                  default -> null;
+                                })
+                                .toList();
+      default -> null;
+    };
   }
   
   @SuppressWarnings("UnusedReturnValue")
@@ -354,93 +765,153 @@ public class MarkdownPage {
     return this;
   }
   
-  public void writeTo(File outputFile) {
-    try (var ow = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(outputFile)))) {
-      ow.write(this.pageStyle.render(this));
+  /**
+   * Renders this page into UTF-8 bytes, to be written by {@link #writeTo(OutputSink, String, ByteArrayOutputStream)}.
+   *
+   * @return The content of this page.
+   */
+  public ByteArrayOutputStream render() {
+    ByteArrayOutputStream ret = new ByteArrayOutputStream();
+    render(ret);
+    return ret;
+  }
+  
+  /**
+   * Renders this page into UTF-8 bytes unless `manifest` tells that it is up-to-date.
+   *
+   * If the inputs of the page are unchanged since the previous run, the page is not even rendered.
+   * Otherwise, the page is hashed while it is rendered, and the content is returned only when it changes.
+   *
+   * @param manifest A manifest of the destination directory.
+   * @param page     A description of this page in the manifest.
+   * @return The content of this page, or empty if the page doesn't need to be written.
+   */
+  public Optional<ByteArrayOutputStream> render(Manifest manifest, Manifest.Page page) {
+    if (manifest.carryOverIfUpToDate(page))
+      return Optional.empty();
+    ByteArrayOutputStream ret = new ByteArrayOutputStream();
+    DigestOutputStream out = Manifest.hashing(ret);
+    render(out);
+    if (!manifest.update(page, Manifest.hashOf(out)))
+      return Optional.empty();
+    return Optional.of(ret);
+  }
+  
+  private void render(OutputStream out) {
+    try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+      this.pageStyle.render(this, writer);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
   
-  record Tag(Tag.Type tagType, String tagValue) {
-    enum Type {
-      LINK {
-        @Override
-        String format(String value, Function<String, String> docResolver) {
-          return "[here](" + value + ")";
-        }
-      },
-      SEE {
-        @Override
-        String format(String value, Function<String, String> docResolver) {
-          return "[`" + value + "`](" + docResolver.apply(value) + ")";
-        }
-      },
-      PARAM {
-        @Override
-        String format(String value, Function<String, String> docResolver) {
-          value = value.replaceAll(" +", " ")
-                       .replaceAll("^ +", "");
-          String ret = "";
-          Optional<String> firstToken = firstTokenOf(value);
-          if (firstToken.isPresent()) {
-            ret = ret + "`" + firstToken.get() + "`";
-          } else {
-            ret = ret + "t.b.d.";
-            return ret;
-          }
-          if (!value.contains(" "))
-            return ret + " t.b.d.";
-          return ret + " " + value.substring(value.indexOf(" "));
-        }
-        
-        private Optional<String> firstTokenOf(String value) {
-          if (value == null || value.isEmpty())
-            return Optional.empty();
-          int delimiterIndex = value.indexOf(" ");
-          if (delimiterIndex < 0)
-            return Optional.empty();
-          return Optional.of(value.substring(0, delimiterIndex));
-        }
-      },
-      RETURN {
-        @Override
-        String format(String value, Function<String, String> docResolver) {
-          return value;
-        }
-      },
-      UNKNOWN {
-        @Override
-        String format(String value, Function<String, String> docResolver) {
-          return "(doc contains some error)";
-        }
-      };
-      
-      abstract String format(String value, Function<String, String> docResolver);
-    }
-    
-    public String tagValue(Function<String, String> docResolver) {
-      return this.tagType()
-                 .format(this.tagValue, docResolver);
+  /**
+   * Writes rendered content of this page to `path` in `sink`.
+   * The content is written from its buffer as it is, without being copied.
+   *
+   * @param sink    A sink to which this page is written.
+   * @param path    A path of the page, relative to the destination.
+   * @param content The content of this page returned by {@link #render()}.
+   * @return Number of bytes written.
+   */
+  public long writeTo(OutputSink sink, String path, ByteArrayOutputStream content) {
+    JfrEvents.PageWrite event = new JfrEvents.PageWrite();
+    event.begin();
+    long size;
+    try {
+      size = sink.write(path, content::writeTo);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
     }
-    
-    public static Tag create(String tagName, String tagValue) {
-      return new Tag(tagNameToType(tagName), (tagValue != null
-                                              ? tagValue
-                                              : "").trim());
+    commitWriteEvent(event, path, size);
+    return size;
+  }
+  
+  private void commitWriteEvent(JfrEvents.PageWrite event, String path, long size) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.element = this.elementName;
+      event.kind = this.elementKind;
+      event.members = memberCount();
+      event.outputSize = size;
+      event.path = path;
+      event.commit();
     }
-    
-    private static Type tagNameToType(String tagName) {
-      if (tagName == null)
-        return Type.UNKNOWN;
-      return switch (tagName) {
-        case "@link" -> Type.LINK;
-        case "@see" -> Type.SEE;
-        case "@param" -> Type.PARAM;
-        case "@return" -> Type.RETURN;
-        default -> Type.UNKNOWN;
-      };
+  }
+  
+  /**
+   * A snapshot of a member section in a type page.
+   *
+   * @param anchor     An anchor of the section.
+   * @param kind       A kind of the member.
+   * @param name       A name of the member.
+   * @param returnType A return type of a method, or `(none)` for a constructor. `null` for a field.
+   * @param parameters Rendered parameters of a method or a constructor. `null` for a field.
+   * @param executable `true` if the member is a method or a constructor.
+   * @param comment    A comment of the member, rendered in advance. `null` if it doesn't have a comment.
+   */
+  record Member(String anchor, ElementKind kind, String name, String returnType, String parameters, boolean executable,
+                Comment comment) {
+    /**
+     * Returns a key of this member, by which a {@link PageSplit} looks up the part of this member.
+     *
+     * @return A key of this member.
+     */
+    PageSplit.MemberKey key() {
+      return new PageSplit.MemberKey(kind, kind == ElementKind.CONSTRUCTOR
+                                           ? "<init>"
+                                           : name);
     }
   }
   
+  /**
+   * A part of a page, into which the page is split.
+   *
+   * @param suffix   A suffix of the file name of the part.
+   * @param label    A label of the part.
+   * @param fileName A file name of the part in markdown.
+   * @param page     A page of the part.
+   */
+  record Part(String suffix, String label, String fileName, MarkdownPage page) {
+  }
+  
+  /**
+   * A snapshot of an entry in an index page.
+   *
+   * @param kind   A kind of the enclosed element.
+   * @param name   A name of the enclosed element.
+   * @param target A relative link to the page of the enclosed element.
+   */
+  record Entry(ElementKind kind, String name, String target) {
+  }
+  
+  /**
+   * A snapshot of a page, from which the page is created without the javadoc model.
+   *
+   * @param pageStyle   A style of the page.
+   * @param elementName A qualified name of the element of the page.
+   * @param elementKind A kind of the element.
+   * @param displayName A name of the element shown in the page, that is, a simple name containing enclosing classes for
+   *                    a type and a qualified name for a module or a package.
+   * @param ownerName   A qualified name of the element that encloses the element. Empty for a module.
+   * @param simpleName  A simple name of the element, by which constructors of a type are referred to.
+   * @param title       A title of the page.
+   * @param overview    An overview of the page. `null` if it doesn't have one.
+   * @param comment     A comment of the element. `null` if it doesn't have one.
+   * @param members     Members documented in a type page. Empty for an index page.
+   * @param entries     Entries of an index page. Empty for a type page.
+   */
+  record Model(PageStyle pageStyle, String elementName, String elementKind, String displayName, String ownerName,
+               String simpleName, String title, String overview, Comment comment, List<Member> members,
+               List<Entry> entries) {
+  }
+  
+  /**
+   * A function that renders a page into an `Appendable`.
+   */
+  @FunctionalInterface
+  private interface Renderer {
+    void render(Appendable out) throws IOException;
+  }
+  
 }
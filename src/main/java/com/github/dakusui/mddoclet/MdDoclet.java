@@ -2,6 +2,7 @@ package com.github.dakusui.mddoclet;
 
 import com.sun.source.doctree.DocCommentTree;
 import com.sun.source.util.DocTrees;
+import com.sun.source.util.TreePath;
 import jdk.javadoc.doclet.Doclet;
 import jdk.javadoc.doclet.DocletEnvironment;
 import jdk.javadoc.doclet.Reporter;
@@ -10,11 +11,20 @@ import javax.lang.model.SourceVersion;
 import javax.lang.model.element.*;
 import javax.lang.model.util.Elements;
 import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
 import java.io.*;
 import java.util.*;
-import java.util.function.BiPredicate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
+import static com.github.dakusui.mddoclet.MdDocletOptions.createFlag;
 import static com.github.dakusui.mddoclet.MdDocletOptions.createOption;
 import static javax.lang.model.element.Modifier.PROTECTED;
 import static javax.lang.model.element.Modifier.PUBLIC;
@@ -26,9 +36,21 @@ public class MdDoclet implements Doclet {
   
   private Reporter reporter;
   private File overviewFile = null;
-  private File destinationDirectory = new File(".");
+  private String destination = ".";
   private String basePath = "/";
-  private BiPredicate<ModuleElement, PackageElement> packageFilter = (moduleElement, packageElement) -> true;
+  private final PackageFilter packageFilter = new PackageFilter();
+  private int threads = 1;
+  private boolean incremental = false;
+  private Verbosity verbosity = Verbosity.SUMMARY;
+  private final List<LinkIndexFile> externalLinkIndexes = new ArrayList<>();
+  private File metricsFile = null;
+  private final Map<OutputFormat, PageTemplates> pageTemplates = new EnumMap<>(OutputFormat.class);
+  private List<OutputFormat> formats = List.of(OutputFormat.MD);
+  private int maxMembers = 0;
+  private int maxEntries = 0;
+  private boolean searchIndex = false;
+  private Navigation.Format navigationFormat = null;
+  private File modelCacheFile = null;
   
   /**
    * Creates an instance of this class.
@@ -38,7 +60,7 @@ public class MdDoclet implements Doclet {
   
   /**
    * Initializes this instance.
-   * Currently, just reports a callback is triggered.
+   * Keeps the reporter and compiles the default page templates.
    *
    * @param locale   the locale to be used
    * @param reporter the reporter to be used
@@ -46,8 +68,8 @@ public class MdDoclet implements Doclet {
   @Override
   public void init(Locale locale, Reporter reporter) {
     this.reporter = reporter;
-    this.reporter.print(Diagnostic.Kind.NOTE, "Doclet initialized");
-    
+    for (OutputFormat each : OutputFormat.values())
+      this.pageTemplates.put(each, PageTemplates.defaults(each));
   }
   
   /**
@@ -68,10 +90,13 @@ public class MdDoclet implements Doclet {
   @Override
   public Set<? extends Option> getSupportedOptions() {
     return Set.of(createOption("-d",
-                               "<directory>",
-                               "Destination directory for output",
+                               "<directory|file.zip|file.tar|->",
+                               "Destination directory for output, or an archive to write pages into; - writes a tar archive to the standard output",
                                args -> {
-                                 destinationDirectory = new File(args.getFirst());
+                                 destination = args.getFirst();
+                                 if (!OutputSink.isDirectory(destination))
+                                   return true;
+                                 File destinationDirectory = new File(destination);
                                  if (!destinationDirectory.exists()) {
                                    if (!destinationDirectory.mkdirs()) {
                                      report("Failed to create destination directory: " + destinationDirectory);
@@ -100,40 +125,143 @@ public class MdDoclet implements Doclet {
                                "<pathFromSiteUrlToDocRoot>",
                                "Path from site URL to the document root",
                                args -> {
-                                 report(
-                                     "Relative path from the site URL to the document root is set to " + args.getFirst());
                                  MdDoclet.this.basePath = (args.getFirst() + "/").replaceAll("/+",
                                                                                              "/");
                                  return true;
                                }),
                   createOption("-target-packages",
                                "<moduleNameRegex#packageNameRegex>",
-                               "Packages to generate JavaDocs; Only packages whose enclosing module name and their own names match given regex are processed by this Doclet",
+                               "Packages to generate JavaDocs; Only packages whose enclosing module name and their own names match given regex are processed by this Doclet. Can be specified multiple times",
+                               args -> addPackageFilterRule(args.getFirst(), packageFilter::include)),
+                  createOption("-exclude-packages",
+                               "<moduleNameRegex#packageNameRegex>",
+                               "Packages not to generate JavaDocs, even if they match -target-packages. Can be specified multiple times",
+                               args -> addPackageFilterRule(args.getFirst(), packageFilter::exclude)),
+                  createOption("-threads",
+                               "<n>",
+                               "Number of threads to render and write pages with; 1 (default) renders them sequentially",
+                               args -> parsePositiveInteger("Number of threads", args.getFirst(), v -> MdDoclet.this.threads = v)),
+                  createFlag("-incremental",
+                             "Skip pages whose sources are unchanged since the previous run and prune pages of removed elements",
+                             args -> {
+                               MdDoclet.this.incremental = true;
+                               return true;
+                             }),
+                  createOption("-verbosity",
+                               "<quiet|summary|debug>",
+                               "Messages to report; summary (default) reports numbers of generated pages and elapsed time at the end",
                                args -> {
-                                 MdDoclet.this.packageFilter = (moduleElement, packageElement) -> {
-                                   var hasPoundSign = args.getFirst()
-                                                          .contains("#");
-                                   var poundSignIndex = args.getFirst()
-                                                            .indexOf("#");
-                                   String patternForModule = hasPoundSign
-                                                             ? args.getFirst()
-                                                                   .substring(0, poundSignIndex)
-                                                             : ".*";
-                                   String patternForPackage = hasPoundSign
-                                                              ? args.getFirst()
-                                                                    .substring(poundSignIndex + 1)
-                                                              : args.getFirst();
-                                   moduleElement.getQualifiedName();
-                                   return moduleElement.getQualifiedName()
-                                                       .toString()
-                                                       .matches(patternForModule)
-                                       && packageElement.getQualifiedName()
-                                                        .toString()
-                                                        .matches(patternForPackage);
-                                 };
+                                 Optional<Verbosity> verbosity = Verbosity.fromName(args.getFirst());
+                                 if (verbosity.isEmpty()) {
+                                   report("Unknown verbosity: " + args.getFirst());
+                                   return false;
+                                 }
+                                 MdDoclet.this.verbosity = verbosity.get();
                                  return true;
-                               }
-                              ));
+                               }),
+                  createOption("-link-index",
+                               "<file>",
+                               "Link index (" + LinkIndexFile.FILE_NAME + ") written by another run of this doclet, to resolve references to types documented there. Can be specified multiple times",
+                               args -> {
+                                 try {
+                                   externalLinkIndexes.add(LinkIndexFile.open(new File(args.getFirst())));
+                                   return true;
+                                 } catch (IOException e) {
+                                   report("Failed to read link index: " + args.getFirst() + ": " + e.getMessage());
+                                   return false;
+                                 }
+                               }),
+                  createOption("-metrics",
+                               "<file>",
+                               "Write a report of the run in JSON: time per phase, pages per kind, bytes written, the slowest pages, and unresolved references",
+                               args -> {
+                                 MdDoclet.this.metricsFile = new File(args.getFirst());
+                                 return true;
+                               }),
+                  createOption("-template-dir",
+                               "<directory>",
+                               "Directory of templates (TYPE.md and INDEX.md, or TYPE.html, INDEX.adoc, and so on for -formats) that override the default ones of type pages and index pages",
+                               args -> {
+                                 File templateDirectory = new File(args.getFirst());
+                                 if (!templateDirectory.isDirectory()) {
+                                   report("Template directory does not exist: " + templateDirectory);
+                                   return false;
+                                 }
+                                 try {
+                                   for (OutputFormat each : OutputFormat.values())
+                                     MdDoclet.this.pageTemplates.put(each, PageTemplates.loadFrom(templateDirectory, each));
+                                   return true;
+                                 } catch (IOException | IllegalArgumentException e) {
+                                   report("Failed to read templates: " + e.getMessage());
+                                   return false;
+                                 }
+                               }),
+                  createOption("-max-members",
+                               "<n>",
+                               "Split a type page with more than n members into a summary and pages of members grouped by kind and alphabetical range",
+                               args -> parsePositiveInteger("Maximum number of members", args.getFirst(), v -> MdDoclet.this.maxMembers = v)),
+                  createOption("-max-entries",
+                               "<n>",
+                               "Split a package or module page with more than n enclosed elements into pages of initial letters",
+                               args -> parsePositiveInteger("Maximum number of entries", args.getFirst(), v -> MdDoclet.this.maxEntries = v)),
+                  createFlag("-search-index",
+                             "Write a search index of modules, packages, types, and members to " + SearchIndex.DIRECTORY + "/, sharded by prefixes of names",
+                             args -> {
+                               MdDoclet.this.searchIndex = true;
+                               return true;
+                             }),
+                  createOption("-nav",
+                               "<mkdocs|json>",
+                               "Write a navigation tree of modules, packages, and types; mkdocs writes a nav section of mkdocs.yml to nav.yml, and json writes nav.json",
+                               args -> {
+                                 Optional<Navigation.Format> format = Navigation.Format.fromName(args.getFirst());
+                                 if (format.isEmpty()) {
+                                   report("Unknown navigation format: " + args.getFirst());
+                                   return false;
+                                 }
+                                 MdDoclet.this.navigationFormat = format.get();
+                                 return true;
+                               }),
+                  createOption("-formats",
+                               "<md,html,adoc>",
+                               "Comma-separated formats in which every page is written from the same model; md (default), html, or adoc. The first one is used by the search index, the navigation tree, and the link index",
+                               args -> {
+                                 Set<OutputFormat> formats = new LinkedHashSet<>();
+                                 for (String each : args.getFirst()
+                                                        .split(",")) {
+                                   Optional<OutputFormat> format = OutputFormat.fromName(each.trim());
+                                   if (format.isEmpty()) {
+                                     report("Unknown format: " + each);
+                                     return false;
+                                   }
+                                   formats.add(format.get());
+                                 }
+                                 MdDoclet.this.formats = List.copyOf(formats);
+                                 return true;
+                               }),
+                  createOption("-model-cache",
+                               "<file>",
+                               "Write the documentation model extracted from javadoc to a binary file, from which " + MdRender.class.getSimpleName() + " generates pages without running javadoc",
+                               args -> {
+                                 MdDoclet.this.modelCacheFile = new File(args.getFirst());
+                                 return true;
+                               }));
+  }
+  
+  private boolean parsePositiveInteger(String name, String value, IntConsumer setter) {
+    int parsed;
+    try {
+      parsed = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      report(name + " must be an integer: " + value);
+      return false;
+    }
+    if (parsed < 1) {
+      report(name + " must be a positive integer: " + value);
+      return false;
+    }
+    setter.accept(parsed);
+    return true;
   }
   
   /**
@@ -166,122 +294,439 @@ public class MdDoclet implements Doclet {
    */
   @Override
   public boolean run(DocletEnvironment docEnv) {
+    RunMetrics metrics = new RunMetrics(this.formats.size());
     var utils = docEnv.getElementUtils();
-    var typeDictionary = scanElementsToBuildTypeDictionary(docEnv.getIncludedElements(), utils);
-    System.err.println("typeDictionary: " + typeDictionary);
-    docEnv.getIncludedElements()
-          .forEach(element -> {
-            if (element.getKind() == ElementKind.MODULE || element.getKind() == ElementKind.PACKAGE || element instanceof TypeElement) {
-              DocTrees docTrees = docEnv.getDocTrees();
-              MarkdownPage markdownPage = new MarkdownPage(element,
-                                                           docEnv,
-                                                           t -> resolveDocumentPathForType(t, typeDictionary))
-                  .title(
-                      element.getKind(),
-                      fullyQualifiedNameOf(element));
-              
-              if (element instanceof ModuleElement) {
-                reedOverview().ifPresent(markdownPage::overview);
-              }
-              DocCommentTree docCommentTree = docTrees.getDocCommentTree(element);
-              if (docCommentTree != null) {
-                markdownPage = markdownPage.commentTree(docCommentTree);
-              }
-              MarkdownPage finalMarkdownPage = markdownPage;
-              element.getEnclosedElements()
-                     .stream()
-                     .filter(e -> e.getModifiers()
-                                   .contains(PUBLIC) || e.getModifiers()
-                                                         .contains(PROTECTED) || e instanceof PackageElement)
-                     .filter(this::elementMatchesFilterIfPackage)
-                     .forEach(finalMarkdownPage::addChild);
-              
-              Arrays.stream(markdownPage.renderAsIndexPage()
-                                        .split(String.format("%n")))
-                    .forEach(this::report);
-              
-              var moduleName = moduleNameOf(element, utils);
-              var moduleDir = new File(this.destinationDirectory, moduleName);
-              if (element instanceof TypeElement) {
-                var packageName = packageNameOf(element, utils);
-                var packageDir = new File(moduleDir, packageName);
-                if (packageDir.mkdirs()) {
-                  report("PACKAGE DIR: " + packageDir + " was created.");
-                }
-                markdownPage.writeTo(determineOutputFileFor((TypeElement) element, packageDir));
-              } else if (element instanceof PackageElement) {
-                var packageName = packageNameOf(element, utils);
-                var packageDir = new File(moduleDir, packageName);
-                if (packageDir.mkdirs()) {
-                  report("PACKAGE DIR: " + packageDir + " was created.");
-                }
-                markdownPage.writeTo(new File(packageDir, "README.md"));
-              } else if (element instanceof ModuleElement) {
-                if (moduleDir.mkdirs()) {
-                  report("MODULE DIR: " + moduleDir + " was created.");
-                }
-                markdownPage.writeTo(new File(moduleDir, "README.md"));
-              }
-            }
-          });
-    this.report("Bye");
+    debug("Relative path from the site URL to the document root is set to " + this.basePath);
+    metrics.startPhase("filter");
+    var targetElements = targetElementsOf(docEnv.getIncludedElements(), utils);
+    metrics.startPhase("index");
+    var pageSplits = pageSplitsOf(targetElements, docEnv.getDocTrees());
+    var types = LinkIndex.typesOf(targetElements, utils);
+    var linkIndexes = linkIndexesOf(types, pageSplits);
+    var linkIndex = linkIndexes.get(this.formats.getFirst());
+    if (this.verbosity.reports(Verbosity.DEBUG)) {
+      this.externalLinkIndexes.forEach(i -> debug("EXTERNAL LINK INDEX: " + i));
+      linkIndex.typeLinks()
+               .forEach((k, v) -> debug("TYPE: " + k + " -> " + v));
+      linkIndex.ambiguousSimpleNames()
+               .forEach(k -> debug("AMBIGUOUS SIMPLE NAME: " + k));
+    }
+    if (this.incremental && !OutputSink.isDirectory(this.destination)) {
+      report("-incremental is ignored since the destination is not a directory: " + this.destination);
+      this.incremental = false;
+    }
+    Manifest manifest = this.incremental
+                        ? Manifest.load(new File(this.destination))
+                        : null;
+    String optionsHash = Manifest.hash(Objects.toString(MdDoclet.class.getPackage()
+                                                                      .getImplementationVersion()),
+                                       this.basePath,
+                                       reedOverview().orElse(""),
+                                       this.formats.stream()
+                                                   .map(f -> f + ":" + this.pageTemplates.get(f)
+                                                                                         .hash())
+                                                   .toList()
+                                                   .toString(),
+                                       String.valueOf(this.maxEntries),
+                                       this.externalLinkIndexes.stream()
+                                                               .map(LinkIndexFile::contentHash)
+                                                               .toList()
+                                                               .toString());
+    OutputSink sink = openOutputSink();
+    debug("DESTINATION: " + sink);
+    metrics.startPhase("directories");
+    createDirectories(sink, directoriesOf(targetElements.stream()
+                                                        .map(e -> outputPathOf(e, utils))
+                                                        .toList()));
+    Map<JavaFileObject, String> sourceHashes = new HashMap<>();
+    TypeNamePrinter typeNamePrinter = new TypeNamePrinter();
+    Outputs outputs = new Outputs(metrics);
+    List<DocModel.Page> modelPages = this.modelCacheFile != null
+                                     ? new ArrayList<>()
+                                     : null;
+    metrics.startPhase("build");
+    targetElements.forEach(element -> {
+      if (element.getKind() == ElementKind.MODULE || element.getKind() == ElementKind.PACKAGE || element instanceof TypeElement) {
+        JfrEvents.PageBuild buildEvent = new JfrEvents.PageBuild();
+        buildEvent.begin();
+        DocTrees docTrees = docEnv.getDocTrees();
+        LinkIndex.Context context = LinkIndex.Context.of(element, docTrees, utils);
+        // A reference is resolved once for a page, both to hash the page and to render it.
+        Map<String, String> links = new ConcurrentHashMap<>();
+        MarkdownPage markdownPage = new MarkdownPage(element,
+                                                     docEnv,
+                                                     reference -> links.computeIfAbsent(reference, r -> linkIndex.resolve(r, context)))
+            .typeNamePrinter(typeNamePrinter)
+            .format(this.formats.getFirst())
+            .templates(this.pageTemplates.get(this.formats.getFirst()))
+            .pageSplit(pageSplits.get(fullyQualifiedNameOf(element)))
+            .maxEntries(this.maxEntries)
+            .debug(this::debug)
+            .title(
+                element.getKind(),
+                fullyQualifiedNameOf(element));
+        
+        if (element instanceof ModuleElement) {
+          reedOverview().ifPresent(markdownPage::overview);
+        }
+        DocCommentTree docCommentTree = docTrees.getDocCommentTree(element);
+        if (docCommentTree != null) {
+          markdownPage = markdownPage.commentTree(docCommentTree);
+        }
+        List<? extends Element> children = childrenOf(element);
+        children.forEach(markdownPage::addChild);
+        // From here on, the page doesn't touch the javadoc model, which is not thread-safe.
+        markdownPage.snapshot();
+        buildEvent.end();
+        if (buildEvent.shouldCommit()) {
+          buildEvent.element = fullyQualifiedNameOf(element);
+          buildEvent.kind = element.getKind()
+                                   .toString();
+          buildEvent.members = markdownPage.memberCount();
+          buildEvent.commit();
+        }
+        
+        String outputPath = outputPathOf(element, utils);
+        if (outputPath != null) {
+          Manifest.Page manifestPage = manifest != null
+                                       ? new Manifest.Page(outputPath,
+                                                           fullyQualifiedNameOf(element),
+                                                           Manifest.hash(optionsHash,
+                                                                         sourceHashOf(element, docTrees, sourceHashes),
+                                                                         children.toString(),
+                                                                         // A page links to members of other types, which can be added, removed, or moved.
+                                                                         markdownPage.links()
+                                                                                     .toString(),
+                                                                         // Members of a split page are rendered in its parts.
+                                                                         Objects.toString(Optional.ofNullable(pageSplits.get(fullyQualifiedNameOf(element)))
+                                                                                                  .map(s -> new TreeMap<>(s.suffixesOfMember()))
+                                                                                                  .orElse(null))))
+                                       : null;
+          outputs.add(markdownPage, fullyQualifiedNameOf(element), element.getKind(), outputPath, navigationNamesOf(element, utils), manifestPage);
+          MarkdownPage.Model model = this.formats.size() > 1 || modelPages != null
+                                     ? markdownPage.model()
+                                     : null;
+          for (OutputFormat each : this.formats.subList(1, this.formats.size()))
+            outputs.addPages(pageOf(model, each, linkIndexes.get(each), context, pageSplits),
+                             fullyQualifiedNameOf(element),
+                             element.getKind(),
+                             outputPath,
+                             manifestPage);
+          if (modelPages != null)
+            modelPages.add(new DocModel.Page(outputPath,
+                                             fullyQualifiedNameOf(element),
+                                             element.getKind(),
+                                             navigationNamesOf(element, utils),
+                                             context,
+                                             model));
+        }
+      }
+    });
+    if (modelPages != null) {
+      metrics.startPhase("modelCache");
+      new DocModel(types, modelPages).writeTo(this.modelCacheFile);
+      debug("MODEL CACHE: " + this.modelCacheFile + " (" + modelPages.size() + " pages)");
+    }
+    outputs.writeTo(sink, manifest, linkIndex);
+    debug("TYPE NAMES: " + typeNamePrinter.cachedTypes() + " cached");
+    finish(metrics, linkIndex);
     return true;
   }
   
-  private boolean elementMatchesFilterIfPackage(Element e) {
-    return !(e instanceof PackageElement packageElement) || this.packageFilter.test(
-        (ModuleElement) packageElement.getEnclosingElement(), packageElement);
+  /**
+   * Generates pages from a documentation model written by `-model-cache`, without the javadoc model.
+   *
+   * Since the model has pages already filtered by `-target-packages` and `-exclude-packages`, {@link MdRender} rejects
+   * them, as well as `-incremental`, since the model doesn't have the sources to tell changed pages.
+   * The other options take effect in the same way as a javadoc run, and the pages are the same as the ones generated by
+   * the run that wrote the model, given the same options.
+   *
+   * @param model A documentation model.
+   * @return {@code true} on success.
+   */
+  boolean render(DocModel model) {
+    RunMetrics metrics = new RunMetrics(this.formats.size());
+    if (this.incremental) {
+      report("-incremental is ignored when pages are generated from a model cache");
+      this.incremental = false;
+    }
+    metrics.startPhase("index");
+    SortedMap<String, PageSplit> pageSplits = new TreeMap<>();
+    if (this.maxMembers > 0) {
+      for (DocModel.Page each : model.pages())
+        PageSplit.ofMembers(each.model()
+                                .members()
+                                .stream()
+                                .map(MarkdownPage.Member::key)
+                                .toList(), this.maxMembers)
+                 .ifPresent(s -> pageSplits.put(each.elementName(), s));
+    }
+    Map<OutputFormat, LinkIndex> linkIndexes = linkIndexesOf(model.types(), pageSplits);
+    OutputSink sink = openOutputSink();
+    debug("DESTINATION: " + sink);
+    metrics.startPhase("directories");
+    createDirectories(sink, directoriesOf(model.pages()
+                                               .stream()
+                                               .map(DocModel.Page::outputPath)
+                                               .toList()));
+    Outputs outputs = new Outputs(metrics);
+    metrics.startPhase("build");
+    for (DocModel.Page each : model.pages()) {
+      for (OutputFormat format : this.formats) {
+        MarkdownPage markdownPage = pageOf(each.model(), format, linkIndexes.get(format), each.context(), pageSplits);
+        if (each.kind() == ElementKind.MODULE)
+          reedOverview().ifPresent(markdownPage::overview);
+        if (format == this.formats.getFirst())
+          outputs.add(markdownPage, each.elementName(), each.kind(), each.outputPath(), each.navigationNames(), null);
+        else
+          outputs.addPages(markdownPage, each.elementName(), each.kind(), each.outputPath(), null);
+      }
+    }
+    LinkIndex linkIndex = linkIndexes.get(this.formats.getFirst());
+    outputs.writeTo(sink, null, linkIndex);
+    finish(metrics, linkIndex);
+    return true;
+  }
+  
+  /**
+   * Builds a link index for each format in `-formats`, so that pages in a format link to the pages in the same format.
+   */
+  private Map<OutputFormat, LinkIndex> linkIndexesOf(List<LinkIndex.Type> types, Map<String, PageSplit> pageSplits) {
+    Map<OutputFormat, LinkIndex> ret = new EnumMap<>(OutputFormat.class);
+    for (OutputFormat each : this.formats)
+      ret.put(each, LinkIndex.build(types, this.basePath, each.linkExtension(), this.externalLinkIndexes, pageSplits));
+    return ret;
+  }
+  
+  /**
+   * Creates a page in a format from a model of a page.
+   */
+  private MarkdownPage pageOf(MarkdownPage.Model model, OutputFormat format, LinkIndex linkIndex, LinkIndex.Context context,
+                              Map<String, PageSplit> pageSplits) {
+    return new MarkdownPage(model, reference -> linkIndex.resolve(reference, context))
+        .format(format)
+        .templates(this.pageTemplates.get(format))
+        .pageSplit(pageSplits.get(model.elementName()))
+        .maxEntries(this.maxEntries);
   }
   
+  private void finish(RunMetrics metrics, LinkIndex linkIndex) {
+    debug("UNRESOLVED REFERENCES: " + linkIndex.unresolvedReferences() + ", AMBIGUOUS REFERENCES: " + linkIndex.ambiguousReferences());
+    if (this.verbosity.reports(Verbosity.SUMMARY))
+      this.reporter.print(Diagnostic.Kind.NOTE, metrics.summary(this.incremental));
+    if (this.metricsFile != null)
+      metrics.writeReportTo(this.metricsFile, linkIndex.unresolvedReferences(), linkIndex.ambiguousReferences());
+  }
+  
+  /**
+   * Renders given pages and hands them over to `pageWriter`.
+   *
+   * If `-threads` is greater than 1, pages are rendered on a fork-join pool of that size.
+   * Since each page is written to its own file, the output doesn't depend on the number of threads.
+   * Only the order of entries in an archive does.
+   *
+   * @param pendingPages Pages to be written.
+   * @param pageWriter   A writer to which rendered pages are handed over.
+   * @param manifest     A manifest of the destination directory. `null` if `-incremental` is not specified.
+   * @param metrics      Metrics of the current run, to which written pages are counted.
+   */
+  private void writePages(List<PendingPage> pendingPages, PageWriter pageWriter, Manifest manifest, RunMetrics metrics) {
+    if (this.threads <= 1) {
+      pendingPages.forEach(p -> p.write(pageWriter, manifest, metrics));
+      return;
+    }
+    ForkJoinPool pool = new ForkJoinPool(this.threads);
+    try {
+      List<Callable<PendingPage>> tasks = pendingPages.stream()
+                                                      .map(p -> (Callable<PendingPage>) () -> {
+                                                        p.write(pageWriter, manifest, metrics);
+                                                        return p;
+                                                      })
+                                                      .toList();
+      List<Future<PendingPage>> futures = pool.invokeAll(tasks);
+      for (Future<PendingPage> future : futures)
+        future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+            .interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException)
+        throw runtimeException;
+      throw new RuntimeException(e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
   
-  private String resolveDocumentPathForType(String t, Map<String, String> typeDictionary) {
-    var poundSignPosition = t.indexOf("#");
-    var typeName = t.substring(0, poundSignPosition < 0
-                                  ? t.length()
-                                  : poundSignPosition);
-    return typeDictionary.containsKey(typeName)
-           ? String.format("%s%s",
-                           this.basePath,
-                           typeDictionary.get(typeName))
-           : "unknownType.md";
+  /**
+   * Returns enclosed elements of a given element, which are documented in its page.
+   */
+  private List<? extends Element> childrenOf(Element element) {
+    return element.getEnclosedElements()
+                  .stream()
+                  .filter(e -> e.getModifiers()
+                                .contains(PUBLIC) || e.getModifiers()
+                                                      .contains(PROTECTED) || e instanceof PackageElement)
+                  .filter(this::elementMatchesFilterIfPackage)
+                  .toList();
   }
   
-  private static Map<String, String> scanElementsToBuildTypeDictionary(Set<? extends Element> includedElements, Elements utils) {
+  /**
+   * Splits pages of types with more members than `-max-members`.
+   * This is done before the link index is built, so that links to members point to the pages they are rendered in.
+   *
+   * @param targetElements Elements for which pages are generated.
+   * @param docTrees       Doc trees, from which comments of members are read.
+   * @return Splits of type pages, keyed and sorted by fully qualified names of the types.
+   */
+  private SortedMap<String, PageSplit> pageSplitsOf(Collection<? extends Element> targetElements, DocTrees docTrees) {
+    SortedMap<String, PageSplit> ret = new TreeMap<>();
+    if (this.maxMembers <= 0)
+      return ret;
+    for (Element each : targetElements) {
+      if (!(each instanceof TypeElement typeElement))
+        continue;
+      List<? extends Element> children = childrenOf(typeElement);
+      // Cheap check first, since classifying members reads their comments.
+      if (children.size() <= this.maxMembers)
+        continue;
+      PageSplit.ofMembers(MemberModel.of(typeElement, children, docTrees)
+                                     .stream()
+                                     .filter(MemberModel::documented)
+                                     .map(m -> new PageSplit.MemberKey(m.kind(), m.name()))
+                                     .toList(), this.maxMembers)
+               .ifPresent(s -> ret.put(fullyQualifiedNameOf(typeElement), s));
+    }
+    return ret;
+  }
+  
+  private OutputSink openOutputSink() {
+    try {
+      return OutputSink.open(this.destination);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  private void createDirectories(OutputSink sink, Set<String> directories) {
+    try {
+      for (String each : directories) {
+        if (sink.createDirectories(each))
+          debug("DIR: " + each + " was created.");
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  /**
+   * Returns directories of given pages, so that they are created once before pages are written.
+   *
+   * @param outputPaths Paths of the pages, relative to the destination. `null` is ignored.
+   * @return Paths of the directories, relative to the destination, in the order in which they are created.
+   */
+  private static Set<String> directoriesOf(List<String> outputPaths) {
+    Set<String> ret = new TreeSet<>();
+    for (String outputPath : outputPaths) {
+      if (outputPath != null && outputPath.contains("/"))
+        ret.add(outputPath.substring(0, outputPath.lastIndexOf('/')));
+    }
+    return ret;
+  }
+  
+  /**
+   * Returns a path of the page of a given element, relative to the destination.
+   *
+   * @param element An element.
+   * @param utils   Element utilities.
+   * @return A path of the page. `null` if the element doesn't have its own page.
+   */
+  private static String outputPathOf(Element element, Elements utils) {
+    var moduleName = moduleNameOf(element, utils);
+    if (element instanceof TypeElement typeElement)
+      return pathOf(moduleName, packageNameOf(element, utils), typeNameOf(typeElement) + ".md");
+    if (element instanceof PackageElement)
+      return pathOf(moduleName, packageNameOf(element, utils), "README.md");
+    if (element instanceof ModuleElement)
+      return pathOf(moduleName, "README.md");
+    return null;
+  }
+  
+  /**
+   * Returns names of an element and its ancestors in a navigation tree, that is, a module name, a package name, and a
+   * type name, in the same way as {@link #outputPathOf(Element, Elements)} lays out pages.
+   */
+  private static List<String> navigationNamesOf(Element element, Elements utils) {
+    String moduleName = moduleNameOf(element, utils);
+    if (element instanceof TypeElement typeElement)
+      return List.of(moduleName, packageNameOf(element, utils), typeNameOf(typeElement));
+    if (element instanceof PackageElement)
+      return List.of(moduleName, packageNameOf(element, utils));
+    return List.of(moduleName);
+  }
+  
+  /**
+   * Joins non-empty segments with `/`, so that a page of the unnamed module, whose name is empty, is placed directly
+   * under the destination.
+   */
+  private static String pathOf(String... segments) {
+    return Arrays.stream(segments)
+                 .filter(s -> !s.isEmpty())
+                 .collect(Collectors.joining("/"));
+  }
+  
+  private static String sourceHashOf(Element element, DocTrees docTrees, Map<JavaFileObject, String> sourceHashes) {
+    TreePath treePath = docTrees.getPath(element);
+    if (treePath == null)
+      return "(none)";
+    return sourceHashes.computeIfAbsent(treePath.getCompilationUnit()
+                                                .getSourceFile(), f -> {
+      try {
+        return Manifest.hash(f.openInputStream());
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+  }
+  
+  private boolean addPackageFilterRule(String spec, Consumer<String> rules) {
+    try {
+      rules.accept(spec);
+      return true;
+    } catch (PatternSyntaxException e) {
+      report("Invalid package filter: " + spec + ": " + e.getMessage());
+      return false;
+    }
+  }
+  
+  /**
+   * Returns included elements that are not filtered out by `-target-packages` and `-exclude-packages`.
+   * Modules are always returned, while packages and types are returned only if their packages are accepted by the filter.
+   *
+   * @param includedElements Elements included by javadoc.
+   * @param utils            Element utilities.
+   * @return Elements for which pages are generated, in the order of `includedElements`.
+   */
+  private List<Element> targetElementsOf(Set<? extends Element> includedElements, Elements utils) {
     return includedElements.stream()
-                           .filter(element -> element instanceof TypeElement)
-                           .map(element -> (TypeElement) element)
-                           .collect(Collectors.toMap(e -> getSimpleNameContainingEnclosingClasses(e),
-                                                     typeElement -> docLocationFromBasePath(typeElement, utils),
-                                                     (k1, k2) -> {
-                                                       System.err.println("WARNING: '" + k2 + "' is discarded because there is already an entry '" + k1 + "'");
-                                                       return k1;
-                                                     }
-                                                    ));
-  }
-  
-  private static String getSimpleNameContainingEnclosingClasses(TypeElement e) {
-    return toSimpleNameContainingEnclosingClasses("",
-                                                  e,
-                                                  e.getEnclosingElement());
-  }
-  
-  private static String toSimpleNameContainingEnclosingClasses(String cur, TypeElement e, Element enclosingElement) {
-    if (enclosingElement instanceof PackageElement)
-      return cur + e.getSimpleName()
-                    .toString();
-    else
-      return toSimpleNameContainingEnclosingClasses(enclosingElement.getSimpleName() + "." + cur,
-                                                    e,
-                                                    enclosingElement.getEnclosingElement());
+                           .filter(e -> !(e instanceof PackageElement || e instanceof TypeElement) || isInTargetPackage(e, utils))
+                           .map(e -> (Element) e)
+                           .toList();
+  }
+  
+  private boolean isInTargetPackage(Element element, Elements utils) {
+    PackageElement packageElement = utils.getPackageOf(element);
+    ModuleElement moduleElement = utils.getModuleOf(element);
+    return packageElement == null || moduleElement == null || this.packageFilter.test(moduleElement, packageElement);
   }
   
-  private static String docLocationFromBasePath(TypeElement typeElement, Elements utils) {
-    return String.format("%s/%s/%s",
-                         moduleNameOf(typeElement, utils),
-                         packageNameOf(typeElement, utils),
-                         typeNameOf(typeElement));
+  private boolean elementMatchesFilterIfPackage(Element e) {
+    return !(e instanceof PackageElement packageElement) || this.packageFilter.test(
+        (ModuleElement) packageElement.getEnclosingElement(), packageElement);
   }
   
+  
   private Optional<String> reedOverview() {
     return Optional.ofNullable(this.overviewFile)
                    .map(MdDoclet::readStringFromFile);
@@ -301,23 +746,15 @@ public class MdDoclet implements Doclet {
     return sb.toString();
   }
   
-  private static File determineOutputFileFor(TypeElement element, File packageDir) {
-    String typeName = typeNameOf(element);
-    return new File(packageDir, typeName + ".md");
-  }
-  
   public static String typeNameOf(TypeElement element) {
-    List<TypeElement> enclosingClasses = new ArrayList<>();
-    enclosingClasses.add(element);
-    Element enclosingElement;
-    Element cur = element;
-    while ((enclosingElement = cur.getEnclosingElement()) instanceof TypeElement) {
-      enclosingClasses.addFirst((TypeElement) enclosingElement);
-      cur = enclosingElement;
-    }
-    return enclosingClasses.stream()
-                           .map(Element::getSimpleName)
-                           .collect(Collectors.joining("."));
+    if (!(element.getEnclosingElement() instanceof TypeElement))
+      return element.getSimpleName()
+                    .toString();
+    StringBuilder ret = new StringBuilder(element.getSimpleName());
+    for (Element each = element.getEnclosingElement(); each instanceof TypeElement; each = each.getEnclosingElement())
+      ret.insert(0, '.')
+         .insert(0, each.getSimpleName());
+    return ret.toString();
   }
   
   private static String fullyQualifiedNameOf(Element element) {
@@ -343,7 +780,7 @@ public class MdDoclet implements Doclet {
                    .orElse("(none)");
   }
   
-  private static String moduleNameOf(Element element, Elements utils) {
+  static String moduleNameOf(Element element, Elements utils) {
     return Optional.ofNullable(utils.getModuleOf(element))
                    .map((ModuleElement v) -> Objects.toString(v.getQualifiedName()))
                    .orElse("(none)");
@@ -352,4 +789,141 @@ public class MdDoclet implements Doclet {
   private void report(String message) {
     this.reporter.print(Diagnostic.Kind.NOTE, message);
   }
+  
+  private void debug(String message) {
+    if (this.verbosity.reports(Verbosity.DEBUG))
+      this.reporter.print(Diagnostic.Kind.NOTE, message);
+  }
+  
+  /**
+   * Pages to be written, and indexes of them, which are collected while the pages are built.
+   */
+  private final class Outputs {
+    private final RunMetrics metrics;
+    private final List<PendingPage> pendingPages = new ArrayList<>();
+    private final SearchIndex searchIndexOfPages = MdDoclet.this.searchIndex
+                                                   ? new SearchIndex()
+                                                   : null;
+    private final Navigation navigation = MdDoclet.this.navigationFormat != null
+                                          ? new Navigation()
+                                          : null;
+    
+    private Outputs(RunMetrics metrics) {
+      this.metrics = metrics;
+    }
+    
+    /**
+     * Adds a page in the first format of `-formats`, its parts, and their entries of the search index and the
+     * navigation tree.
+     *
+     * @param markdownPage    A snapshotted page.
+     * @param elementName     A fully qualified name of the element documented by the page.
+     * @param kind            A kind of the element.
+     * @param outputPath      A path of the page in markdown, relative to the destination.
+     * @param navigationNames Names of the element and its ancestors in a navigation tree.
+     * @param manifestPage    A description of the page in the manifest. `null` if `-incremental` is not specified.
+     */
+    void add(MarkdownPage markdownPage, String elementName, ElementKind kind, String outputPath, List<String> navigationNames, Manifest.Page manifestPage) {
+      metrics.pageCreated(kind, markdownPage.parts()
+                                            .size());
+      String path = addPages(markdownPage, elementName, kind, outputPath, manifestPage);
+      if (searchIndexOfPages != null)
+        searchIndexOfPages.addAll(markdownPage.searchEntries(MdDoclet.this.basePath, path));
+      if (navigation != null) {
+        SequencedMap<String, String> parts = new LinkedHashMap<>();
+        markdownPage.parts()
+                    .forEach(p -> parts.put(PageSplit.fileNameOf(path, p.suffix()), p.label()));
+        navigation.add(navigationNames, path, parts);
+      }
+    }
+    
+    /**
+     * Adds a page and its parts, in the format of the page.
+     *
+     * @param markdownPage A snapshotted page.
+     * @param elementName  A fully qualified name of the element documented by the page.
+     * @param kind         A kind of the element.
+     * @param outputPath   A path of the page in markdown, relative to the destination.
+     * @param manifestPage A description of the page in markdown in the manifest. `null` if `-incremental` is not
+     *                     specified.
+     * @return A path of the page in its format.
+     */
+    String addPages(MarkdownPage markdownPage, String elementName, ElementKind kind, String outputPath, Manifest.Page manifestPage) {
+      String path = markdownPage.format()
+                                .pathOf(outputPath);
+      pendingPages.add(new PendingPage(markdownPage, kind, path, manifestPageOf(manifestPage, path)));
+      metrics.filesCreated(1 + markdownPage.parts()
+                                           .size());
+      debug("PAGE: " + path + " for " + kind + " " + elementName);
+      for (MarkdownPage.Part each : markdownPage.parts()) {
+        String partPath = PageSplit.fileNameOf(path, each.suffix());
+        pendingPages.add(new PendingPage(each.page(), kind, partPath, manifestPageOf(manifestPage, partPath)));
+        debug("PAGE: " + partPath + " for " + each.label() + " of " + kind + " " + elementName);
+      }
+      return path;
+    }
+    
+    private static Manifest.Page manifestPageOf(Manifest.Page manifestPage, String path) {
+      return manifestPage != null
+             ? new Manifest.Page(path, manifestPage.element(), manifestPage.inputHash())
+             : null;
+    }
+    
+    /**
+     * Writes the pages, the manifest, the search index, the navigation tree, and the link index to a sink, and closes it.
+     *
+     * @param sink      A sink to which they are written.
+     * @param manifest  A manifest of the destination directory. `null` if `-incremental` is not specified.
+     * @param linkIndex A link index of the pages.
+     */
+    void writeTo(OutputSink sink, Manifest manifest, LinkIndex linkIndex) {
+      metrics.startPhase("write");
+      try (PageWriter pageWriter = new PageWriter(sink, metrics::pageWritten)) {
+        writePages(pendingPages, pageWriter, manifest, metrics);
+      }
+      if (manifest != null) {
+        metrics.startPhase("manifest");
+        List<String> prunedPages = manifest.prune();
+        prunedPages.forEach(p -> debug("PAGE: " + p + " was pruned."));
+        metrics.pagesPruned(prunedPages.size());
+        manifest.store();
+      }
+      try {
+        if (searchIndexOfPages != null) {
+          metrics.startPhase("searchIndex");
+          searchIndexOfPages.writeTo(sink);
+          debug("SEARCH INDEX: " + searchIndexOfPages.size() + " entries");
+        }
+        if (navigation != null) {
+          metrics.startPhase("navigation");
+          navigation.writeTo(sink, MdDoclet.this.navigationFormat);
+        }
+        metrics.startPhase("linkIndex");
+        sink.write(LinkIndexFile.FILE_NAME, out -> LinkIndexFile.write(linkIndex.entries(), out));
+        sink.close();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      metrics.finishPhase();
+    }
+  }
+  
+  /**
+   * A page whose content is snapshotted, but not yet written.
+   *
+   * @param page         A page to be written.
+   * @param kind         A kind of the element documented by the page.
+   * @param outputPath   A path, relative to the destination, to which the page is written.
+   * @param manifestPage A description of the page in the manifest. `null` if `-incremental` is not specified.
+   */
+  private record PendingPage(MarkdownPage page, ElementKind kind, String outputPath, Manifest.Page manifestPage) {
+    void write(PageWriter pageWriter, Manifest manifest, RunMetrics metrics) {
+      long start = System.nanoTime();
+      Optional<ByteArrayOutputStream> content = manifest == null
+                                 ? Optional.of(page.render())
+                                 : page.render(manifest, manifestPage);
+      content.ifPresent(c -> pageWriter.write(page, outputPath, c));
+      metrics.pageTimed(outputPath, kind, System.nanoTime() - start);
+    }
+  }
 }
@@ -19,11 +19,25 @@ public enum MdDocletOptions {
    * @see Doclet.Option#getParameters()
    */
   static Doclet.Option createOption(String name, String parameters, String description, Predicate<List<String>> callback) {
+    return createOption(name, 1, parameters, description, callback);
+  }
+  
+  /**
+   * Creates an option that takes no argument.
+   *
+   * @param description A description of the returned option.
+   * @return An option object
+   */
+  static Doclet.Option createFlag(String name, String description, Predicate<List<String>> callback) {
+    return createOption(name, 0, "", description, callback);
+  }
+  
+  private static Doclet.Option createOption(String name, int argumentCount, String parameters, String description, Predicate<List<String>> callback) {
     return new Doclet.Option() {
       
       @Override
       public int getArgumentCount() {
-        return 1;
+        return argumentCount;
       }
       
       @Override
@@ -43,7 +57,9 @@ public enum MdDocletOptions {
       
       @Override
       public String getParameters() {
-        return name + " " + parameters;
+        return argumentCount > 0
+               ? name + " " + parameters
+               : name;
       }
       
       @Override
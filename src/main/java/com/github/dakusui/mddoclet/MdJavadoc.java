@@ -0,0 +1,304 @@
+package com.github.dakusui.mddoclet;
+
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * An entry point that runs javadoc with {@link MdDoclet} in this JVM, through the {@link DocumentationTool} of the JDK.
+ *
+ * <!--- @formatter:off --->
+ * ```
+ * java -cp mddoclet.jar com.github.dakusui.mddoclet.MdJavadoc [-watch] --source-path src/main/java -subpackages com.example -d docs [options of MdDoclet]
+ * ```
+ * <!--- @formatter:on --->
+ *
+ * Options other than `-watch` are given to javadoc as they are, except `-doclet` and `-docletpath`, which are not
+ * needed.
+ * With `-watch`, it keeps running after generating pages, watches directories of `--source-path` (or `-sourcepath`)
+ * and `--module-source-path`, and generates pages again when a file in them changes.
+ * Since the JVM, javadoc, and the doclet stay warm, a run after a change takes much less time than the first one.
+ * `-incremental` is turned on in this mode, so that only pages of changed compilation units are rendered and written.
+ *
+ * With `-batch <file>`, it generates pages of projects listed in a {@link BatchManifest} one after another, or
+ * `-batch-threads <n>` of them at a time, in this JVM.
+ * The other options are given to all the projects.
+ * Each project is run by its own javadoc task and doclet, and its messages are printed together, prefixed by its name,
+ * when it finishes, so that a failure of a project doesn't affect the others.
+ * Besides the JVM and JIT-compiled code, projects share the default templates and compiled package filters.
+ */
+public final class MdJavadoc {
+  /**
+   * Time to wait for more changes after a change is detected, so that a save of several files triggers one run.
+   */
+  private static final long QUIET_PERIOD_MILLIS = 200;
+  
+  private MdJavadoc() {
+  }
+  
+  /**
+   * Runs javadoc with {@link MdDoclet}, and exits with `1` on a failure.
+   * With `-watch`, it doesn't return until it is interrupted.
+   *
+   * @param args `-watch`, `-batch <file>`, `-batch-threads <n>`, and options of javadoc and {@link MdDoclet}.
+   */
+  public static void main(String... args) {
+    if (!run(args))
+      System.exit(1);
+  }
+  
+  /**
+   * Runs javadoc with {@link MdDoclet}.
+   * With `-watch`, it runs javadoc again whenever a source file changes, until the current thread is interrupted.
+   *
+   * @param args `-watch`, `-batch <file>`, `-batch-threads <n>`, and options of javadoc and {@link MdDoclet}.
+   * @return `true` on success. In watch mode, `true` if the watch ends by an interruption. In batch mode, `true` if all
+   * the projects succeed.
+   */
+  static boolean run(String... args) {
+    List<String> options = new ArrayList<>();
+    boolean watch = false;
+    File batchFile = null;
+    int batchThreads = 1;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-watch")) {
+        watch = true;
+      } else if (args[i].equals("-batch") && i + 1 < args.length) {
+        batchFile = new File(args[++i]);
+      } else if (args[i].equals("-batch-threads") && i + 1 < args.length) {
+        try {
+          batchThreads = Integer.parseInt(args[++i]);
+        } catch (NumberFormatException e) {
+          batchThreads = 0;
+        }
+        if (batchThreads < 1) {
+          System.err.println("error: -batch-threads must be a positive integer: " + args[i]);
+          return false;
+        }
+      } else {
+        options.add(args[i]);
+      }
+    }
+    DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+    if (tool == null) {
+      System.err.println("error: javadoc is not available in this JVM; run it with a JDK");
+      return false;
+    }
+    if (batchFile != null) {
+      if (watch) {
+        System.err.println("error: -watch cannot be used with -batch");
+        return false;
+      }
+      BatchManifest manifest;
+      try {
+        manifest = BatchManifest.readFrom(batchFile);
+      } catch (IOException e) {
+        System.err.println("error: Failed to read batch manifest: " + e.getMessage());
+        return false;
+      }
+      return generate(tool, manifest, options, batchThreads);
+    }
+    if (!watch)
+      return generate(tool, options, null);
+    if (!options.contains("-incremental"))
+      options.add("-incremental");
+    try {
+      return watch(tool, options, sourceDirectoriesOf(options));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  /**
+   * Runs javadoc for each project in a batch manifest, and prints the messages of each project when it finishes.
+   */
+  private static boolean generate(DocumentationTool tool, BatchManifest manifest, List<String> options, int threads) {
+    long start = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    Map<String, Future<Boolean>> results = new LinkedHashMap<>();
+    for (BatchManifest.Project each : manifest.projects()) {
+      List<String> projectOptions = new ArrayList<>(options);
+      projectOptions.addAll(manifest.commonOptions());
+      projectOptions.addAll(each.options());
+      results.put(each.name(), executor.submit(() -> generate(tool, each.name(), projectOptions)));
+    }
+    executor.shutdown();
+    List<String> failed = new ArrayList<>();
+    for (Map.Entry<String, Future<Boolean>> each : results.entrySet()) {
+      try {
+        if (!each.getValue()
+                 .get())
+          failed.add(each.getKey());
+      } catch (InterruptedException e) {
+        executor.shutdownNow();
+        Thread.currentThread()
+              .interrupt();
+        return false;
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    System.err.println("Note: Generated pages of " + (results.size() - failed.size()) + " of " + results.size() + " projects in " + elapsedMillis + " ms"
+                       + (failed.isEmpty()
+                          ? ""
+                          : "; failed: " + failed));
+    return failed.isEmpty();
+  }
+  
+  /**
+   * Runs javadoc for a project of a batch, and prints its messages prefixed by its name.
+   * An exception thrown by javadoc or the doclet is reported as a failure of the project.
+   */
+  private static boolean generate(DocumentationTool tool, String name, List<String> options) {
+    StringWriter messages = new StringWriter();
+    boolean ret;
+    try (PrintWriter out = new PrintWriter(messages)) {
+      try {
+        ret = generate(tool, options, out);
+      } catch (RuntimeException e) {
+        e.printStackTrace(out);
+        ret = false;
+      }
+    }
+    StringBuilder sb = new StringBuilder();
+    messages.toString()
+            .lines()
+            .forEach(l -> sb.append("[")
+                            .append(name)
+                            .append("] ")
+                            .append(l)
+                            .append(System.lineSeparator()));
+    System.err.print(sb);
+    return ret;
+  }
+  
+  /**
+   * Runs javadoc once.
+   * A file manager is created for each run, since javadoc configures its locations from the options.
+   *
+   * @param out A writer to which javadoc writes its messages. `null` for the standard error.
+   */
+  private static boolean generate(DocumentationTool tool, List<String> options, Writer out) {
+    List<String> toolOptions = new ArrayList<>();
+    List<File> sourceFiles = new ArrayList<>();
+    for (String each : options) {
+      if (each.endsWith(".java") && !each.startsWith("-"))
+        sourceFiles.add(new File(each));
+      else
+        toolOptions.add(each);
+    }
+    try (StandardJavaFileManager fileManager = tool.getStandardFileManager(null, null, null)) {
+      Iterable<? extends JavaFileObject> compilationUnits = sourceFiles.isEmpty()
+                                                            ? null
+                                                            : fileManager.getJavaFileObjectsFromFiles(sourceFiles);
+      return tool.getTask(out, fileManager, null, MdDoclet.class, toolOptions, compilationUnits)
+                 .call();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  private static boolean watch(DocumentationTool tool, List<String> options, List<Path> sourceDirectories) throws IOException {
+    if (sourceDirectories.isEmpty()) {
+      System.err.println("error: -watch needs --source-path, -sourcepath, or --module-source-path to watch");
+      return false;
+    }
+    try (WatchService watchService = FileSystems.getDefault()
+                                                .newWatchService()) {
+      for (Path each : sourceDirectories)
+        registerRecursively(each, watchService);
+      generate(tool, options, null);
+      System.err.println("Note: Watching " + sourceDirectories + " for changes");
+      while (true) {
+        Set<Path> changed = new TreeSet<>();
+        WatchKey key = watchService.take();
+        do {
+          collectChanges(key, watchService, changed);
+          key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        } while (key != null);
+        if (changed.isEmpty())
+          continue;
+        System.err.println("Note: Changed: " + changed);
+        generate(tool, options, null);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+            .interrupt();
+      return true;
+    }
+  }
+  
+  /**
+   * Collects changed files of a key into `out`, and starts watching directories created in the directory of the key.
+   */
+  private static void collectChanges(WatchKey key, WatchService watchService, Set<Path> out) throws IOException {
+    Path directory = (Path) key.watchable();
+    for (WatchEvent<?> each : key.pollEvents()) {
+      if (each.kind() == OVERFLOW) {
+        out.add(directory);
+        continue;
+      }
+      Path path = directory.resolve((Path) each.context());
+      if (each.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+        registerRecursively(path, watchService);
+        out.add(path);
+      } else if (isSourceFile(path)) {
+        out.add(path);
+      }
+    }
+    key.reset();
+  }
+  
+  /**
+   * Returns `true` for a file from which javadoc reads documentation, that is, a source file or a `package.html`.
+   */
+  private static boolean isSourceFile(Path path) {
+    String fileName = path.getFileName()
+                          .toString();
+    return fileName.endsWith(".java") || fileName.equals("package.html");
+  }
+  
+  private static void registerRecursively(Path directory, WatchService watchService) throws IOException {
+    Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+  
+  /**
+   * Returns existing directories given by `--source-path`, `-sourcepath`, and `--module-source-path`.
+   * An entry of a module source path, which can be `module=directory` or have wildcards, is watched from the part before
+   * the first `*` or `{`.
+   */
+  private static List<Path> sourceDirectoriesOf(List<String> options) {
+    Set<Path> ret = new LinkedHashSet<>();
+    for (int i = 0; i + 1 < options.size(); i++) {
+      String option = options.get(i);
+      if (!Set.of("--source-path", "-sourcepath", "--module-source-path")
+              .contains(option))
+        continue;
+      for (String each : options.get(++i)
+                                .split(File.pathSeparator)) {
+        String directory = each.substring(each.indexOf('=') + 1)
+                               .replaceFirst("[*{].*", "");
+        if (!directory.isEmpty() && new File(directory).isDirectory())
+          ret.add(Paths.get(directory)
+                       .toAbsolutePath()
+                       .normalize());
+      }
+    }
+    return List.copyOf(ret);
+  }
+}
@@ -0,0 +1,119 @@
+package com.github.dakusui.mddoclet;
+
+import com.sun.source.util.DocTreePath;
+import jdk.javadoc.doclet.Doclet;
+import jdk.javadoc.doclet.Reporter;
+
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * An entry point that generates pages from a documentation model written by `-model-cache` of {@link MdDoclet},
+ * without running javadoc.
+ *
+ * <!--- @formatter:off --->
+ * ```
+ * java -cp mddoclet.jar com.github.dakusui.mddoclet.MdRender -model-cache model.bin -d docs [options of MdDoclet]
+ * ```
+ * <!--- @formatter:on --->
+ *
+ * Options other than `-model-cache` are the ones of {@link MdDoclet} and work in the same way, except that
+ * `-target-packages`, `-exclude-packages`, and `-incremental` are rejected, since the model is already filtered and
+ * doesn't have the sources.
+ * See {@link MdDoclet#render(DocModel)}.
+ */
+public final class MdRender {
+  private static final Set<String> UNSUPPORTED_OPTIONS = Set.of("-target-packages", "-exclude-packages", "-incremental");
+  
+  private MdRender() {
+  }
+  
+  /**
+   * Generates pages from a model cache, and exits with `1` on a failure.
+   *
+   * @param args `-model-cache <file>` and options of {@link MdDoclet}.
+   */
+  public static void main(String... args) {
+    if (!run(args))
+      System.exit(1);
+  }
+  
+  /**
+   * Generates pages from a model cache.
+   *
+   * @param args `-model-cache <file>` and options of {@link MdDoclet}.
+   * @return `true` on success.
+   */
+  static boolean run(String... args) {
+    Reporter reporter = new StandardErrorReporter();
+    MdDoclet doclet = new MdDoclet();
+    doclet.init(Locale.getDefault(), reporter);
+    Map<String, Doclet.Option> options = new HashMap<>();
+    doclet.getSupportedOptions()
+          .forEach(o -> o.getNames()
+                         .forEach(n -> options.put(n, o)));
+    File modelCacheFile = null;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-model-cache") && i + 1 < args.length) {
+        modelCacheFile = new File(args[++i]);
+        continue;
+      }
+      Doclet.Option option = options.get(args[i]);
+      if (option == null) {
+        reporter.print(Diagnostic.Kind.ERROR, "Unknown option: " + args[i]);
+        return false;
+      }
+      if (UNSUPPORTED_OPTIONS.contains(args[i])) {
+        reporter.print(Diagnostic.Kind.ERROR, args[i] + " cannot be used with -model-cache, since the model is already filtered and doesn't have the sources");
+        return false;
+      }
+      if (i + option.getArgumentCount() >= args.length) {
+        reporter.print(Diagnostic.Kind.ERROR, "Missing argument: " + option.getParameters());
+        return false;
+      }
+      List<String> arguments = List.of(args)
+                                   .subList(i + 1, i + 1 + option.getArgumentCount());
+      if (!option.process(args[i], arguments))
+        return false;
+      i += option.getArgumentCount();
+    }
+    if (modelCacheFile == null) {
+      reporter.print(Diagnostic.Kind.ERROR, "-model-cache <file> is required");
+      return false;
+    }
+    DocModel model;
+    try {
+      model = DocModel.readFrom(modelCacheFile);
+    } catch (IOException e) {
+      reporter.print(Diagnostic.Kind.ERROR, "Failed to read model cache: " + e.getMessage());
+      return false;
+    }
+    return doclet.render(model);
+  }
+  
+  /**
+   * A reporter that prints messages to the standard error, in the way javadoc does.
+   */
+  private static final class StandardErrorReporter implements Reporter {
+    @Override
+    public void print(Diagnostic.Kind kind, String message) {
+      System.err.println((kind == Diagnostic.Kind.NOTE
+                          ? "Note"
+                          : kind.name()
+                                .toLowerCase(Locale.ROOT)) + ": " + message);
+    }
+    
+    @Override
+    public void print(Diagnostic.Kind kind, DocTreePath path, String message) {
+      print(kind, message);
+    }
+    
+    @Override
+    public void print(Diagnostic.Kind kind, Element element, String message) {
+      print(kind, element + ": " + message);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.github.dakusui.mddoclet;
+
+import com.sun.source.doctree.DocCommentTree;
+import com.sun.source.util.DocTrees;
+
+import javax.annotation.processing.Generated;
+import javax.lang.model.element.*;
+import java.util.*;
+
+/**
+ * A member of a type, classified once before its page is rendered.
+ *
+ * {@link #of(TypeElement, List, DocTrees)} looks at the javadoc model only once per member, so that deciding which
+ * members are documented and sorting them don't touch the model again.
+ *
+ * @param element        The member.
+ * @param kind           A kind of the member.
+ * @param name           A simple name of the member, by which members of the same kind are sorted.
+ * @param visibility     `PUBLIC`, `PROTECTED`, `PRIVATE`, or `null` for package-private.
+ * @param generated      `true` if the member is annotated with `@Generated`.
+ * @param implicit       `true` if the member is implicitly declared or not worth a section: `values` and `valueOf` of an
+ *                       enum, an accessor, the canonical constructor, `equals`, `hashCode`, and `toString` of a record,
+ *                       and a constructor without parameters and a comment.
+ * @param docCommentTree A comment tree of the member. `null` if it doesn't have a comment.
+ */
+record MemberModel(Element element,
+                   ElementKind kind,
+                   String name,
+                   Modifier visibility,
+                   boolean generated,
+                   boolean implicit,
+                   DocCommentTree docCommentTree) {
+  private static final Set<ElementKind> DOCUMENTED_KINDS = EnumSet.of(ElementKind.METHOD, ElementKind.CONSTRUCTOR, ElementKind.FIELD);
+  private static final Set<String> IMPLICIT_ENUM_METHODS = Set.of("values", "valueOf");
+  // This is a limitation. Even if hashCode, equals, and toString are overloaded methods(, not overriding),
+  // they will be ignored in the documentation if they are in a `record`.
+  private static final Set<String> IMPLICIT_RECORD_METHODS = Set.of("hashCode", "equals", "toString");
+  private static final Comparator<MemberModel> BY_KIND_THEN_NAME = Comparator.comparing(MemberModel::kind)
+                                                                             .thenComparing(MemberModel::name);
+  
+  /**
+   * Classifies members of a type and sorts them by their kinds, then by their names.
+   *
+   * @param type     A type.
+   * @param children Members of `type` to be classified.
+   * @param docTrees Doc trees, from which comments of the members are read.
+   * @return Classified members.
+   */
+  static List<MemberModel> of(TypeElement type, List<? extends Element> children, DocTrees docTrees) {
+    Set<String> recordComponentNames = new HashSet<>();
+    if (type.getKind() == ElementKind.RECORD)
+      type.getRecordComponents()
+          .forEach(c -> recordComponentNames.add(c.getSimpleName()
+                                                  .toString()));
+    List<MemberModel> ret = new ArrayList<>(children.size());
+    for (Element each : children) {
+      String name = each.getSimpleName()
+                        .toString();
+      DocCommentTree docCommentTree = docTrees.getDocCommentTree(each);
+      ret.add(new MemberModel(each,
+                              each.getKind(),
+                              name,
+                              visibilityOf(each),
+                              each.getAnnotation(Generated.class) != null,
+                              isImplicit(type.getKind(), each, name, recordComponentNames, docCommentTree),
+                              docCommentTree));
+    }
+    ret.sort(BY_KIND_THEN_NAME);
+    return ret;
+  }
+  
+  /**
+   * Checks if this member has its own section in the page of the type.
+   *
+   * @return `true` if this member is documented.
+   */
+  boolean documented() {
+    return DOCUMENTED_KINDS.contains(kind) && !generated && !implicit;
+  }
+  
+  private static boolean isImplicit(ElementKind typeKind, Element element, String name, Set<String> recordComponentNames, DocCommentTree docCommentTree) {
+    if (!(element instanceof ExecutableElement executableElement))
+      return false;
+    boolean noParameters = executableElement.getParameters()
+                                            .isEmpty();
+    if (element.getKind() == ElementKind.CONSTRUCTOR && noParameters && docCommentTree == null)
+      return true;
+    return switch (typeKind) {
+      case ENUM -> IMPLICIT_ENUM_METHODS.contains(name);
+      case RECORD -> noParameters && recordComponentNames.contains(name)
+          || element.getKind() == ElementKind.CONSTRUCTOR
+          || IMPLICIT_RECORD_METHODS.contains(name);
+      default -> false;
+    };
+  }
+  
+  private static Modifier visibilityOf(Element element) {
+    Set<Modifier> modifiers = element.getModifiers();
+    if (modifiers.contains(Modifier.PUBLIC))
+      return Modifier.PUBLIC;
+    if (modifiers.contains(Modifier.PROTECTED))
+      return Modifier.PROTECTED;
+    if (modifiers.contains(Modifier.PRIVATE))
+      return Modifier.PRIVATE;
+    return null;
+  }
+}
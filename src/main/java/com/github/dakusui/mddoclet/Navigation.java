@@ -0,0 +1,193 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A navigation tree of generated pages, that is, modules, packages in them, and types in them, built while pages are
+ * built, so that a site doesn't need to walk the destination to find pages.
+ *
+ * Nodes are sorted by their names at each level.
+ * Since it is built from the pages this doclet generates, it reflects `-target-packages` and `-exclude-packages`.
+ *
+ * This class is not thread-safe.
+ */
+final class Navigation {
+  private final Node root = new Node("");
+  
+  /**
+   * Adds a page to this tree.
+   *
+   * @param names Names of the element of the page and its ancestors, from the outermost, such as a module name, a
+   *              package name, and a type name. Empty names, such as the name of the unnamed module, are skipped.
+   * @param path  A path of the page relative to the destination.
+   * @param parts Labels of parts of the page keyed by their paths. Empty if the page is not split.
+   */
+  void add(List<String> names, String path, SequencedMap<String, String> parts) {
+    Node node = this.root;
+    for (String each : names) {
+      if (each.isEmpty())
+        continue;
+      node = node.children.computeIfAbsent(each, Node::new);
+    }
+    node.path = path;
+    node.parts.putAll(parts);
+  }
+  
+  /**
+   * Writes this tree to a sink in a given format.
+   *
+   * @param sink   A sink to which the tree is written.
+   * @param format A format of the tree.
+   * @throws IOException Failed to write the tree.
+   */
+  void writeTo(OutputSink sink, Format format) throws IOException {
+    sink.write(format.fileName(), out -> {
+      Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      StringBuilder sb = new StringBuilder();
+      format.render(this.root, sb);
+      writer.write(sb.toString());
+      writer.flush();
+    });
+  }
+  
+  /**
+   * A format of a navigation tree.
+   */
+  enum Format {
+    /**
+     * A `nav` section of `mkdocs.yml`.
+     * A module, a package, or a split type is a section, whose first item is its own page.
+     */
+    MKDOCS("nav.yml") {
+      @Override
+      void render(Node root, StringBuilder out) {
+        out.append("nav:\n");
+        // The page of the unnamed package in the unnamed module is at the top of the destination.
+        if (root.path != null)
+          out.append("  - ")
+             .append(Json.quote(root.path))
+             .append("\n");
+        root.children.values()
+                     .forEach(each -> renderItem(each, "  ", out));
+      }
+      
+      private void renderItem(Node node, String indent, StringBuilder out) {
+        if (node.children.isEmpty() && node.parts.isEmpty()) {
+          out.append(indent)
+             .append("- ")
+             .append(Json.quote(node.name))
+             .append(": ")
+             .append(Json.quote(Objects.toString(node.path, "")))
+             .append("\n");
+          return;
+        }
+        out.append(indent)
+           .append("- ")
+           .append(Json.quote(node.name))
+           .append(":\n");
+        String childIndent = indent + "    ";
+        if (node.path != null)
+          out.append(childIndent)
+             .append("- ")
+             .append(Json.quote(node.path))
+             .append("\n");
+        node.parts.forEach((path, label) -> out.append(childIndent)
+                                               .append("- ")
+                                               .append(Json.quote(label))
+                                               .append(": ")
+                                               .append(Json.quote(path))
+                                               .append("\n"));
+        node.children.values()
+                     .forEach(each -> renderItem(each, childIndent, out));
+      }
+    },
+    /**
+     * A tree in JSON, whose node has `title`, `path`, `parts`, and `children`.
+     * `path` is `null` for a node without a page, and `parts` is an array of objects that have `title` and `path`.
+     */
+    JSON("nav.json") {
+      @Override
+      void render(Node root, StringBuilder out) {
+        renderNode(root, "", out);
+        out.append("\n");
+      }
+      
+      private void renderNode(Node node, String indent, StringBuilder out) {
+        String childIndent = indent + "  ";
+        out.append("{\"title\": ")
+           .append(Json.quote(node.name))
+           .append(", \"path\": ")
+           .append(node.path == null
+                   ? "null"
+                   : Json.quote(node.path))
+           .append(", \"parts\": [");
+        StringJoiner parts = new StringJoiner(", ");
+        node.parts.forEach((path, label) -> parts.add("{\"title\": " + Json.quote(label) + ", \"path\": " + Json.quote(path) + "}"));
+        out.append(parts)
+           .append("], \"children\": [");
+        boolean first = true;
+        for (Node each : node.children.values()) {
+          out.append(first
+                     ? "\n"
+                     : ",\n")
+             .append(childIndent);
+          renderNode(each, childIndent, out);
+          first = false;
+        }
+        out.append(first
+                   ? "]}"
+                   : "\n" + indent + "]}");
+      }
+    };
+    
+    private final String fileName;
+    
+    Format(String fileName) {
+      this.fileName = fileName;
+    }
+    
+    /**
+     * Returns a name of the file, to which a tree is written in this format.
+     *
+     * @return A file name relative to the destination.
+     */
+    String fileName() {
+      return this.fileName;
+    }
+    
+    abstract void render(Node root, StringBuilder out);
+    
+    /**
+     * Returns a format of a given name, which is case-insensitive.
+     *
+     * @param name A name of a format, such as `mkdocs` or `json`.
+     * @return A format, or empty if there is no such format.
+     */
+    static Optional<Format> fromName(String name) {
+      for (Format each : values()) {
+        if (each.name()
+                .equals(name.toUpperCase(Locale.ROOT)))
+          return Optional.of(each);
+      }
+      return Optional.empty();
+    }
+  }
+  
+  /**
+   * A node of a navigation tree.
+   */
+  static final class Node {
+    private final String name;
+    private final SortedMap<String, Node> children = new TreeMap<>();
+    private final SequencedMap<String, String> parts = new LinkedHashMap<>();
+    private String path = null;
+    
+    private Node(String name) {
+      this.name = name;
+    }
+  }
+}
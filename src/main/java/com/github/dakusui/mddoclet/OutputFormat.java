@@ -0,0 +1,154 @@
+package com.github.dakusui.mddoclet;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * A format in which pages are written.
+ *
+ * Comments are rendered into markdown first, and a page in another format converts them with a
+ * {@link MarkdownConverter} when it is rendered with its own templates, such as `templates/TYPE.html`.
+ * A page of a module or a package is written to `README.md` in markdown, and to `index.html` or `index.adoc` in the
+ * others, so that a link to its directory reaches it.
+ */
+enum OutputFormat {
+  /**
+   * Markdown, linked without extensions as a site generator, such as Backstage, expects.
+   */
+  MD("md", "README", "", null),
+  /**
+   * HTML.
+   */
+  HTML("html", "index", ".html", new MarkdownConverter.Html()),
+  /**
+   * AsciiDoc, linked to the HTML pages into which asciidoctor converts the pages.
+   */
+  ADOC("adoc", "index", ".html", new MarkdownConverter.AsciiDoc());
+  
+  private final String extension;
+  private final String indexName;
+  private final String linkExtension;
+  private final MarkdownConverter converter;
+  
+  OutputFormat(String extension, String indexName, String linkExtension, MarkdownConverter converter) {
+    this.extension = extension;
+    this.indexName = indexName;
+    this.linkExtension = linkExtension;
+    this.converter = converter;
+  }
+  
+  /**
+   * Returns an extension of files in this format, such as `md`.
+   *
+   * @return An extension without `.`.
+   */
+  String extension() {
+    return this.extension;
+  }
+  
+  /**
+   * Returns an extension appended to links to pages in this format, such as `.html`.
+   *
+   * @return An extension with `.`, or an empty string.
+   */
+  String linkExtension() {
+    return this.linkExtension;
+  }
+  
+  /**
+   * Returns a path of a page in this format.
+   *
+   * @param markdownPath A path or a file name of the page in markdown, such as `pkg/Type.md` or `pkg/README.md`.
+   * @return A path of the page in this format, such as `pkg/Type.html` or `pkg/index.html`.
+   */
+  String pathOf(String markdownPath) {
+    return replaceExtension(markdownPath, "." + this.extension);
+  }
+  
+  /**
+   * Returns a relative link from a page in this format to another, such as the target of an entry in an index page.
+   * It differs from {@link #pathOf(String)} for AsciiDoc, whose pages link to the HTML pages converted from them.
+   *
+   * @param markdownPath A relative path of the page in markdown, such as `Type.md`. A path of a directory, such as
+   *                     `pkg/`, is returned as it is.
+   * @return A relative link to the page in this format, such as `Type.html`. Markdown pages link to `Type.md`.
+   */
+  String targetOf(String markdownPath) {
+    return replaceExtension(markdownPath, this.linkExtension);
+  }
+  
+  private String replaceExtension(String markdownPath, String extension) {
+    if (this == MD || !markdownPath.endsWith(".md"))
+      return markdownPath;
+    String ret = markdownPath.substring(0, markdownPath.length() - ".md".length());
+    if (ret.equals(MD.indexName) || ret.endsWith("/" + MD.indexName))
+      ret = ret.substring(0, ret.length() - MD.indexName.length()) + this.indexName;
+    return ret + extension;
+  }
+  
+  /**
+   * Returns a link to a page in this format, in the same form as the links in the link index.
+   * A link to an index page, such as `README.md`, is the link to its directory.
+   *
+   * @param basePath A path from the site URL to the document root, which ends with `/`.
+   * @param path     A path of the page in this format, relative to the destination.
+   * @return A link to the page.
+   */
+  String linkOf(String basePath, String path) {
+    String ret = path.substring(0, path.length() - this.extension.length() - 1);
+    if (ret.equals(this.indexName) || ret.endsWith("/" + this.indexName))
+      return basePath + ret.substring(0, ret.length() - this.indexName.length());
+    return basePath + ret + this.linkExtension;
+  }
+  
+  /**
+   * Converts rendered markdown that consists of blocks, such as a comment body, into this format.
+   *
+   * @param markdown A markdown text. `null` is returned as it is.
+   * @return A converted text.
+   */
+  String blocks(String markdown) {
+    return this.converter == null || markdown == null
+           ? markdown
+           : this.converter.blocks(markdown);
+  }
+  
+  /**
+   * Converts rendered markdown in a line, such as a title, into this format.
+   *
+   * @param markdown A markdown text. `null` is returned as it is.
+   * @return A converted text.
+   */
+  String inline(String markdown) {
+    return this.converter == null || markdown == null
+           ? markdown
+           : this.converter.inline(markdown);
+  }
+  
+  /**
+   * Escapes a plain text, such as a type name, for this format.
+   *
+   * @param text A text. `null` is returned as it is.
+   * @return An escaped text.
+   */
+  String text(String text) {
+    return this == HTML && text != null
+           ? MarkdownConverter.Html.escape(text)
+           : text;
+  }
+  
+  /**
+   * Returns a format of a given name, which is case-insensitive.
+   *
+   * @param name A name of a format, such as `md`, `html`, or `adoc`.
+   * @return A format, or empty if there is no such format.
+   */
+  static Optional<OutputFormat> fromName(String name) {
+    for (OutputFormat each : values()) {
+      if (each.name()
+              .equals(name.toUpperCase(Locale.ROOT)))
+        return Optional.of(each);
+    }
+    return Optional.empty();
+  }
+}
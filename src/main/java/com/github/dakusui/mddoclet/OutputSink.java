@@ -0,0 +1,107 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * A destination to which pages are written, specified by `-d`.
+ *
+ * - A path ending with `.zip`: Pages are written into a zip file through the zip file system provider.
+ * - A path ending with `.tar`: Pages are streamed into a tar file.
+ * - `-`: Pages are streamed into the standard output in the tar format.
+ * - Otherwise: Pages are written into a directory.
+ *
+ * In any case, pages are placed at the same relative paths.
+ * Paths given to a sink are relative to the destination and separated by `/`.
+ *
+ * Implementations of this interface are thread-safe.
+ */
+interface OutputSink extends Closeable {
+  /**
+   * Opens a sink for a destination given by `-d`.
+   *
+   * @param destination A path of a directory or an archive, or `-` for the standard output.
+   * @return An opened sink.
+   * @throws IOException If the destination cannot be opened.
+   */
+  static OutputSink open(String destination) throws IOException {
+    if (isStandardOutput(destination))
+      return new TarOutputSink(System.out, false);
+    if (isTar(destination))
+      return new TarOutputSink(new BufferedOutputStream(Files.newOutputStream(Path.of(destination))), true);
+    if (isZip(destination)) {
+      Path zipFile = Path.of(destination)
+                         .toAbsolutePath();
+      // The zip file system updates an existing archive. Start from an empty one so that stale pages don't remain.
+      Files.deleteIfExists(zipFile);
+      FileSystem zipFileSystem = FileSystems.newFileSystem(URI.create("jar:" + zipFile.toUri()), Map.of("create", "true"));
+      return new PathOutputSink(zipFileSystem.getPath("/"), zipFileSystem);
+    }
+    return new PathOutputSink(Path.of(destination), null);
+  }
+  
+  /**
+   * Checks if a destination is a directory, not an archive nor the standard output.
+   *
+   * @param destination A destination given by `-d`.
+   * @return `true` if the destination is a directory.
+   */
+  static boolean isDirectory(String destination) {
+    return !(isStandardOutput(destination) || isTar(destination) || isZip(destination));
+  }
+  
+  private static boolean isStandardOutput(String destination) {
+    return destination.equals("-");
+  }
+  
+  private static boolean isTar(String destination) {
+    return destination.endsWith(".tar");
+  }
+  
+  private static boolean isZip(String destination) {
+    return destination.endsWith(".zip");
+  }
+  
+  /**
+   * Creates a directory and its parents if they don't exist yet.
+   *
+   * @param path A path to a directory.
+   * @return `true` if a directory was created.
+   * @throws IOException If the directory cannot be created.
+   */
+  boolean createDirectories(String path) throws IOException;
+  
+  /**
+   * Writes a file.
+   * The parent directory of the file must have been created by {@link #createDirectories(String)}.
+   *
+   * @param path    A path to the file.
+   * @param content A function that writes the content of the file to a given stream.
+   * @return Number of bytes written.
+   * @throws IOException If the file cannot be written.
+   */
+  long write(String path, Content content) throws IOException;
+  
+  /**
+   * Writes the content of a file.
+   */
+  @FunctionalInterface
+  interface Content {
+    /**
+     * Writes the content to a stream.
+     * The stream is closed by the sink, not by this method.
+     *
+     * @param out A stream to which the content is written.
+     * @throws IOException Thrown by `out`.
+     */
+    void writeTo(OutputStream out) throws IOException;
+  }
+}
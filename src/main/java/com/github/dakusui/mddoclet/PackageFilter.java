@@ -0,0 +1,112 @@
+package com.github.dakusui.mddoclet;
+
+import javax.lang.model.element.ModuleElement;
+import javax.lang.model.element.PackageElement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * A filter that decides which packages this doclet generates documents for.
+ *
+ * A filter consists of include rules (`-target-packages`) and exclude rules (`-exclude-packages`), each of which is
+ * given as `moduleNameRegex#packageNameRegex`.
+ * If the `#` is omitted, the whole string is a regex for package names, and any module matches.
+ * A package is accepted if it matches any of the include rules (or there is no include rule at all) and none of the
+ * exclude rules.
+ *
+ * Regular expressions are compiled once when rules are added, and a decision for a package is memoized.
+ */
+final class PackageFilter {
+  private final List<Rule> includes = new ArrayList<>();
+  private final List<Rule> excludes = new ArrayList<>();
+  private final Map<PackageElement, Boolean> decisions = new ConcurrentHashMap<>();
+  
+  /**
+   * Adds an include rule.
+   *
+   * @param spec A rule in `moduleNameRegex#packageNameRegex` format.
+   */
+  void include(String spec) {
+    this.includes.add(Rule.parse(spec));
+    this.decisions.clear();
+  }
+  
+  /**
+   * Adds an exclude rule.
+   *
+   * @param spec A rule in `moduleNameRegex#packageNameRegex` format.
+   */
+  void exclude(String spec) {
+    this.excludes.add(Rule.parse(spec));
+    this.decisions.clear();
+  }
+  
+  /**
+   * Checks if a package in a module is accepted by this filter.
+   *
+   * @param moduleElement  A module to which the package belongs.
+   * @param packageElement A package to be checked.
+   * @return `true` if accepted.
+   */
+  boolean test(ModuleElement moduleElement, PackageElement packageElement) {
+    return decisions.computeIfAbsent(packageElement,
+                                     p -> test(moduleElement.getQualifiedName()
+                                                            .toString(),
+                                               p.getQualifiedName()
+                                                .toString()));
+  }
+  
+  /**
+   * Checks if a package in a module is accepted by this filter, by their names.
+   * The result of this method is not memoized.
+   *
+   * @param moduleName  A name of a module. An empty string for the unnamed module.
+   * @param packageName A name of a package.
+   * @return `true` if accepted.
+   */
+  boolean test(String moduleName, String packageName) {
+    return (includes.isEmpty() || matchesAny(includes, moduleName, packageName))
+        && !matchesAny(excludes, moduleName, packageName);
+  }
+  
+  private static boolean matchesAny(List<Rule> rules, String moduleName, String packageName) {
+    for (Rule each : rules) {
+      if (each.matches(moduleName, packageName))
+        return true;
+    }
+    return false;
+  }
+  
+  /**
+   * A compiled `moduleNameRegex#packageNameRegex`.
+   * Rules are cached by their specs, so that runs in the same JVM, such as projects of a batch of {@link MdJavadoc},
+   * share them.
+   *
+   * @param modulePattern  A pattern for module names.
+   * @param packagePattern A pattern for package names.
+   */
+  record Rule(Pattern modulePattern, Pattern packagePattern) {
+    private static final Map<String, Rule> CACHE = new ConcurrentHashMap<>();
+    
+    static Rule parse(String spec) {
+      return CACHE.computeIfAbsent(spec, Rule::compile);
+    }
+    
+    private static Rule compile(String spec) {
+      int poundSignIndex = spec.indexOf('#');
+      return poundSignIndex < 0
+             ? new Rule(Pattern.compile(".*"), Pattern.compile(spec))
+             : new Rule(Pattern.compile(spec.substring(0, poundSignIndex)), Pattern.compile(spec.substring(poundSignIndex + 1)));
+    }
+    
+    boolean matches(String moduleName, String packageName) {
+      return modulePattern.matcher(moduleName)
+                          .matches()
+          && packagePattern.matcher(packageName)
+                           .matches();
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package com.github.dakusui.mddoclet;
+
+import javax.lang.model.element.ElementKind;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A split of a large page into parts, each of which is written to its own file next to the page.
+ * The page itself becomes a summary, which links to the parts.
+ *
+ * A type page is split by kinds of members, and a kind with more members than the threshold is split further into
+ * alphabetical ranges.
+ * Overloads of a name are never split, so that a member has exactly one part to link to.
+ * Since links to members need to point to the parts in which they are rendered, a split of a type page is computed
+ * once before the {@link LinkIndex} is built, and shared by the index and the page.
+ *
+ * An index page is split into buckets of initial letters of enclosed elements.
+ *
+ * @param parts            Parts of the page.
+ * @param suffixesOfMember Suffixes of the parts in which members are rendered, keyed by their kinds and names.
+ */
+record PageSplit(List<Part> parts, Map<String, String> suffixesOfMember) {
+  /**
+   * Splits members of a type page, if there are more than `maxMembers`.
+   *
+   * @param members    Documented members, sorted by their kinds, then by their names.
+   * @param maxMembers The maximum number of members in a page.
+   * @return A split, or empty if the page doesn't need to be split.
+   */
+  static Optional<PageSplit> ofMembers(List<MemberKey> members, int maxMembers) {
+    if (members.size() <= maxMembers)
+      return Optional.empty();
+    List<Part> parts = new ArrayList<>();
+    Map<String, String> suffixesOfMember = new HashMap<>();
+    int from = 0;
+    while (from < members.size()) {
+      ElementKind kind = members.get(from)
+                                .kind();
+      int to = from;
+      while (to < members.size() && members.get(to)
+                                           .kind() == kind)
+        to++;
+      List<Integer> boundaries = boundariesOf(members, from, to, maxMembers);
+      int chunks = boundaries.size() - 1;
+      for (int i = 0; i < chunks; i++) {
+        int begin = boundaries.get(i);
+        int end = boundaries.get(i + 1);
+        String suffix = "-" + kind.name()
+                                  .toLowerCase(Locale.ROOT)
+                                  .replace('_', '-') + (chunks > 1
+                                                        ? "-" + (i + 1)
+                                                        : "");
+        String label = chunks > 1
+                       ? String.format("%s (`%s` to `%s`)", kind, members.get(begin)
+                                                                         .name(), members.get(end - 1)
+                                                                                         .name())
+                       : kind.toString();
+        parts.add(new Part(suffix, label, IntStream.range(begin, end)
+                                                   .boxed()
+                                                   .toList()));
+        for (int j = begin; j < end; j++)
+          suffixesOfMember.put(keyOf(kind, members.get(j)
+                                                  .name()), suffix);
+      }
+      from = to;
+    }
+    return Optional.of(new PageSplit(List.copyOf(parts), Map.copyOf(suffixesOfMember)));
+  }
+  
+  /**
+   * Returns indices at which members from `from` to `to` (exclusive) are cut into chunks, followed by `to`.
+   * A chunk has `maxMembers` or fewer members, and is cut only where the name of members changes, so that overloads of
+   * a name are rendered in one part.
+   * Overloads of a name that are more than `maxMembers` make a chunk by themselves.
+   */
+  private static List<Integer> boundariesOf(List<MemberKey> members, int from, int to, int maxMembers) {
+    List<Integer> ret = new ArrayList<>();
+    ret.add(from);
+    int begin = from;
+    int i = from;
+    while (i < to) {
+      String name = members.get(i)
+                           .name();
+      int next = i + 1;
+      while (next < to && members.get(next)
+                                 .name()
+                                 .equals(name))
+        next++;
+      if (next - begin > maxMembers && i > begin) {
+        ret.add(i);
+        begin = i;
+      }
+      i = next;
+    }
+    ret.add(to);
+    return ret;
+  }
+  
+  /**
+   * Splits entries of an index page into buckets of their initial letters, if there are more than `maxEntries`.
+   * Adjacent letters are merged into a bucket as long as it has `maxEntries` or fewer entries.
+   * A letter with more entries than that makes a bucket by itself.
+   *
+   * @param names      Names of the entries.
+   * @param maxEntries The maximum number of entries in a page.
+   * @return A split, or empty if the page doesn't need to be split.
+   */
+  static Optional<PageSplit> ofEntries(List<String> names, int maxEntries) {
+    if (names.size() <= maxEntries)
+      return Optional.empty();
+    SortedMap<Character, List<Integer>> byLetter = new TreeMap<>();
+    for (int i = 0; i < names.size(); i++)
+      byLetter.computeIfAbsent(initialOf(names.get(i)), k -> new ArrayList<>())
+              .add(i);
+    List<Part> parts = new ArrayList<>();
+    char first = 0;
+    char last = 0;
+    List<Integer> bucket = new ArrayList<>();
+    for (Map.Entry<Character, List<Integer>> each : byLetter.entrySet()) {
+      if (!bucket.isEmpty() && bucket.size() + each.getValue()
+                                                   .size() > maxEntries) {
+        parts.add(bucketOf(first, last, bucket));
+        bucket = new ArrayList<>();
+      }
+      if (bucket.isEmpty())
+        first = each.getKey();
+      last = each.getKey();
+      bucket.addAll(each.getValue());
+    }
+    parts.add(bucketOf(first, last, bucket));
+    return Optional.of(new PageSplit(List.copyOf(parts), Map.of()));
+  }
+  
+  /**
+   * Returns the suffix of the part in which a member is rendered.
+   *
+   * @param kind A kind of the member.
+   * @param name A simple name of the member. `<init>` for a constructor.
+   * @return A suffix of the part, or empty if the member is not rendered in any parts.
+   */
+  Optional<String> suffixOf(ElementKind kind, String name) {
+    return Optional.ofNullable(this.suffixesOfMember.get(keyOf(kind, name)));
+  }
+  
+  /**
+   * Returns a file name of a part, which is the file name of the page with the suffix of the part before its extension.
+   *
+   * @param fileName A file name or a path of the page, such as `Type.md`.
+   * @param suffix   A suffix of the part.
+   * @return A file name of the part, such as `Type-method.md`.
+   */
+  static String fileNameOf(String fileName, String suffix) {
+    int dot = fileName.lastIndexOf('.');
+    return dot > fileName.lastIndexOf('/')
+           ? fileName.substring(0, dot) + suffix + fileName.substring(dot)
+           : fileName + suffix;
+  }
+  
+  private static String keyOf(ElementKind kind, String name) {
+    return kind + "#" + name;
+  }
+  
+  private static char initialOf(String name) {
+    char ret = name.isEmpty()
+               ? '_'
+               : name.charAt(0);
+    return Character.isLetter(ret)
+           ? Character.toUpperCase(ret)
+           : '_';
+  }
+  
+  private static Part bucketOf(char first, char last, List<Integer> indices) {
+    String letters = first == last
+                     ? String.valueOf(first)
+                     : first + "-" + last;
+    return new Part("-" + letters, letters, List.copyOf(indices));
+  }
+  
+  /**
+   * A member of a type, by which the part of the member is looked up.
+   *
+   * @param kind A kind of the member.
+   * @param name A simple name of the member. `<init>` for a constructor.
+   */
+  record MemberKey(ElementKind kind, String name) {
+  }
+  
+  /**
+   * A part of a page.
+   *
+   * Since a suffix is made of characters that cannot appear in a Java identifier, such as `-`, a file of a part never
+   * collides with a page of a type.
+   *
+   * @param suffix  A suffix appended to the file name of the page, such as `-method-2`.
+   * @param label   A label of the part, shown in the summary page.
+   * @param indices Indices of the members or entries in the part.
+   */
+  record Part(String suffix, String label, List<Integer> indices) {
+  }
+}
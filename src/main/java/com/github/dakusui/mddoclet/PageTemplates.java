@@ -0,0 +1,130 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled templates of pages in an {@link OutputFormat}, one for each {@link MarkdownPage.PageStyle}.
+ *
+ * The default templates are bundled in this doclet as `templates/TYPE.md` and `templates/INDEX.md` next to this class,
+ * and `TYPE.html`, `INDEX.adoc`, and so on for the other formats.
+ * They are compiled once, and shared by all pages.
+ * A directory given by `-template-dir` can override them with files of the same names.
+ */
+final class PageTemplates {
+  private final Map<MarkdownPage.PageStyle, Template> templates;
+  private final String hash;
+  
+  private PageTemplates(Map<MarkdownPage.PageStyle, Template> templates, String hash) {
+    this.templates = templates;
+    this.hash = hash;
+  }
+  
+  /**
+   * Returns the default templates of markdown pages.
+   *
+   * @return The default templates.
+   */
+  static PageTemplates defaults() {
+    return defaults(OutputFormat.MD);
+  }
+  
+  /**
+   * Returns the default templates of pages in a given format.
+   *
+   * @param format A format of pages.
+   * @return The default templates.
+   */
+  static PageTemplates defaults(OutputFormat format) {
+    return Defaults.INSTANCES.get(format);
+  }
+  
+  /**
+   * Compiles templates of pages in a given format in a directory.
+   * A page style whose file (such as `TYPE.md` or `INDEX.html`) is not in the directory uses the default template.
+   *
+   * @param directory A directory that contains templates.
+   * @param format    A format of pages.
+   * @return Compiled templates.
+   * @throws IOException              If a template cannot be read.
+   * @throws IllegalArgumentException If a template has an error.
+   */
+  static PageTemplates loadFrom(File directory, OutputFormat format) throws IOException {
+    Map<MarkdownPage.PageStyle, Template> templates = new EnumMap<>(MarkdownPage.PageStyle.class);
+    List<String> sources = new ArrayList<>();
+    for (MarkdownPage.PageStyle each : MarkdownPage.PageStyle.values()) {
+      File file = new File(directory, fileNameOf(each, format));
+      if (!file.isFile()) {
+        templates.put(each, defaults(format).of(each));
+        sources.add("");
+        continue;
+      }
+      String source = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+      try {
+        templates.put(each, Template.compile(source, each.schema()));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(file + ": " + e.getMessage(), e);
+      }
+      sources.add(source);
+    }
+    return new PageTemplates(templates, Manifest.hash(sources.toArray(String[]::new)));
+  }
+  
+  /**
+   * Returns a template for pages of a given style.
+   *
+   * @param pageStyle A style of pages.
+   * @return A compiled template.
+   */
+  Template of(MarkdownPage.PageStyle pageStyle) {
+    return this.templates.get(pageStyle);
+  }
+  
+  /**
+   * Returns a hash of the sources of the templates that override the default ones, so that pages rendered with other
+   * templates are regenerated by `-incremental`.
+   *
+   * @return A hash string.
+   */
+  String hash() {
+    return this.hash;
+  }
+  
+  private static String fileNameOf(MarkdownPage.PageStyle pageStyle, OutputFormat format) {
+    return pageStyle.name() + "." + format.extension();
+  }
+  
+  private enum Defaults {
+    ;
+    
+    private static final Map<OutputFormat, PageTemplates> INSTANCES = load();
+    
+    private static Map<OutputFormat, PageTemplates> load() {
+      Map<OutputFormat, PageTemplates> ret = new EnumMap<>(OutputFormat.class);
+      for (OutputFormat format : OutputFormat.values()) {
+        Map<MarkdownPage.PageStyle, Template> templates = new EnumMap<>(MarkdownPage.PageStyle.class);
+        for (MarkdownPage.PageStyle each : MarkdownPage.PageStyle.values())
+          templates.put(each, Template.compile(readResource("templates/" + fileNameOf(each, format)), each.schema()));
+        ret.put(format, new PageTemplates(templates, ""));
+      }
+      return ret;
+    }
+    
+    private static String readResource(String name) {
+      try (InputStream in = PageTemplates.class.getResourceAsStream(name)) {
+        if (in == null)
+          throw new IllegalStateException("Default template is not found: " + name);
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongConsumer;
+
+/**
+ * Writes rendered pages to an output sink on a dedicated thread.
+ *
+ * Pages are handed over through a queue bounded by their bytes, so that rendering overlaps with writing.
+ * When the queue is full, {@link #write(MarkdownPage, String, ByteArrayOutputStream)} blocks until the writer catches
+ * up, so that rendered pages are not accumulated in memory, however large they are.
+ * A page larger than the capacity waits until the queue is empty.
+ *
+ * If writing a page fails, the following pages are discarded and the failure is thrown by the next call of
+ * {@link #write(MarkdownPage, String, ByteArrayOutputStream)} or {@link #close()}.
+ */
+final class PageWriter implements AutoCloseable {
+  /**
+   * Number of bytes of rendered pages that can wait for the writer.
+   */
+  static final int QUEUE_CAPACITY_BYTES = 8 * 1024 * 1024;
+  
+  private static final Entry END = new Entry(null, null, null, 0);
+  
+  private final OutputSink sink;
+  private final LongConsumer written;
+  private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+  private final int capacityBytes;
+  private final Semaphore availableBytes;
+  private final Thread thread;
+  private volatile RuntimeException failure = null;
+  
+  /**
+   * Creates an instance of this class and starts its thread.
+   *
+   * @param sink    A sink to which pages are written.
+   * @param written A consumer notified of the number of bytes of each written page, on the writer thread.
+   */
+  PageWriter(OutputSink sink, LongConsumer written) {
+    this(sink, written, QUEUE_CAPACITY_BYTES);
+  }
+  
+  /**
+   * Creates an instance of this class with a given capacity of its queue, and starts its thread.
+   *
+   * @param sink          A sink to which pages are written.
+   * @param written       A consumer notified of the number of bytes of each written page, on the writer thread.
+   * @param capacityBytes Number of bytes of rendered pages that can wait for the writer.
+   */
+  PageWriter(OutputSink sink, LongConsumer written, int capacityBytes) {
+    this.sink = sink;
+    this.written = written;
+    this.capacityBytes = capacityBytes;
+    this.availableBytes = new Semaphore(capacityBytes);
+    this.thread = Thread.ofPlatform()
+                        .name("mddoclet-page-writer")
+                        .daemon()
+                        .start(this::drain);
+  }
+  
+  /**
+   * Hands over a rendered page to the writer thread.
+   * This method can be called from any thread.
+   *
+   * @param page    A page to be written.
+   * @param path    A path of the page, relative to the destination.
+   * @param content The content of the page, which must not be modified afterwards.
+   */
+  void write(MarkdownPage page, String path, ByteArrayOutputStream content) {
+    throwIfFailed();
+    int permits = Math.min(content.size(), this.capacityBytes);
+    try {
+      this.availableBytes.acquire(permits);
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+            .interrupt();
+      throw new RuntimeException(e);
+    }
+    put(new Entry(page, path, content, permits));
+  }
+  
+  /**
+   * Waits until all the pages handed over are written and stops the writer thread.
+   */
+  @Override
+  public void close() {
+    put(END);
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+            .interrupt();
+      throw new RuntimeException(e);
+    }
+    throwIfFailed();
+  }
+  
+  private void put(Entry entry) {
+    try {
+      queue.put(entry);
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+            .interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+  
+  private void drain() {
+    try {
+      for (Entry entry = queue.take(); entry != END; entry = queue.take()) {
+        try {
+          if (failure == null)
+            written.accept(entry.page()
+                                .writeTo(sink, entry.path(), entry.content()));
+        } catch (RuntimeException e) {
+          failure = e;
+        } finally {
+          availableBytes.release(entry.permits());
+        }
+      }
+    } catch (InterruptedException e) {
+      failure = new RuntimeException(e);
+    }
+  }
+  
+  private void throwIfFailed() {
+    if (failure != null)
+      throw failure;
+  }
+  
+  private record Entry(MarkdownPage page, String path, ByteArrayOutputStream content, int permits) {
+  }
+}
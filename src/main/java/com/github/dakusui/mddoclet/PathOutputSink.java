@@ -0,0 +1,64 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An output sink that writes files under a root path.
+ * The root is a directory in the default file system, or the root of a zip file system.
+ */
+final class PathOutputSink implements OutputSink {
+  private final Path root;
+  private final Closeable fileSystem;
+  
+  /**
+   * Creates an instance of this class.
+   *
+   * @param root       A root path, under which files are written.
+   * @param fileSystem A file system closed when this sink is closed, such as a zip file system. `null` if nothing needs to
+   *                   be closed.
+   */
+  PathOutputSink(Path root, Closeable fileSystem) {
+    this.root = root;
+    this.fileSystem = fileSystem;
+  }
+  
+  @Override
+  public boolean createDirectories(String path) throws IOException {
+    Path directory = resolve(path);
+    if (Files.isDirectory(directory))
+      return false;
+    Files.createDirectories(directory);
+    return true;
+  }
+  
+  @Override
+  public long write(String path, Content content) throws IOException {
+    Path file = resolve(path);
+    try (OutputStream out = Files.newOutputStream(file)) {
+      content.writeTo(out);
+    }
+    return Files.size(file);
+  }
+  
+  private Path resolve(String path) {
+    return path.isEmpty()
+           ? root
+           : root.resolve(path);
+  }
+  
+  @Override
+  public void close() throws IOException {
+    if (fileSystem != null)
+      fileSystem.close();
+  }
+  
+  @Override
+  public String toString() {
+    return root.toUri()
+               .toString();
+  }
+}
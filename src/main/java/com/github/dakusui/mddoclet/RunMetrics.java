@@ -0,0 +1,305 @@
+package com.github.dakusui.mddoclet;
+
+import javax.lang.model.element.ElementKind;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and timings of a run of the doclet.
+ *
+ * Pages are counted and phases are timed while `MdDoclet#run` walks the elements, which is done on a single thread.
+ * A page is counted once per element, regardless of its parts and formats, which are counted separately as files.
+ * Written pages are counted from the threads that write them.
+ *
+ * CPU time of a phase is that of the whole process, so that it covers the threads writing pages, and also includes
+ * time spent by the JVM itself, such as GC and JIT compilation.
+ */
+final class RunMetrics {
+  /**
+   * Number of pages reported as the slowest ones by {@link #writeReportTo(File, long, long)}.
+   */
+  static final int SLOWEST_PAGES = 20;
+  
+  private final long startNanos = System.nanoTime();
+  private final int formats;
+  private final Map<ElementKind, Integer> pagesByKind = new EnumMap<>(ElementKind.class);
+  private final AtomicInteger writtenPages = new AtomicInteger();
+  private final AtomicLong bytesWritten = new AtomicLong();
+  private final Queue<PageTiming> pageTimings = new ConcurrentLinkedQueue<>();
+  private final List<Phase> phases = new ArrayList<>();
+  private String currentPhase = null;
+  private long currentPhaseStartNanos;
+  private long currentPhaseStartCpuNanos;
+  private int parts = 0;
+  private int files = 0;
+  private int prunedPages = 0;
+  
+  /**
+   * Creates metrics of a run.
+   *
+   * @param formats Number of formats in which pages are written.
+   */
+  RunMetrics(int formats) {
+    this.formats = formats;
+  }
+  
+  /**
+   * Starts a phase, finishing the current one if any.
+   *
+   * @param name A name of the phase.
+   */
+  void startPhase(String name) {
+    finishPhase();
+    this.currentPhase = name;
+    this.currentPhaseStartNanos = System.nanoTime();
+    this.currentPhaseStartCpuNanos = processCpuNanos();
+  }
+  
+  /**
+   * Finishes the current phase, if any.
+   */
+  void finishPhase() {
+    if (this.currentPhase == null)
+      return;
+    long cpuNanos = processCpuNanos();
+    phases.add(new Phase(this.currentPhase,
+                         System.nanoTime() - this.currentPhaseStartNanos,
+                         cpuNanos < 0
+                         ? -1
+                         : cpuNanos - this.currentPhaseStartCpuNanos));
+    this.currentPhase = null;
+  }
+  
+  private static long processCpuNanos() {
+    return ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os
+           ? os.getProcessCpuTime()
+           : -1;
+  }
+  
+  /**
+   * Counts a page for an element of a given kind.
+   *
+   * @param kind  A kind of the element documented by the page.
+   * @param parts Number of parts into which the page is split.
+   */
+  void pageCreated(ElementKind kind, int parts) {
+    pagesByKind.merge(kind, 1, Integer::sum);
+    this.parts += parts;
+  }
+  
+  /**
+   * Counts files to be written for a page in a format, that is, the page and its parts.
+   *
+   * @param count Number of the files.
+   */
+  void filesCreated(int count) {
+    files += count;
+  }
+  
+  /**
+   * Records the time spent to render a file of a page and to hand it over to the page writer, including the time
+   * waiting for room in its queue.
+   * Each part and format of a page is a file and timed separately.
+   * This method can be called from any thread.
+   *
+   * @param path  A path of the file, relative to the destination.
+   * @param kind  A kind of the element documented by the page.
+   * @param nanos Time spent for the file, in nanoseconds.
+   */
+  void pageTimed(String path, ElementKind kind, long nanos) {
+    pageTimings.add(new PageTiming(path, kind, nanos));
+  }
+  
+  /**
+   * Counts a page actually written to a file.
+   * This method can be called from any thread.
+   *
+   * @param bytes Size of the written file.
+   */
+  void pageWritten(long bytes) {
+    writtenPages.incrementAndGet();
+    bytesWritten.addAndGet(bytes);
+  }
+  
+  /**
+   * Counts pages removed because their elements no longer exist.
+   *
+   * @param count Number of the removed pages.
+   */
+  void pagesPruned(int count) {
+    prunedPages += count;
+  }
+  
+  int modules() {
+    return pagesByKind.getOrDefault(ElementKind.MODULE, 0);
+  }
+  
+  int packages() {
+    return pagesByKind.getOrDefault(ElementKind.PACKAGE, 0);
+  }
+  
+  int types() {
+    return pages() - modules() - packages();
+  }
+  
+  int pages() {
+    return pagesByKind.values()
+                      .stream()
+                      .mapToInt(Integer::intValue)
+                      .sum();
+  }
+  
+  long elapsedMillis() {
+    return (System.nanoTime() - startNanos) / 1_000_000;
+  }
+  
+  /**
+   * Returns a one-line summary of the run.
+   *
+   * @param incremental `true` if the run is incremental, where not all the pages are written.
+   * @return A summary string.
+   */
+  String summary(boolean incremental) {
+    String ret = String.format("Generated %d pages (%d modules, %d packages, %d types)",
+                               pages(),
+                               modules(),
+                               packages(),
+                               types());
+    if (parts > 0)
+      ret += String.format(" and %d parts", parts);
+    if (formats > 1)
+      ret += String.format(" in %d formats (%d files)", formats, files);
+    ret += String.format(" in %d ms", elapsedMillis());
+    if (incremental)
+      ret += String.format("; %d written, %d up-to-date, %d pruned",
+                           writtenPages.get(),
+                           files - writtenPages.get(),
+                           prunedPages);
+    return ret;
+  }
+  
+  /**
+   * Writes a report of the run in JSON.
+   * Phases must be finished before this method is called.
+   *
+   * @param file                 A file to which the report is written.
+   * @param unresolvedReferences Number of references in comments that could not be resolved.
+   * @param ambiguousReferences  Number of references in comments resolved to one of types sharing a simple name.
+   */
+  void writeReportTo(File file, long unresolvedReferences, long ambiguousReferences) {
+    try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      writer.write(report(unresolvedReferences, ambiguousReferences));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  private String report(long unresolvedReferences, long ambiguousReferences) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\n")
+      .append("  \"elapsedMillis\": ")
+      .append(elapsedMillis())
+      .append(",\n")
+      .append("  \"phases\": [");
+    for (int i = 0; i < phases.size(); i++) {
+      Phase phase = phases.get(i);
+      sb.append(i == 0
+                ? "\n"
+                : ",\n")
+        .append(String.format("    {\"name\": %s, \"wallMillis\": %d, \"cpuMillis\": %d}",
+                              Json.quote(phase.name()),
+                              phase.wallNanos() / 1_000_000,
+                              phase.cpuNanos() < 0
+                              ? -1
+                              : phase.cpuNanos() / 1_000_000));
+    }
+    sb.append("\n  ],\n")
+      .append("  \"pages\": {");
+    boolean first = true;
+    for (Map.Entry<ElementKind, Integer> each : pagesByKind.entrySet()) {
+      sb.append(first
+                ? ""
+                : ", ")
+        .append(Json.quote(each.getKey()
+                               .toString()))
+        .append(": ")
+        .append(each.getValue());
+      first = false;
+    }
+    sb.append("},\n")
+      .append("  \"parts\": ")
+      .append(parts)
+      .append(",\n")
+      .append("  \"formats\": ")
+      .append(formats)
+      .append(",\n")
+      .append("  \"files\": ")
+      .append(files)
+      .append(",\n")
+      .append("  \"pagesWritten\": ")
+      .append(writtenPages.get())
+      .append(",\n")
+      .append("  \"pagesPruned\": ")
+      .append(prunedPages)
+      .append(",\n")
+      .append("  \"bytesWritten\": ")
+      .append(bytesWritten.get())
+      .append(",\n")
+      .append("  \"unresolvedReferences\": ")
+      .append(unresolvedReferences)
+      .append(",\n")
+      .append("  \"ambiguousReferences\": ")
+      .append(ambiguousReferences)
+      .append(",\n")
+      .append("  \"slowestPages\": [");
+    List<PageTiming> slowest = pageTimings.stream()
+                                          .sorted(Comparator.comparingLong(PageTiming::nanos)
+                                                            .reversed())
+                                          .limit(SLOWEST_PAGES)
+                                          .toList();
+    for (int i = 0; i < slowest.size(); i++) {
+      PageTiming timing = slowest.get(i);
+      sb.append(i == 0
+                ? "\n"
+                : ",\n")
+        .append(String.format("    {\"path\": %s, \"kind\": %s, \"micros\": %d}",
+                              Json.quote(timing.path()),
+                              Json.quote(timing.kind()
+                                               .toString()),
+                              timing.nanos() / 1_000));
+    }
+    return sb.append(slowest.isEmpty()
+                     ? "]\n"
+                     : "\n  ]\n")
+             .append("}\n")
+             .toString();
+  }
+  
+  /**
+   * A finished phase.
+   *
+   * @param name      A name of the phase.
+   * @param wallNanos Elapsed time of the phase.
+   * @param cpuNanos  CPU time of the process during the phase. `-1` if not available.
+   */
+  private record Phase(String name, long wallNanos, long cpuNanos) {
+  }
+  
+  /**
+   * Time spent to render a file of a page and to hand it over to the page writer.
+   *
+   * @param path  A path of the file, relative to the destination.
+   * @param kind  A kind of the element documented by the page.
+   * @param nanos Time spent for the file, in nanoseconds.
+   */
+  private record PageTiming(String path, ElementKind kind, long nanos) {
+  }
+}
@@ -0,0 +1,151 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A search index of documented modules, packages, types, and members, built while pages are built, so that a site
+ * doesn't need to crawl the generated pages.
+ *
+ * Entries are sharded by the first {@value #PREFIX_LENGTH} characters of their names, lower-cased, so that a client
+ * loads only the shard of what a user is typing.
+ * The index is written under {@value #DIRECTORY} in the destination as follows.
+ *
+ * - `index.json`: Fields of an entry, and the number of entries of each shard, such as `{"fields": [...], "shards": {"ge": 12}}`.
+ * - `<prefix>.json`: An array of entries in the shard, sorted by their names. Each entry is an array of the fields.
+ *
+ * Characters other than ASCII letters and digits in a prefix are replaced with `_`.
+ *
+ * This class is not thread-safe.
+ */
+final class SearchIndex {
+  /**
+   * A name of the directory, in which the index is written.
+   */
+  static final String DIRECTORY = "search";
+  /**
+   * The number of characters of names, by which entries are sharded.
+   */
+  static final int PREFIX_LENGTH = 2;
+  private static final List<String> FIELDS = List.of("name", "kind", "owner", "link", "summary");
+  private static final Comparator<Entry> BY_NAME_THEN_LINK = Comparator.comparing(Entry::name)
+                                                                       .thenComparing(Entry::link);
+  
+  private final SortedMap<String, List<Entry>> shards = new TreeMap<>();
+  private int size = 0;
+  
+  /**
+   * Adds entries to this index.
+   *
+   * @param entries Entries to be added.
+   */
+  void addAll(Collection<Entry> entries) {
+    for (Entry each : entries)
+      shards.computeIfAbsent(shardOf(each.name()), k -> new ArrayList<>())
+            .add(each);
+    this.size += entries.size();
+  }
+  
+  /**
+   * Returns the number of entries in this index.
+   *
+   * @return The number of entries.
+   */
+  int size() {
+    return this.size;
+  }
+  
+  /**
+   * Writes this index to {@value #DIRECTORY} in a given sink.
+   *
+   * @param sink A sink to which the index is written.
+   * @throws IOException Failed to write the index.
+   */
+  void writeTo(OutputSink sink) throws IOException {
+    sink.createDirectories(DIRECTORY);
+    for (Map.Entry<String, List<Entry>> each : shards.entrySet()) {
+      List<Entry> entries = each.getValue();
+      entries.sort(BY_NAME_THEN_LINK);
+      sink.write(DIRECTORY + "/" + each.getKey() + ".json", out -> {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write("[");
+        for (int i = 0; i < entries.size(); i++) {
+          Entry entry = entries.get(i);
+          writer.write(i == 0
+                       ? "\n"
+                       : ",\n");
+          writer.write("[" + Json.quote(entry.name()) + "," + Json.quote(entry.kind()) + "," + Json.quote(entry.owner()) + "," + Json.quote(entry.link()) + "," + Json.quote(entry.summary()) + "]");
+        }
+        writer.write("\n]\n");
+        writer.flush();
+      });
+    }
+    sink.write(DIRECTORY + "/index.json", out -> {
+      Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      StringJoiner fields = new StringJoiner(", ", "[", "]");
+      FIELDS.forEach(f -> fields.add(Json.quote(f)));
+      StringJoiner counts = new StringJoiner(", ", "{", "}");
+      shards.forEach((k, v) -> counts.add(Json.quote(k) + ": " + v.size()));
+      writer.write("{\"fields\": " + fields + ", \"shards\": " + counts + "}\n");
+      writer.flush();
+    });
+  }
+  
+  /**
+   * Returns the shard of a name.
+   *
+   * @param name A name of an entry.
+   * @return A prefix of the shard.
+   */
+  static String shardOf(String name) {
+    StringBuilder sb = new StringBuilder(PREFIX_LENGTH);
+    for (int i = 0; i < Math.min(PREFIX_LENGTH, name.length()); i++) {
+      char c = Character.toLowerCase(name.charAt(i));
+      sb.append((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                ? c
+                : '_');
+    }
+    return sb.isEmpty()
+           ? "_"
+           : sb.toString();
+  }
+  
+  /**
+   * Returns a summary of a comment for a search index, which is a given rendered text in a single line.
+   *
+   * @param rendered A rendered first sentence of a comment.
+   * @return A summary.
+   */
+  static String summaryOf(String rendered) {
+    StringBuilder sb = new StringBuilder(rendered.length());
+    boolean space = false;
+    for (int i = 0; i < rendered.length(); i++) {
+      char c = rendered.charAt(i);
+      if (Character.isWhitespace(c)) {
+        space = !sb.isEmpty();
+        continue;
+      }
+      if (space)
+        sb.append(' ');
+      sb.append(c);
+      space = false;
+    }
+    return sb.toString();
+  }
+  
+  /**
+   * An entry of a search index.
+   *
+   * @param name    A name of the element. A simple name for a type or a member, and a qualified name for a module or a
+   *                package.
+   * @param kind    A kind of the element.
+   * @param owner   A qualified name of the element that encloses the element. Empty for a module.
+   * @param link    A link to the page of the element, with an anchor for a member.
+   * @param summary The first sentence of the comment of the element. Empty if it doesn't have one.
+   */
+  record Entry(String name, String kind, String owner, String link, String summary) {
+  }
+}
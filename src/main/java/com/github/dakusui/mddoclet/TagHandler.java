@@ -0,0 +1,87 @@
+package com.github.dakusui.mddoclet;
+
+import com.sun.source.doctree.DocTree;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Renders block tags of a kind, such as `@param` or `@since`, into a page.
+ *
+ * Handlers of `@see`, `@param`, `@return`, `@throws`, `@exception`, `@since`, `@deprecated`, and `@apiNote` are built in.
+ * Other handlers are loaded with {@link java.util.ServiceLoader} from the doclet path.
+ * To add one, implement this interface in a public class with a public constructor without parameters, and list the
+ * class in `META-INF/services/com.github.dakusui.mddoclet.TagHandler`.
+ * A loaded handler replaces a built-in one for the same tag.
+ *
+ * A block tag without a handler is appended to the comment body as it is written.
+ * Handlers are shared among threads and must not have a mutable state.
+ */
+public interface TagHandler {
+  /**
+   * Returns the kind of block tags this handler renders.
+   *
+   * @return A kind of block tags.
+   */
+  DocTree.Kind kind();
+  
+  /**
+   * Returns the names of tags, without `@`, this handler renders if {@link #kind()} is `UNKNOWN_BLOCK_TAG`.
+   * Custom tags, such as `@apiNote`, are parsed as unknown block tags, and they are told from each other by their names.
+   * This method is not called for other kinds.
+   *
+   * @return Names of tags.
+   */
+  default Set<String> tagNames() {
+    return Set.of();
+  }
+  
+  /**
+   * Renders a block tag.
+   *
+   * @param tag     A block tag whose kind is {@link #kind()}.
+   * @param context A context, with which the content of the tag is rendered.
+   * @param out     An `Appendable` to which the tag is rendered.
+   * @throws IOException Thrown by `out`.
+   */
+  void render(DocTree tag, Context context, Appendable out) throws IOException;
+  
+  /**
+   * Renders a tag as an item of the list of block tags, which is `+ **LABEL:** value`.
+   *
+   * @param label A label of the tag.
+   * @param value A rendered value of the tag.
+   * @param out   An `Appendable` to which the item is rendered.
+   * @throws IOException Thrown by `out`.
+   */
+  static void renderItem(String label, String value, Appendable out) throws IOException {
+    out.append("+ **")
+       .append(label)
+       .append(":** ")
+       .append(value)
+       .append(System.lineSeparator());
+  }
+  
+  /**
+   * Functions available to a handler while rendering a tag.
+   */
+  interface Context {
+    /**
+     * Renders nodes in the content of a tag, such as a description, into markdown.
+     * Inline tags such as `{@link}` and `{@code}` are converted in the same way as in a comment body.
+     *
+     * @param content Nodes to be rendered.
+     * @return A rendered markdown text.
+     */
+    String render(List<? extends DocTree> content);
+    
+    /**
+     * Resolves a reference, such as `java.util.List#add(Object)`, to a link to its page.
+     *
+     * @param reference A reference.
+     * @return A link.
+     */
+    String resolve(String reference);
+  }
+}
@@ -0,0 +1,90 @@
+package com.github.dakusui.mddoclet;
+
+import com.sun.source.doctree.DocTree;
+import com.sun.source.doctree.UnknownBlockTagTree;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A registry of {@link TagHandler}s, which looks up a handler of a block tag by its kind, or by its name for an unknown
+ * block tag.
+ *
+ * The registry is built once from the built-in handlers and the ones loaded with {@link ServiceLoader}, and is shared by
+ * all pages through their {@link CommentRenderer}s.
+ */
+final class TagHandlers {
+  private final Map<DocTree.Kind, TagHandler> byKind = new EnumMap<>(DocTree.Kind.class);
+  private final Map<String, TagHandler> unknownBlockTagsByName = new HashMap<>();
+  
+  private TagHandlers(Iterable<? extends TagHandler> handlers) {
+    handlers.forEach(this::register);
+  }
+  
+  /**
+   * Returns a registry of the built-in handlers and the ones on the doclet path.
+   *
+   * @return A registry.
+   */
+  static TagHandlers instance() {
+    return Holder.INSTANCE;
+  }
+  
+  /**
+   * Creates a registry of the built-in handlers and the ones loaded from a given class loader.
+   * Loaded handlers are registered after the built-in ones, so that they replace the built-in ones.
+   *
+   * @param classLoader A class loader from which handlers are loaded with {@link ServiceLoader}.
+   * @return A new registry.
+   */
+  static TagHandlers load(ClassLoader classLoader) {
+    List<TagHandler> handlers = new ArrayList<>(List.of(BuiltInTagHandler.values()));
+    ServiceLoader.load(TagHandler.class, classLoader)
+                 .forEach(handlers::add);
+    return new TagHandlers(handlers);
+  }
+  
+  private void register(TagHandler handler) {
+    if (handler.kind() == DocTree.Kind.UNKNOWN_BLOCK_TAG)
+      handler.tagNames()
+             .forEach(name -> unknownBlockTagsByName.put(name, handler));
+    else
+      byKind.put(handler.kind(), handler);
+  }
+  
+  /**
+   * Checks if a block tag has a handler.
+   *
+   * @param tag A block tag.
+   * @return `true` if `tag` is rendered by a handler.
+   */
+  boolean handles(DocTree tag) {
+    return handlerOf(tag) != null;
+  }
+  
+  /**
+   * Renders a block tag with its handler. If it doesn't have one, nothing is rendered.
+   *
+   * @param tag     A block tag.
+   * @param context A context given to the handler.
+   * @param out     An `Appendable` to which the tag is rendered.
+   * @throws IOException Thrown by `out`.
+   */
+  void render(DocTree tag, TagHandler.Context context, Appendable out) throws IOException {
+    TagHandler handler = handlerOf(tag);
+    if (handler != null)
+      handler.render(tag, context, out);
+  }
+  
+  private TagHandler handlerOf(DocTree tag) {
+    if (tag instanceof UnknownBlockTagTree unknownBlockTagTree)
+      return unknownBlockTagsByName.get(unknownBlockTagTree.getTagName());
+    return byKind.get(tag.getKind());
+  }
+  
+  private enum Holder {
+    ;
+    
+    private static final TagHandlers INSTANCE = load(TagHandler.class.getClassLoader());
+  }
+}
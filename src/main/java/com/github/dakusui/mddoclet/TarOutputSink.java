@@ -0,0 +1,163 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An output sink that streams files into a tar archive in the POSIX (ustar) format.
+ *
+ * Since a tar header has the size of its entry, the content of a file is rendered into memory first, and then the
+ * header and the content are written to the stream.
+ * Paths too long for a ustar header are recorded in PAX extended headers.
+ */
+final class TarOutputSink implements OutputSink {
+  private static final int BLOCK_SIZE = 512;
+  private static final byte TYPE_FILE = '0';
+  private static final byte TYPE_DIRECTORY = '5';
+  private static final byte TYPE_PAX_HEADER = 'x';
+  
+  private final OutputStream out;
+  private final boolean closeStream;
+  private final long modificationTime = System.currentTimeMillis() / 1000;
+  private final Set<String> directories = new HashSet<>();
+  
+  /**
+   * Creates an instance of this class.
+   *
+   * @param out         A stream to which the archive is written.
+   * @param closeStream `true` if `out` is closed when this sink is closed. Otherwise, it is only flushed.
+   */
+  TarOutputSink(OutputStream out, boolean closeStream) {
+    this.out = out;
+    this.closeStream = closeStream;
+  }
+  
+  @Override
+  public synchronized boolean createDirectories(String path) throws IOException {
+    boolean ret = false;
+    if (path.isEmpty())
+      return false;
+    for (int i = path.indexOf('/'); ; i = path.indexOf('/', i + 1)) {
+      String directory = i < 0
+                         ? path
+                         : path.substring(0, i);
+      if (directories.add(directory)) {
+        writeEntry(directory + "/", TYPE_DIRECTORY, new byte[0]);
+        ret = true;
+      }
+      if (i < 0)
+        return ret;
+    }
+  }
+  
+  @Override
+  public long write(String path, Content content) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    content.writeTo(buffer);
+    byte[] bytes = buffer.toByteArray();
+    synchronized (this) {
+      writeEntry(path, TYPE_FILE, bytes);
+    }
+    return bytes.length;
+  }
+  
+  private void writeEntry(String path, byte type, byte[] content) throws IOException {
+    byte[] name = path.getBytes(StandardCharsets.UTF_8);
+    int split = splitPoint(name);
+    if (split < 0) {
+      byte[] record = paxRecord("path", path);
+      writeHeader(Arrays.copyOf(("PaxHeaders/" + Math.abs(path.hashCode())).getBytes(StandardCharsets.UTF_8), 100),
+                  new byte[0],
+                  TYPE_PAX_HEADER,
+                  record.length);
+      writeContent(record);
+      writeHeader(Arrays.copyOf(name, 100), new byte[0], type, content.length);
+    } else {
+      writeHeader(Arrays.copyOfRange(name, split == 0
+                                           ? 0
+                                           : split + 1, name.length),
+                  Arrays.copyOf(name, split),
+                  type,
+                  content.length);
+    }
+    writeContent(content);
+  }
+  
+  /**
+   * Finds a position of a `/` at which a name is split into the prefix and the name fields of a ustar header.
+   *
+   * @return `0` if the name fits in the name field, the position of the `/`, or `-1` if the name doesn't fit.
+   */
+  private static int splitPoint(byte[] name) {
+    if (name.length <= 100)
+      return 0;
+    for (int i = Math.min(name.length - 1, 155); i > 0; i--) {
+      if (name[i] == '/' && name.length - i - 1 <= 100 && name.length - i - 1 > 0)
+        return i;
+    }
+    return -1;
+  }
+  
+  private static byte[] paxRecord(String key, String value) {
+    // A record is "<length> <key>=<value>\n", where <length> is the length of the whole record including itself.
+    int length = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+    int digits = Integer.toString(length).length();
+    while (Integer.toString(length + digits).length() != digits)
+      digits++;
+    return ((length + digits) + " " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+  }
+  
+  private void writeHeader(byte[] name, byte[] prefix, byte type, long size) throws IOException {
+    byte[] header = new byte[BLOCK_SIZE];
+    System.arraycopy(name, 0, header, 0, Math.min(name.length, 100));
+    putOctal(header, 100, 8, type == TYPE_DIRECTORY
+                             ? 0755
+                             : 0644);
+    putOctal(header, 108, 8, 0);
+    putOctal(header, 116, 8, 0);
+    putOctal(header, 124, 12, size);
+    putOctal(header, 136, 12, modificationTime);
+    Arrays.fill(header, 148, 156, (byte) ' ');
+    header[156] = type;
+    System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+    System.arraycopy(prefix, 0, header, 345, Math.min(prefix.length, 155));
+    long checksum = 0;
+    for (byte each : header)
+      checksum += each & 0xff;
+    putOctal(header, 148, 7, checksum);
+    out.write(header);
+  }
+  
+  private static void putOctal(byte[] header, int offset, int length, long value) {
+    String octal = Long.toOctalString(value);
+    String padded = "0".repeat(Math.max(0, length - 1 - octal.length())) + octal;
+    System.arraycopy(padded.getBytes(StandardCharsets.US_ASCII), 0, header, offset, length - 1);
+    header[offset + length - 1] = 0;
+  }
+  
+  private void writeContent(byte[] content) throws IOException {
+    out.write(content);
+    int padding = (BLOCK_SIZE - content.length % BLOCK_SIZE) % BLOCK_SIZE;
+    out.write(new byte[padding]);
+  }
+  
+  @Override
+  public synchronized void close() throws IOException {
+    // An archive ends with two blocks filled with zeros.
+    out.write(new byte[BLOCK_SIZE * 2]);
+    if (closeStream)
+      out.close();
+    else
+      out.flush();
+  }
+  
+  @Override
+  public String toString() {
+    return "tar stream";
+  }
+}
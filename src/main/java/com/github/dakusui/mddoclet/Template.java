@@ -0,0 +1,281 @@
+package com.github.dakusui.mddoclet;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A page template compiled into a sequence of literal segments, slots, and sections.
+ *
+ * A template is markdown with the following tags.
+ *
+ * - `{{name}}`: A slot, which is replaced with a value.
+ * - `{{#name}}...{{/name}}`: A section, which is rendered if a value is present, `true`, or not empty. If the value is a
+ * list, the section is rendered for each element of it, and names in the section refer to the element.
+ * - `{{^name}}...{{/name}}`: An inverted section, which is rendered if the value is absent, `false`, or empty.
+ * - `{{! comment}}`: A comment, which is not rendered.
+ *
+ * A line that has only a section tag or a comment is removed entirely, so that a tag can be written on its own line.
+ * Line breaks in a template are rendered as the line separator of the platform.
+ *
+ * Names are checked against a {@link Schema} when a template is compiled, so that a typo is reported before rendering
+ * any page.
+ */
+final class Template {
+  private static final String NEWLINE = String.format("%n");
+  private static final String OPEN = "{{";
+  private static final String CLOSE = "}}";
+  
+  private final List<Segment> segments;
+  
+  private Template(List<Segment> segments) {
+    this.segments = segments;
+  }
+  
+  /**
+   * Compiles a template.
+   *
+   * @param source A source of the template.
+   * @param schema Names available in the template.
+   * @return A compiled template.
+   * @throws IllegalArgumentException If the template has a syntax error or an unknown name.
+   */
+  static Template compile(String source, Schema schema) {
+    List<Token> tokens = removeStandaloneLines(tokenize(source.replace("\r\n", "\n")));
+    Deque<Section> open = new ArrayDeque<>();
+    Deque<List<Segment>> containers = new ArrayDeque<>();
+    Deque<Schema> schemas = new ArrayDeque<>();
+    containers.push(new ArrayList<>());
+    schemas.push(schema);
+    for (Token each : tokens) {
+      switch (each.type()) {
+        case LITERAL -> {
+          if (!each.text()
+                   .isEmpty())
+            containers.peek()
+                      .add(new Literal(each.text()
+                                           .replace("\n", NEWLINE)));
+        }
+        case SLOT -> {
+          if (!schemas.peek()
+                      .values()
+                      .contains(each.text()))
+            throw new IllegalArgumentException("Unknown name: {{" + each.text() + "}} (available: " + schemas.peek()
+                                                                                                         .values() + ")");
+          containers.peek()
+                    .add(new Slot(each.text()));
+        }
+        case SECTION, INVERTED_SECTION -> {
+          Schema current = schemas.peek();
+          Schema inner = current.lists()
+                                .get(each.text());
+          if (inner == null && !current.values()
+                                       .contains(each.text()))
+            throw new IllegalArgumentException("Unknown name: {{" + (each.type() == TokenType.SECTION
+                                                                      ? "#"
+                                                                      : "^") + each.text() + "}}");
+          Section section = new Section(each.text(), each.type() == TokenType.INVERTED_SECTION, new ArrayList<>());
+          containers.peek()
+                    .add(section);
+          open.push(section);
+          containers.push(section.segments());
+          // An inverted section is rendered only when a list is empty, so names of its elements are not available.
+          schemas.push(inner != null && section.inverted()
+                       ? current
+                       : inner != null
+                         ? inner
+                         : current);
+        }
+        case END_SECTION -> {
+          if (open.isEmpty() || !open.peek()
+                                     .name()
+                                     .equals(each.text()))
+            throw new IllegalArgumentException("Unexpected {{/" + each.text() + "}}" + (open.isEmpty()
+                                                                                         ? ""
+                                                                                         : ", expected {{/" + open.peek()
+                                                                                                                  .name() + "}}"));
+          open.pop();
+          containers.pop();
+          schemas.pop();
+        }
+        case COMMENT -> {
+        }
+      }
+    }
+    if (!open.isEmpty())
+      throw new IllegalArgumentException("Unclosed section: {{#" + open.peek()
+                                                                      .name() + "}}");
+    return new Template(List.copyOf(containers.pop()));
+  }
+  
+  /**
+   * Renders this template.
+   *
+   * @param scope A scope from which values of names are taken.
+   * @param out   An `Appendable` to which this template is rendered.
+   * @throws IOException Thrown by `out`.
+   */
+  void render(Scope scope, Appendable out) throws IOException {
+    render(this.segments, scope, out);
+  }
+  
+  private static void render(List<Segment> segments, Scope scope, Appendable out) throws IOException {
+    for (Segment each : segments) {
+      switch (each) {
+        case Literal literal -> out.append(literal.text());
+        case Slot slot -> {
+          Object value = scope.get(slot.name());
+          if (value != null)
+            out.append(value instanceof CharSequence s
+                       ? s
+                       : String.valueOf(value));
+        }
+        case Section section -> {
+          Object value = scope.get(section.name());
+          if (section.inverted()) {
+            if (!isTruthy(value))
+              render(section.segments(), scope, out);
+          } else if (value instanceof List<?> list) {
+            for (Object element : list)
+              render(section.segments(), (Scope) element, out);
+          } else if (isTruthy(value)) {
+            render(section.segments(), scope, out);
+          }
+        }
+      }
+    }
+  }
+  
+  private static boolean isTruthy(Object value) {
+    return switch (value) {
+      case null -> false;
+      case Boolean b -> b;
+      case CharSequence s -> !s.isEmpty();
+      case List<?> list -> !list.isEmpty();
+      default -> true;
+    };
+  }
+  
+  private static List<Token> tokenize(String source) {
+    List<Token> ret = new ArrayList<>();
+    int i = 0;
+    int open;
+    while ((open = source.indexOf(OPEN, i)) >= 0) {
+      int close = source.indexOf(CLOSE, open + OPEN.length());
+      if (close < 0)
+        throw new IllegalArgumentException("Unclosed tag at offset " + open);
+      ret.add(new Token(TokenType.LITERAL, source.substring(i, open)));
+      String tag = source.substring(open + OPEN.length(), close)
+                         .strip();
+      if (tag.isEmpty())
+        throw new IllegalArgumentException("Empty tag at offset " + open);
+      ret.add(switch (tag.charAt(0)) {
+        case '#' -> new Token(TokenType.SECTION, tag.substring(1)
+                                                    .strip());
+        case '^' -> new Token(TokenType.INVERTED_SECTION, tag.substring(1)
+                                                             .strip());
+        case '/' -> new Token(TokenType.END_SECTION, tag.substring(1)
+                                                        .strip());
+        case '!' -> new Token(TokenType.COMMENT, tag);
+        default -> new Token(TokenType.SLOT, tag);
+      });
+      i = close + CLOSE.length();
+    }
+    ret.add(new Token(TokenType.LITERAL, source.substring(i)));
+    return ret;
+  }
+  
+  /**
+   * Removes the indentation and the line break around a tag that is on a line by itself, unless the tag is a slot.
+   * Tokens alternate between literals and tags, starting and ending with a literal.
+   */
+  private static List<Token> removeStandaloneLines(List<Token> tokens) {
+    boolean[] standalone = new boolean[tokens.size()];
+    for (int i = 1; i < tokens.size() - 1; i += 2)
+      standalone[i] = isStandalone(tokens, i);
+    List<Token> ret = new ArrayList<>(tokens.size());
+    for (int i = 0; i < tokens.size(); i++) {
+      Token each = tokens.get(i);
+      if (each.type() != TokenType.LITERAL) {
+        ret.add(each);
+        continue;
+      }
+      String text = each.text();
+      int begin = i > 0 && standalone[i - 1]
+                  ? text.indexOf('\n') + 1
+                  : 0;
+      int end = i < tokens.size() - 1 && standalone[i + 1]
+                ? text.lastIndexOf('\n') + 1
+                : text.length();
+      ret.add(new Token(TokenType.LITERAL, begin < end
+                                           ? text.substring(begin, end)
+                                           : ""));
+    }
+    return ret;
+  }
+  
+  private static boolean isStandalone(List<Token> tokens, int index) {
+    if (tokens.get(index)
+              .type() == TokenType.SLOT)
+      return false;
+    String before = tokens.get(index - 1)
+                          .text();
+    String after = tokens.get(index + 1)
+                         .text();
+    int lineStart = before.lastIndexOf('\n') + 1;
+    int lineEnd = after.indexOf('\n');
+    if (lineStart == 0 && index > 1 || lineEnd < 0 && index < tokens.size() - 2)
+      return false;
+    return before.substring(lineStart)
+                 .isBlank() && after.substring(0, lineEnd >= 0
+                                                  ? lineEnd
+                                                  : after.length())
+                                    .isBlank();
+  }
+  
+  /**
+   * Values of names available while rendering a template.
+   */
+  @FunctionalInterface
+  interface Scope {
+    /**
+     * Returns the value of a name.
+     *
+     * @param name A name in a template.
+     * @return A `CharSequence`, a `Boolean`, a `List` of `Scope`s, or `null` if absent.
+     */
+    Object get(String name);
+  }
+  
+  /**
+   * Names available in a template.
+   *
+   * @param values Names of strings and booleans.
+   * @param lists  Names of lists, mapped to names available in their elements.
+   */
+  record Schema(Set<String> values, Map<String, Schema> lists) {
+  }
+  
+  private enum TokenType {
+    LITERAL,
+    SLOT,
+    SECTION,
+    INVERTED_SECTION,
+    END_SECTION,
+    COMMENT
+  }
+  
+  private record Token(TokenType type, String text) {
+  }
+  
+  private sealed interface Segment permits Literal, Slot, Section {
+  }
+  
+  private record Literal(String text) implements Segment {
+  }
+  
+  private record Slot(String name) implements Segment {
+  }
+  
+  private record Section(String name, boolean inverted, List<Segment> segments) implements Segment {
+  }
+}
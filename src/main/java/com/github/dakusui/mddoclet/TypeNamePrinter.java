@@ -0,0 +1,154 @@
+package com.github.dakusui.mddoclet;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.*;
+import javax.lang.model.util.SimpleTypeVisitor14;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.github.dakusui.mddoclet.MdDoclet.typeNameOf;
+
+/**
+ * Prints types with simple names, such as `Map<String,List<Manifest.Page>>` for
+ * `java.util.Map<java.lang.String,java.util.List<com.github.dakusui.mddoclet.Manifest.Page>>`.
+ *
+ * A declared type is printed with the names of its enclosing types, but without its package.
+ * Type arguments, wildcard bounds, array components, and type annotations are printed in the same way.
+ * Names are printed without links, since templates put a printed type in a code span, such as `` `{{returnType}}` ``,
+ * where neither markdown nor the other formats render a link.
+ *
+ * Since the same types appear in many members, printed names are cached by their fully qualified forms.
+ * The cache is as large as the number of distinct types in a run, so an instance is created for a run of the doclet,
+ * and can be shared by pages rendered on multiple threads.
+ */
+final class TypeNamePrinter {
+  private final Map<String, String> cache = new ConcurrentHashMap<>();
+  private final Visitor visitor = new Visitor();
+  
+  /**
+   * Creates an instance of this class with an empty cache.
+   */
+  TypeNamePrinter() {
+  }
+  
+  /**
+   * Prints a type with simple names.
+   *
+   * @param type A type to be printed.
+   * @return A printed type.
+   */
+  String print(TypeMirror type) {
+    return cache.computeIfAbsent(type.toString(), k -> type.accept(visitor, new StringBuilder())
+                                                           .toString());
+  }
+  
+  /**
+   * Returns the number of printed types in the cache.
+   *
+   * @return The number of cached types.
+   */
+  int cachedTypes() {
+    return cache.size();
+  }
+  
+  private static final class Visitor extends SimpleTypeVisitor14<StringBuilder, StringBuilder> {
+    @Override
+    protected StringBuilder defaultAction(TypeMirror type, StringBuilder sb) {
+      return annotations(type, sb).append(type);
+    }
+    
+    @Override
+    public StringBuilder visitPrimitive(PrimitiveType type, StringBuilder sb) {
+      return annotations(type, sb).append(type.getKind()
+                                              .name()
+                                              .toLowerCase());
+    }
+    
+    @Override
+    public StringBuilder visitNoType(NoType type, StringBuilder sb) {
+      return sb.append(type.getKind() == TypeKind.VOID
+                       ? "void"
+                       : type.getKind()
+                             .name()
+                             .toLowerCase());
+    }
+    
+    @Override
+    public StringBuilder visitDeclared(DeclaredType type, StringBuilder sb) {
+      annotations(type, sb).append(typeNameOf((TypeElement) type.asElement()));
+      return typeArguments(type.getTypeArguments(), sb);
+    }
+    
+    @Override
+    public StringBuilder visitError(ErrorType type, StringBuilder sb) {
+      return annotations(type, sb).append(type.asElement()
+                                              .getSimpleName());
+    }
+    
+    @Override
+    public StringBuilder visitArray(ArrayType type, StringBuilder sb) {
+      type.getComponentType()
+          .accept(this, sb);
+      // An annotation of an array type comes before its brackets, such as `String @NonNull []`.
+      if (!type.getAnnotationMirrors()
+               .isEmpty())
+        annotations(type, sb.append(" "));
+      return sb.append("[]");
+    }
+    
+    @Override
+    public StringBuilder visitTypeVariable(TypeVariable type, StringBuilder sb) {
+      return annotations(type, sb).append(type.asElement()
+                                              .getSimpleName());
+    }
+    
+    @Override
+    public StringBuilder visitWildcard(WildcardType type, StringBuilder sb) {
+      annotations(type, sb).append("?");
+      if (type.getExtendsBound() != null)
+        type.getExtendsBound()
+            .accept(this, sb.append(" extends "));
+      if (type.getSuperBound() != null)
+        type.getSuperBound()
+            .accept(this, sb.append(" super "));
+      return sb;
+    }
+    
+    @Override
+    public StringBuilder visitIntersection(IntersectionType type, StringBuilder sb) {
+      return join(type.getBounds(), " & ", sb);
+    }
+    
+    @Override
+    public StringBuilder visitUnion(UnionType type, StringBuilder sb) {
+      return join(type.getAlternatives(), " | ", sb);
+    }
+    
+    private StringBuilder typeArguments(List<? extends TypeMirror> typeArguments, StringBuilder sb) {
+      if (typeArguments.isEmpty())
+        return sb;
+      return join(typeArguments, ",", sb.append("<")).append(">");
+    }
+    
+    private StringBuilder join(List<? extends TypeMirror> types, String delimiter, StringBuilder sb) {
+      for (int i = 0; i < types.size(); i++) {
+        if (i > 0)
+          sb.append(delimiter);
+        types.get(i)
+             .accept(this, sb);
+      }
+      return sb;
+    }
+    
+    private static StringBuilder annotations(TypeMirror type, StringBuilder sb) {
+      for (AnnotationMirror each : type.getAnnotationMirrors())
+        sb.append("@")
+          .append(typeNameOf((TypeElement) each.getAnnotationType()
+                                               .asElement()))
+          .append(" ");
+      return sb;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.github.dakusui.mddoclet;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Levels of messages this doclet reports through the `Reporter`.
+ * Errors are always reported regardless of the level.
+ */
+enum Verbosity {
+  /**
+   * Reports nothing but errors.
+   */
+  QUIET,
+  /**
+   * Reports a compact summary at the end of a run.
+   */
+  SUMMARY,
+  /**
+   * Reports every page and directory this doclet produces, in addition to the summary.
+   */
+  DEBUG;
+  
+  /**
+   * Checks if a message of a given level should be reported under this verbosity.
+   *
+   * @param level A level of a message.
+   * @return `true` if the message should be reported.
+   */
+  boolean reports(Verbosity level) {
+    return this.compareTo(level) >= 0;
+  }
+  
+  /**
+   * Returns a verbosity whose name is `name`, ignoring the case.
+   *
+   * @param name A name of a verbosity.
+   * @return A verbosity or an empty optional if none matches.
+   */
+  static Optional<Verbosity> fromName(String name) {
+    for (Verbosity each : values()) {
+      if (each.name()
+              .equals(name.toUpperCase(Locale.ROOT)))
+        return Optional.of(each);
+    }
+    return Optional.empty();
+  }
+}
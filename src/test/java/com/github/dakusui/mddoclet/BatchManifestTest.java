@@ -0,0 +1,100 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BatchManifestTest extends TestBase {
+  @Test
+  public void givenProjects_whenReadFrom_thenCommonOptionsAndProjectsInOrder() throws IOException {
+    File file = createManifest("""
+                                   # Common options
+                                   -encoding UTF-8
+
+                                   [billing]
+                                   -d docs/billing
+                                   -incremental
+                                   -target-packages .*#com\\.example\\..*
+                                   [ shipping ]
+                                   -d docs/shipping
+                                   com.example.shipping
+                                   """);
+    
+    BatchManifest manifest = BatchManifest.readFrom(file);
+    
+    assertStatement(objectValue(manifest)
+        .then()
+        .isEqualTo(new BatchManifest(List.of("-encoding", "UTF-8"),
+                                     List.of(new BatchManifest.Project("billing", List.of("-d", "docs/billing",
+                                                                                          "-incremental",
+                                                                                          "-target-packages", ".*#com\\.example\\..*")),
+                                             new BatchManifest.Project("shipping", List.of("-d", "docs/shipping",
+                                                                                           "com.example.shipping"))))));
+  }
+  
+  @Test
+  public void givenArgumentWithSpaces_whenReadFrom_thenSplitOnlyOnFirstWhitespace() throws IOException {
+    File file = createManifest("""
+                                   [app]
+                                     -doctitle   My   Project  Title
+                                   -header\tA\tB
+                                   """);
+    
+    assertStatement(objectValue(BatchManifest.readFrom(file)
+                                             .projects()
+                                             .getFirst()
+                                             .options())
+        .then()
+        .isEqualTo(List.of("-doctitle", "My   Project  Title",
+                           "-header", "A\tB")));
+  }
+  
+  @Test
+  public void givenMalformedProjectName_whenReadFrom_thenIOException() throws IOException {
+    assertStatement(objectValue(readError("[app\n-d docs\n"))
+        .then()
+        .isEqualTo(":1: Malformed project name: [app"));
+    assertStatement(objectValue(readError("-quiet\n[ ]\n"))
+        .then()
+        .isEqualTo(":2: Malformed project name: [ ]"));
+  }
+  
+  @Test
+  public void givenDuplicateProject_whenReadFrom_thenIOException() throws IOException {
+    assertStatement(objectValue(readError("[app]\n-d a\n[app]\n-d b\n"))
+        .then()
+        .isEqualTo(":3: Duplicate project: app"));
+  }
+  
+  @Test
+  public void givenNoProject_whenReadFrom_thenIOException() throws IOException {
+    assertStatement(objectValue(readError("# Only common options\n-quiet\n"))
+        .then()
+        .isEqualTo(": No project is found"));
+  }
+  
+  /**
+   * Reads a manifest that has an error, and returns the message without the file name.
+   */
+  private static String readError(String content) throws IOException {
+    File file = createManifest(content);
+    return assertThrows(IOException.class, () -> BatchManifest.readFrom(file)).getMessage()
+                                                                              .substring(file.toString()
+                                                                                             .length());
+  }
+  
+  private static File createManifest(String content) throws IOException {
+    File ret = File.createTempFile("batch", ".txt");
+    ret.deleteOnExit();
+    Files.writeString(ret.toPath(), content);
+    return ret;
+  }
+}
@@ -0,0 +1,68 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import static com.github.dakusui.mddoclet.CommentRendererTest.docCommentTreeOf;
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+
+public class BuiltInTagHandlerTest extends TestBase {
+  @Test
+  public void givenBuiltInTags_whenRenderBlockTags_thenItemsInOrder() {
+    assertStatement(objectValue(renderBlockTags("Body.",
+                                                "@param a The first {@code int}.",
+                                                "@param <T> A type.",
+                                                "@return {@link Sample#MAX The maximum}.",
+                                                "@throws IllegalStateException If broken.",
+                                                "@exception java.io.IOException If failed.",
+                                                "@since 1.0",
+                                                "@deprecated Use {@link Sample} instead.",
+                                                "@apiNote Not thread-safe."))
+        .then()
+        .isEqualTo(lines("+ **PARAM:** `a` The first `int`.",
+                         "+ **PARAM:** `<T>` A type.",
+                         "+ **RETURN:** [The maximum](/base/Sample#MAX).",
+                         "+ **THROWS:** `IllegalStateException` If broken.",
+                         "+ **THROWS:** `java.io.IOException` If failed.",
+                         "+ **SINCE:** 1.0",
+                         "+ **DEPRECATED:** Use [`Sample`](/base/Sample) instead.",
+                         "+ **API NOTE:** Not thread-safe.")));
+  }
+  
+  @Test
+  public void givenSeeTags_whenRenderBlockTags_thenLinksOrTextAsWritten() {
+    assertStatement(objectValue(renderBlockTags("Body.",
+                                                "@see Sample#MAX",
+                                                "@see Sample the sample",
+                                                "@see \"A book\""))
+        .then()
+        .isEqualTo(lines("+ **SEE:** [`Sample#MAX`](/base/Sample#MAX)",
+                         "+ **SEE:** [the sample](/base/Sample)",
+                         "+ **SEE:** \"A book\"")));
+  }
+  
+  @Test
+  public void givenEmptyDescriptions_whenRenderBlockTags_thenToBeDetermined() {
+    assertStatement(objectValue(renderBlockTags("Body.",
+                                                "@param a",
+                                                "@return",
+                                                "@throws IllegalStateException",
+                                                "@since",
+                                                "@apiNote"))
+        .then()
+        .isEqualTo(lines("+ **PARAM:** `a` t.b.d.",
+                         "+ **RETURN:** t.b.d.",
+                         "+ **THROWS:** `IllegalStateException` t.b.d.",
+                         "+ **SINCE:** t.b.d.",
+                         "+ **API NOTE:** t.b.d.")));
+  }
+  
+  private static String renderBlockTags(String... commentLines) {
+    return new CommentRenderer(reference -> "/base/" + reference).renderBlockTags(docCommentTreeOf(commentLines));
+  }
+  
+  private static String lines(String... lines) {
+    return String.join(System.lineSeparator(), lines) + System.lineSeparator();
+  }
+}
@@ -0,0 +1,129 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import com.sun.source.doctree.DocCommentTree;
+import com.sun.source.util.DocTrees;
+import com.sun.source.util.JavacTask;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.List;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+
+public class CommentRendererTest extends TestBase {
+  @Test
+  public void givenLinks_whenRender_thenMarkdownLinks() {
+    assertStatement(objectValue(render("See {@link Sample#MAX}, {@link Sample#MAX the maximum}, and {@linkplain Sample}."))
+        .then()
+        .isEqualTo("See [`Sample#MAX`](/base/Sample#MAX), [the maximum](/base/Sample#MAX), and [Sample](/base/Sample)."));
+  }
+  
+  @Test
+  public void givenLinkWithoutReference_whenRender_thenEmittedAsItIs() {
+    assertStatement(objectValue(render("Mentions {@link} tags."))
+        .then()
+        .isEqualTo("Mentions {@link} tags."));
+  }
+  
+  @Test
+  public void givenCodeAndLiteral_whenRender_thenCodeSpanAndText() {
+    assertStatement(objectValue(render("Returns {@code a < b} if {@literal a < b}."))
+        .then()
+        .isEqualTo("Returns `a < b` if a < b."));
+    assertStatement(objectValue(render("Mentions {@code} tags."))
+        .then()
+        .isEqualTo("Mentions {@code} tags."));
+  }
+  
+  @Test
+  public void givenValue_whenRender_thenReferenceInCodeSpan() {
+    assertStatement(objectValue(render("The maximum is {@value Sample#MAX}."))
+        .then()
+        .isEqualTo("The maximum is `Sample#MAX`."));
+    assertStatement(objectValue(render("A constant, whose value is {@value}."))
+        .then()
+        .isEqualTo("A constant, whose value is {@value}."));
+  }
+  
+  @Test
+  public void givenUnknownInlineTag_whenRender_thenEmittedAsItIs() {
+    assertStatement(objectValue(render("Uses {@custom some text} here."))
+        .then()
+        .isEqualTo("Uses {@custom some text} here."));
+  }
+  
+  @Test
+  public void givenEntities_whenRender_thenKept() {
+    assertStatement(objectValue(render("A &lt;tag&gt; &amp; more."))
+        .then()
+        .isEqualTo("A &lt;tag&gt; &amp; more."));
+  }
+  
+  @Test
+  public void givenPre_whenRender_thenHtmlIsKept() {
+    assertStatement(objectValue(render("Example:", "<pre>", "int a = 1;", "</pre>"))
+        .then()
+        .isEqualTo(String.join(System.lineSeparator(),
+                               "Example:",
+                               " <pre>",
+                               " int a = 1;",
+                               " </pre>")));
+  }
+  
+  @Test
+  public void givenIndentedCodeFence_whenRender_thenIndentationIsRemoved() {
+    assertStatement(objectValue(render("Example:", "```java", "int a = 1;", "```"))
+        .then()
+        .isEqualTo(String.join(System.lineSeparator(),
+                               "Example:",
+                               "```java",
+                               " int a = 1;",
+                               "```")));
+  }
+  
+  /**
+   * Compiles a class whose comment consists of given lines, and renders the comment.
+   */
+  private static String render(String... commentLines) {
+    return new CommentRenderer(reference -> "/base/" + reference).render(docCommentTreeOf(commentLines));
+  }
+  
+  /**
+   * Compiles a class `Sample`, which has a constant `MAX`, and whose comment consists of given lines.
+   *
+   * @param commentLines Lines of the comment.
+   * @return The comment tree of the class.
+   */
+  static DocCommentTree docCommentTreeOf(String... commentLines) {
+    String source = "/**\n * " + String.join("\n * ", commentLines) + "\n */\n"
+                    + "public class Sample {\n"
+                    + "  public static final int MAX = 1;\n"
+                    + "}\n";
+    JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///Sample.java"), JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return source;
+      }
+    };
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    JavacTask task = (JavacTask) compiler.getTask(null, null, null, List.of("-proc:none"), null, List.of(file));
+    try {
+      TypeElement type = (TypeElement) task.analyze()
+                                           .iterator()
+                                           .next();
+      return DocTrees.instance(task)
+                     .getDocCommentTree(type);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
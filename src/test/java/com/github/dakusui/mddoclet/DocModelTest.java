@@ -0,0 +1,176 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.ElementKind;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.stringValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DocModelTest extends TestBase {
+  @Test
+  public void givenWrittenModel_whenReadFrom_thenEqual() throws IOException {
+    File file = createTempFile();
+    DocModel model = createModel();
+    model.writeTo(file);
+    
+    assertStatement(objectValue(DocModel.readFrom(file))
+        .then()
+        .isEqualTo(model));
+  }
+  
+  @Test
+  public void givenBadMagic_whenReadFrom_thenIOException() throws IOException {
+    File file = createTempFile();
+    Files.writeString(file.toPath(), "MDDX and more");
+    
+    IOException e = assertThrows(IOException.class, () -> DocModel.readFrom(file));
+    assertStatement(stringValue(e.getMessage())
+        .then()
+        .startsWith("Not a model cache file"));
+  }
+  
+  @Test
+  public void givenBadVersion_whenReadFrom_thenIOException() throws IOException {
+    File file = createTempFile();
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file.toPath()))) {
+      out.writeBytes("MDDM");
+      out.writeInt(0);
+    }
+    
+    IOException e = assertThrows(IOException.class, () -> DocModel.readFrom(file));
+    assertStatement(stringValue(e.getMessage())
+        .then()
+        .startsWith("Unsupported version"));
+  }
+  
+  @Test
+  public void givenTruncatedModel_whenReadFrom_thenIOException() throws IOException {
+    File file = createTempFile();
+    createModel().writeTo(file);
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 10));
+    
+    IOException e = assertThrows(IOException.class, () -> DocModel.readFrom(file));
+    assertStatement(stringValue(e.getMessage())
+        .then()
+        .startsWith("Broken model cache file"));
+  }
+  
+  @Test
+  public void givenFileShorterThanMagic_whenReadFrom_thenIOException() throws IOException {
+    File file = createTempFile();
+    Files.writeString(file.toPath(), "MDD");
+    
+    IOException e = assertThrows(IOException.class, () -> DocModel.readFrom(file));
+    assertStatement(stringValue(e.getMessage())
+        .then()
+        .startsWith("Broken model cache file"));
+  }
+  
+  @Test
+  public void givenLengthBeyondEndOfFile_whenReadFrom_thenIOException() throws IOException {
+    File file = createTempFile();
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file.toPath()))) {
+      out.writeBytes("MDDM");
+      out.writeInt(DocModel.VERSION);
+      // One type, whose qualified name claims to be almost 2GB long.
+      out.writeInt(1);
+      out.writeInt(Integer.MAX_VALUE - 8);
+    }
+    
+    IOException e = assertThrows(IOException.class, () -> DocModel.readFrom(file));
+    assertStatement(stringValue(e.getMessage())
+        .then()
+        .startsWith("Broken model cache file"));
+  }
+  
+  @Test
+  public void givenSizeBeyondEndOfFile_whenReadFrom_thenIOException() throws IOException {
+    File file = createTempFile();
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file.toPath()))) {
+      out.writeBytes("MDDM");
+      out.writeInt(DocModel.VERSION);
+      out.writeInt(Integer.MAX_VALUE);
+    }
+    
+    IOException e = assertThrows(IOException.class, () -> DocModel.readFrom(file));
+    assertStatement(stringValue(e.getMessage())
+        .then()
+        .startsWith("Broken model cache file"));
+  }
+  
+  private static File createTempFile() throws IOException {
+    File ret = File.createTempFile("model", ".bin");
+    ret.deleteOnExit();
+    return ret;
+  }
+  
+  private static DocModel createModel() {
+    LinkIndex.Type type = new LinkIndex.Type("org.example.Point",
+                                             "Point",
+                                             "Point",
+                                             "m/org.example/Point",
+                                             List.of(new LinkIndex.Member(ElementKind.CONSTRUCTOR, "<init>", "(double,double)"),
+                                                     new LinkIndex.Member(ElementKind.METHOD, "distance", "(Point)"),
+                                                     new LinkIndex.Member(ElementKind.FIELD, "ORIGIN", null)));
+    LinkIndex.Context context = new LinkIndex.Context("org.example.Point",
+                                                      List.of("org.example.Point"),
+                                                      "org.example",
+                                                      Map.of("List", "java.util.List", "Map", "java.util.Map"),
+                                                      List.of("java.util.function"));
+    // A deferred reference is enclosed by NUL characters, which must survive the round-trip.
+    Comment comment = new Comment.Rendered("A point, see [`List`](\u0000List\u0000).", "+ **SINCE:** 1.0", "A point.");
+    MarkdownPage.Model typeModel = new MarkdownPage.Model(MarkdownPage.PageStyle.TYPE,
+                                                          "org.example.Point",
+                                                          "RECORD",
+                                                          "Point",
+                                                          "org.example",
+                                                          "Point",
+                                                          "RECORD: Point",
+                                                          null,
+                                                          comment,
+                                                          List.of(new MarkdownPage.Member("distance",
+                                                                                          ElementKind.METHOD,
+                                                                                          "distance",
+                                                                                          "double",
+                                                                                          "Point other",
+                                                                                          true,
+                                                                                          null)),
+                                                          List.of());
+    MarkdownPage.Model packageModel = new MarkdownPage.Model(MarkdownPage.PageStyle.INDEX,
+                                                             "org.example",
+                                                             "PACKAGE",
+                                                             "org.example",
+                                                             "m",
+                                                             "org.example",
+                                                             "PACKAGE: org.example",
+                                                             "Ünïcode overview 😀",
+                                                             null,
+                                                             List.of(),
+                                                             List.of(new MarkdownPage.Entry(ElementKind.RECORD, "Point", "Point.md")));
+    return new DocModel(List.of(type),
+                        List.of(new DocModel.Page("m/org.example/Point.md",
+                                                  "org.example.Point",
+                                                  ElementKind.RECORD,
+                                                  List.of("m", "org.example", "Point"),
+                                                  context,
+                                                  typeModel),
+                                new DocModel.Page("m/org.example/README.md",
+                                                  "org.example",
+                                                  ElementKind.PACKAGE,
+                                                  List.of("m", "org.example"),
+                                                  new LinkIndex.Context("", List.of(), "org.example", Map.of(), List.of()),
+                                                  packageModel)));
+  }
+}
@@ -0,0 +1,72 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LinkIndexFileTest extends TestBase {
+  @Test
+  public void givenWrittenIndex_whenFind_thenLinksAreReturned() throws IOException {
+    File file = File.createTempFile("link-index", ".bin");
+    file.deleteOnExit();
+    LinkIndexFile.write(Map.of("org.example.Point", "/base/m/org.example/Point",
+                               "org.example.Point#distance", "/base/m/org.example/Point#distance",
+                               "org.example.Ärger", "/base/m/org.example/Ärger",
+                               "org.example.Ａ", "/base/m/org.example/Ａ",
+                               "org.example.😀", "/base/m/org.example/😀"),
+                        file);
+    
+    LinkIndexFile index = LinkIndexFile.open(file);
+    
+    assertStatement(objectValue(index.find("org.example.Point"))
+        .then()
+        .isEqualTo("/base/m/org.example/Point"));
+    assertStatement(objectValue(index.find("org.example.Point#distance"))
+        .then()
+        .isEqualTo("/base/m/org.example/Point#distance"));
+    assertStatement(objectValue(index.find("org.example.Ärger"))
+        .then()
+        .isEqualTo("/base/m/org.example/Ärger"));
+    assertStatement(objectValue(index.find("org.example.Ａ"))
+        .then()
+        .isEqualTo("/base/m/org.example/Ａ"));
+    assertStatement(objectValue(index.find("org.example.😀"))
+        .then()
+        .isEqualTo("/base/m/org.example/😀"));
+    assertStatement(objectValue(index.find("org.example.Poin"))
+        .then()
+        .isNull());
+    assertStatement(objectValue(index.find("org.example.Point#x"))
+        .then()
+        .isNull());
+  }
+  
+  @Test
+  public void givenEmptyIndex_whenFind_thenNull() throws IOException {
+    File file = File.createTempFile("link-index", ".bin");
+    file.deleteOnExit();
+    LinkIndexFile.write(Map.of(), file);
+    
+    assertStatement(objectValue(LinkIndexFile.open(file)
+                                             .find("org.example.Point"))
+        .then()
+        .isNull());
+  }
+  
+  @Test
+  public void givenNonIndexFile_whenOpen_thenIOException() throws IOException {
+    File file = File.createTempFile("link-index", ".bin");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), "not an index");
+    
+    assertThrows(IOException.class, () -> LinkIndexFile.open(file));
+  }
+}
@@ -0,0 +1,191 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.ElementKind;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+
+public class LinkIndexTest extends TestBase {
+  private static final List<LinkIndex.Type> TYPES = List.of(type("p.Outer", "Outer", "Outer"),
+                                                            type("p.Outer.Sample", "Outer.Sample", "Sample"),
+                                                            type("p.Sample",
+                                                                 "Sample",
+                                                                 "Sample",
+                                                                 constructor("()"),
+                                                                 constructor("(int)"),
+                                                                 field("MAX"),
+                                                                 method("run", "()"),
+                                                                 method("run", "(int)"),
+                                                                 method("put", "(Object,Object)"),
+                                                                 method("of", "(String[])"),
+                                                                 method("sort", "(List)")),
+                                                            type("q.Sample", "Sample", "Sample"),
+                                                            type("p.Helper", "Helper", "Helper"),
+                                                            type("r.Helper", "Helper", "Helper"),
+                                                            type("r.Util", "Util", "Util"));
+  
+  @Test
+  public void givenNameOfEnclosingTypeMember_whenResolve_thenEnclosingTypeFirst() {
+    LinkIndex linkIndex = linkIndex();
+    
+    assertStatement(objectValue(linkIndex.resolve("Sample", context("p.Outer", Map.of("Sample", "q.Sample"), List.of("r"))))
+        .then()
+        .isEqualTo("/m/p/Outer.Sample"));
+  }
+  
+  @Test
+  public void givenImportedName_whenResolve_thenSingleTypeImportBeforePackage() {
+    LinkIndex linkIndex = linkIndex();
+    
+    assertStatement(objectValue(linkIndex.resolve("Sample", context("p.Other", Map.of("Sample", "q.Sample"), List.of("r"))))
+        .then()
+        .isEqualTo("/m/q/Sample"));
+  }
+  
+  @Test
+  public void givenNameInPackage_whenResolve_thenPackageBeforeOnDemandImports() {
+    LinkIndex linkIndex = linkIndex();
+    
+    assertStatement(objectValue(linkIndex.resolve("Helper", context("p.Other", Map.of(), List.of("r"))))
+        .then()
+        .isEqualTo("/m/p/Helper"));
+    assertStatement(objectValue(linkIndex.resolve("Util", context("p.Other", Map.of(), List.of("r"))))
+        .then()
+        .isEqualTo("/m/r/Util"));
+  }
+  
+  @Test
+  public void givenAmbiguousSimpleName_whenResolve_thenFirstCandidateAndCounted() {
+    LinkIndex linkIndex = linkIndex();
+    
+    assertStatement(objectValue(linkIndex.resolve("Sample", context("x.Other", Map.of(), List.of())))
+        .then()
+        .isEqualTo("/m/p/Sample"));
+    assertStatement(objectValue(linkIndex.ambiguousReferences())
+        .then()
+        .isEqualTo(1L));
+    assertStatement(objectValue(linkIndex.unresolvedReferences())
+        .then()
+        .isEqualTo(0L));
+  }
+  
+  @Test
+  public void givenUnknownName_whenResolve_thenUnknownTypeAndCounted() {
+    LinkIndex linkIndex = linkIndex();
+    
+    assertStatement(objectValue(linkIndex.resolve("Nowhere#run()", context("p.Other", Map.of(), List.of())))
+        .then()
+        .isEqualTo(LinkIndex.UNKNOWN_TYPE));
+    assertStatement(objectValue(linkIndex.unresolvedReferences())
+        .then()
+        .isEqualTo(1L));
+  }
+  
+  @Test
+  public void givenOverloads_whenResolve_thenEachOverloadLinkedToItsOwnAnchor() {
+    LinkIndex linkIndex = linkIndex();
+    LinkIndex.Context context = context("p.Other", Map.of(), List.of());
+    
+    assertStatement(objectValue(linkIndex.resolve("Sample#run()", context))
+        .then()
+        .isEqualTo("/m/p/Sample#run%28%29"));
+    assertStatement(objectValue(linkIndex.resolve("Sample#run(int)", context))
+        .then()
+        .isEqualTo("/m/p/Sample#run%28int%29"));
+    assertStatement(objectValue(linkIndex.resolve("Sample#run", context))
+        .then()
+        .isEqualTo("/m/p/Sample#run%28%29"));
+  }
+  
+  @Test
+  public void givenParametersAsWritten_whenResolve_thenNormalized() {
+    LinkIndex linkIndex = linkIndex();
+    LinkIndex.Context context = context("p.Other", Map.of(), List.of());
+    
+    assertStatement(objectValue(linkIndex.resolve("Sample#put(java.lang.Object, Object value)", context))
+        .then()
+        .isEqualTo("/m/p/Sample#put%28Object%2CObject%29"));
+    assertStatement(objectValue(linkIndex.resolve("Sample#of(String ...)", context))
+        .then()
+        .isEqualTo("/m/p/Sample#of%28String%5B%5D%29"));
+    assertStatement(objectValue(linkIndex.resolve("Sample#sort(java.util.List<java.util.Map<K, V>>)", context))
+        .then()
+        .isEqualTo("/m/p/Sample#sort%28List%29"));
+  }
+  
+  @Test
+  public void givenMembersOfEnclosingType_whenResolve_thenLinkedToTheirAnchors() {
+    LinkIndex linkIndex = linkIndex();
+    LinkIndex.Context context = context("p.Sample", Map.of(), List.of());
+    
+    assertStatement(objectValue(linkIndex.resolve("#MAX", context))
+        .then()
+        .isEqualTo("/m/p/Sample#MAX"));
+    assertStatement(objectValue(linkIndex.resolve("#Sample(int)", context))
+        .then()
+        .isEqualTo("/m/p/Sample#%3C%3Cinit%3E%3E"));
+    assertStatement(objectValue(linkIndex.resolve("#Sample", context))
+        .then()
+        .isEqualTo("/m/p/Sample#%3C%3Cinit%3E%3E"));
+  }
+  
+  @Test
+  public void givenExternalIndex_whenResolve_thenOverloadLookedUpBeforeName() throws IOException {
+    File file = File.createTempFile("links", ".bin");
+    file.deleteOnExit();
+    LinkIndexFile.write(Map.of("x.Ext", "https://example.com/x/Ext",
+                               "x.Ext#go", "https://example.com/x/Ext#go%28%29",
+                               "x.Ext#go(int)", "https://example.com/x/Ext#go%28int%29"), file);
+    LinkIndex linkIndex = LinkIndex.build(TYPES, "/", "", List.of(LinkIndexFile.open(file)), Map.of());
+    LinkIndex.Context context = context("p.Other", Map.of(), List.of());
+    
+    assertStatement(objectValue(linkIndex.resolve("x.Ext#go(int)", context))
+        .then()
+        .isEqualTo("https://example.com/x/Ext#go%28int%29"));
+    assertStatement(objectValue(linkIndex.resolve("x.Ext#go(long)", context))
+        .then()
+        .isEqualTo("https://example.com/x/Ext#go%28%29"));
+    assertStatement(objectValue(linkIndex.resolve("x.Ext#stop()", context))
+        .then()
+        .isEqualTo("https://example.com/x/Ext"));
+  }
+  
+  private static LinkIndex linkIndex() {
+    return LinkIndex.build(TYPES, "/", "", List.of(), Map.of());
+  }
+  
+  /**
+   * Returns a context of a reference in a top-level type.
+   */
+  private static LinkIndex.Context context(String typeName, Map<String, String> singleTypeImports, List<String> onDemandImports) {
+    return new LinkIndex.Context(typeName,
+                                 List.of(typeName),
+                                 typeName.substring(0, typeName.indexOf('.')),
+                                 singleTypeImports,
+                                 onDemandImports);
+  }
+  
+  private static LinkIndex.Type type(String qualifiedName, String simpleName, String constructorName, LinkIndex.Member... members) {
+    String packageName = qualifiedName.substring(0, qualifiedName.indexOf('.'));
+    return new LinkIndex.Type(qualifiedName, simpleName, constructorName, "m/" + packageName + "/" + simpleName, List.of(members));
+  }
+  
+  private static LinkIndex.Member constructor(String parameters) {
+    return new LinkIndex.Member(ElementKind.CONSTRUCTOR, "<init>", parameters);
+  }
+  
+  private static LinkIndex.Member method(String name, String parameters) {
+    return new LinkIndex.Member(ElementKind.METHOD, name, parameters);
+  }
+  
+  private static LinkIndex.Member field(String name) {
+    return new LinkIndex.Member(ElementKind.FIELD, name, null);
+  }
+}
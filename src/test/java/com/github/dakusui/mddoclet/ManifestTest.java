@@ -0,0 +1,164 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.booleanValue;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+
+public class ManifestTest extends TestBase {
+  @Test
+  public void givenPageWithSameInputs_whenCarryOverIfUpToDate_thenCarriedOver() throws IOException {
+    File baseDirectory = createBaseDirectory();
+    Manifest.Page page = new Manifest.Page("m/p/Type.md", "p.Type", "input-1");
+    writePage(baseDirectory, page, "content");
+    
+    Manifest manifest = Manifest.load(baseDirectory);
+    
+    assertStatement(booleanValue(manifest.carryOverIfUpToDate(page))
+        .then()
+        .isTrue());
+    assertStatement(booleanValue(manifest.carryOverIfUpToDate(new Manifest.Page("m/p/Type.md", "p.Type", "input-2")))
+        .then()
+        .isFalse());
+    assertStatement(booleanValue(manifest.carryOverIfUpToDate(new Manifest.Page("m/p/Other.md", "p.Other", "input-1")))
+        .then()
+        .isFalse());
+    assertStatement(objectValue(manifest.prune())
+        .then()
+        .isEqualTo(List.of()));
+  }
+  
+  @Test
+  public void givenDeletedPage_whenCarryOverIfUpToDate_thenNotCarriedOver() throws IOException {
+    File baseDirectory = createBaseDirectory();
+    Manifest.Page page = new Manifest.Page("m/p/Type.md", "p.Type", "input-1");
+    writePage(baseDirectory, page, "content");
+    assertStatement(booleanValue(new File(baseDirectory, page.path()).delete())
+        .then()
+        .isTrue());
+    
+    assertStatement(booleanValue(Manifest.load(baseDirectory)
+                                         .carryOverIfUpToDate(page))
+        .then()
+        .isFalse());
+  }
+  
+  @Test
+  public void givenRenderedPage_whenUpdate_thenWrittenOnlyIfContentChanges() throws IOException {
+    File baseDirectory = createBaseDirectory();
+    Manifest.Page page = new Manifest.Page("m/p/Type.md", "p.Type", "input-1");
+    writePage(baseDirectory, page, "content");
+    
+    Manifest manifest = Manifest.load(baseDirectory);
+    Manifest.Page changedPage = new Manifest.Page("m/p/Type.md", "p.Type", "input-2");
+    
+    assertStatement(booleanValue(manifest.update(changedPage, Manifest.hash("content")))
+        .then()
+        .isFalse());
+    assertStatement(booleanValue(manifest.update(changedPage, Manifest.hash("changed content")))
+        .then()
+        .isTrue());
+    assertStatement(booleanValue(manifest.update(new Manifest.Page("m/p/New.md", "p.New", "input-1"), Manifest.hash("content")))
+        .then()
+        .isTrue());
+  }
+  
+  @Test
+  public void givenPageNotGeneratedAgain_whenPrune_thenRemovedWithEmptyDirectories() throws IOException {
+    File baseDirectory = createBaseDirectory();
+    Manifest.Page kept = new Manifest.Page("m/p/Kept.md", "p.Kept", "input-1");
+    Manifest.Page removed = new Manifest.Page("m/q/r/Removed.md", "q.r.Removed", "input-1");
+    Manifest previous = Manifest.load(baseDirectory);
+    writePage(baseDirectory, previous, kept, "kept");
+    writePage(baseDirectory, previous, removed, "removed");
+    previous.store();
+    
+    Manifest manifest = Manifest.load(baseDirectory);
+    assertStatement(booleanValue(manifest.carryOverIfUpToDate(kept))
+        .then()
+        .isTrue());
+    
+    assertStatement(objectValue(manifest.prune())
+        .then()
+        .isEqualTo(List.of("m/q/r/Removed.md")));
+    assertStatement(booleanValue(new File(baseDirectory, "m/q").exists())
+        .then()
+        .isFalse());
+    assertStatement(booleanValue(new File(baseDirectory, "m/p/Kept.md").isFile())
+        .then()
+        .isTrue());
+    assertStatement(objectValue(manifest.prune())
+        .then()
+        .isEqualTo(List.of()));
+  }
+  
+  @Test
+  public void givenStoredManifest_whenLoad_thenRecordsAreRestored() throws IOException {
+    File baseDirectory = createBaseDirectory();
+    Manifest.Page page = new Manifest.Page("m/p/Type.md", "p.Type", "input-1");
+    writePage(baseDirectory, page, "content");
+    Manifest manifest = Manifest.load(baseDirectory);
+    assertStatement(booleanValue(manifest.carryOverIfUpToDate(page))
+        .then()
+        .isTrue());
+    manifest.store();
+    
+    Manifest loaded = Manifest.load(baseDirectory);
+    
+    assertStatement(booleanValue(loaded.carryOverIfUpToDate(page))
+        .then()
+        .isTrue());
+    assertStatement(booleanValue(loaded.update(page, Manifest.hash("content")))
+        .then()
+        .isFalse());
+    assertStatement(objectValue(loaded.prune())
+        .then()
+        .isEqualTo(List.of()));
+  }
+  
+  @Test
+  public void givenUnknownManifestFormat_whenLoad_thenEmpty() throws IOException {
+    File baseDirectory = createBaseDirectory();
+    Manifest.Page page = new Manifest.Page("m/p/Type.md", "p.Type", "input-1");
+    writePage(baseDirectory, page, "content");
+    Files.writeString(new File(baseDirectory, Manifest.FILE_NAME).toPath(), "# mddoclet manifest v0\n");
+    
+    assertStatement(booleanValue(Manifest.load(baseDirectory)
+                                         .carryOverIfUpToDate(page))
+        .then()
+        .isFalse());
+  }
+  
+  private static File createBaseDirectory() throws IOException {
+    File ret = Files.createTempDirectory("manifest")
+                    .toFile();
+    ret.deleteOnExit();
+    return ret;
+  }
+  
+  /**
+   * Writes a page and stores a manifest that has only it, as a previous run does.
+   */
+  private static void writePage(File baseDirectory, Manifest.Page page, String content) throws IOException {
+    Manifest manifest = Manifest.load(baseDirectory);
+    writePage(baseDirectory, manifest, page, content);
+    manifest.store();
+  }
+  
+  private static void writePage(File baseDirectory, Manifest manifest, Manifest.Page page, String content) throws IOException {
+    File file = new File(baseDirectory, page.path());
+    Files.createDirectories(file.getParentFile()
+                                .toPath());
+    Files.writeString(file.toPath(), content);
+    assertStatement(booleanValue(manifest.update(page, Manifest.hash(content)))
+        .then()
+        .isTrue());
+  }
+}
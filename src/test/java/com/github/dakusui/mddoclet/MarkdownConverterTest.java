@@ -0,0 +1,164 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+
+public class MarkdownConverterTest extends TestBase {
+  private static final MarkdownConverter HTML = new MarkdownConverter.Html();
+  private static final MarkdownConverter ASCII_DOC = new MarkdownConverter.AsciiDoc();
+  
+  @Test
+  public void givenIndentedParagraphs_whenBlocks_thenIndentationIsStripped() {
+    String markdown = " First line,\n second line.\n\n Second paragraph.";
+    
+    assertStatement(objectValue(HTML.blocks(markdown))
+        .then()
+        .isEqualTo(lines("<p>First line,",
+                         "second line.</p>",
+                         "<p>Second paragraph.</p>")));
+    assertStatement(objectValue(ASCII_DOC.blocks(markdown))
+        .then()
+        .isEqualTo(lines("First line,",
+                         "second line.",
+                         "",
+                         "Second paragraph.")));
+  }
+  
+  @Test
+  public void givenListWithContinuationLines_whenBlocks_thenItemsAreJoinedAndNested() {
+    String markdown = "- one\n  continued\n- two\n  - nested\n\n1. first\n2. second";
+    
+    assertStatement(objectValue(HTML.blocks(markdown))
+        .then()
+        .isEqualTo(lines("<ul>",
+                         "<li>one continued</li>",
+                         "<li>two<ul>",
+                         "<li>nested</li>",
+                         "</ul>",
+                         "</li>",
+                         "</ul>",
+                         "<ol>",
+                         "<li>first</li>",
+                         "<li>second</li>",
+                         "</ol>")));
+    assertStatement(objectValue(ASCII_DOC.blocks(markdown))
+        .then()
+        .isEqualTo(lines("* one continued",
+                         "* two",
+                         "** nested",
+                         "",
+                         "//",
+                         "",
+                         ". first",
+                         ". second")));
+  }
+  
+  @Test
+  public void givenFencedCode_whenBlocks_thenCodeIsNotConverted() {
+    String markdown = "Before.\n```java\n  int a = b < c ? *d* : _e_;\n```\nAfter.";
+    
+    assertStatement(objectValue(HTML.blocks(markdown))
+        .then()
+        .isEqualTo(lines("<p>Before.</p>",
+                         "<pre><code class=\"language-java\">  int a = b &lt; c ? *d* : _e_;",
+                         "</code></pre>",
+                         "<p>After.</p>")));
+    assertStatement(objectValue(ASCII_DOC.blocks(markdown))
+        .then()
+        .isEqualTo(lines("Before.",
+                         "",
+                         "[source,java]",
+                         "----",
+                         "  int a = b < c ? *d* : _e_;",
+                         "----",
+                         "",
+                         "After.")));
+  }
+  
+  @Test
+  public void givenHeading_whenBlocks_thenLevelIsKept() {
+    assertStatement(objectValue(HTML.blocks("## Title `x`"))
+        .then()
+        .isEqualTo(lines("<h2>Title <code>x</code></h2>")));
+    assertStatement(objectValue(ASCII_DOC.blocks("## Title `x`"))
+        .then()
+        .isEqualTo(lines("=== Title `+x+`")));
+  }
+  
+  @Test
+  public void givenUnderscoreInIdentifier_whenInline_thenNotEmphasized() {
+    String markdown = "Use MAX_VALUE, a * b, and _emphasis_ or **strong**.";
+    
+    assertStatement(objectValue(HTML.inline(markdown))
+        .then()
+        .isEqualTo("Use MAX_VALUE, a * b, and <em>emphasis</em> or <strong>strong</strong>."));
+    assertStatement(objectValue(ASCII_DOC.inline(markdown))
+        .then()
+        .isEqualTo("Use MAX_VALUE, a * b, and _emphasis_ or *strong*."));
+  }
+  
+  @Test
+  public void givenLinkWithCodeSpan_whenInline_thenLabelIsConverted() {
+    String markdown = "See [`List<String>`](/base/List#get) and [a [b] c](x).";
+    
+    assertStatement(objectValue(HTML.inline(markdown))
+        .then()
+        .isEqualTo("See <a href=\"/base/List#get\"><code>List&lt;String&gt;</code></a> and <a href=\"x\">a [b] c</a>."));
+    assertStatement(objectValue(ASCII_DOC.inline(markdown))
+        .then()
+        .isEqualTo("See link:/base/List#get[`+List<String>+`] and link:x[a [b\\] c]."));
+  }
+  
+  @Test
+  public void givenBracketInCodeSpanOfLink_whenInline_thenLinkIsNotClosedByIt() {
+    assertStatement(objectValue(HTML.inline("[`a]`](x)"))
+        .then()
+        .isEqualTo("<a href=\"x\"><code>a]</code></a>"));
+    assertStatement(objectValue(HTML.inline("``a`b``"))
+        .then()
+        .isEqualTo("<code>a`b</code>"));
+  }
+  
+  @Test
+  public void givenHtmlBlocks_whenBlocks_thenKeptInHtmlAndPassedThroughInAsciiDoc() {
+    String markdown = "<!-- note -->\nText.\n<hr>";
+    
+    assertStatement(objectValue(HTML.blocks(markdown))
+        .then()
+        .isEqualTo(lines("<!-- note -->",
+                         "<p>Text.</p>",
+                         "<hr>")));
+    assertStatement(objectValue(ASCII_DOC.blocks(markdown))
+        .then()
+        .isEqualTo(lines("// <!-- note -->",
+                         "",
+                         "Text.",
+                         "",
+                         "++++",
+                         "<hr>",
+                         "++++")));
+  }
+  
+  @Test
+  public void givenInlineHtml_whenInline_thenPassedThroughInHtmlAndConvertedInAsciiDoc() {
+    String markdown = "A <b>bold</b>, <i>it</i>, <code>List&lt;T&gt;</code>, and <a href=\"x\">a</a>.";
+    
+    assertStatement(objectValue(HTML.inline(markdown))
+        .then()
+        .isEqualTo(markdown));
+    assertStatement(objectValue(ASCII_DOC.inline(markdown))
+        .then()
+        .isEqualTo("A *bold*, _it_, `+List<T>+`, and +++<a href=\"x\">+++a+++</a>+++."));
+  }
+  
+  private static String lines(String... lines) {
+    StringBuilder sb = new StringBuilder();
+    for (String each : lines)
+      sb.append(each)
+        .append(System.lineSeparator());
+    return sb.toString();
+  }
+}
@@ -0,0 +1,247 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.DocumentationTool;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.booleanValue;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.stringValue;
+
+/**
+ * Runs the doclet through the javadoc tool on sources written to a temporary directory.
+ */
+public class MdDocletRunTest extends TestBase {
+  @Test
+  public void givenSources_whenRunWithThreads_thenSameOutputAsSequentialRun() throws IOException {
+    Path sources = createSources(20);
+    Path sequential = Files.createTempDirectory("sequential");
+    Path parallel = Files.createTempDirectory("parallel");
+    
+    javadoc(sources, "-d", sequential.toString(), "-threads", "1");
+    javadoc(sources, "-d", parallel.toString(), "-threads", "4");
+    
+    SortedMap<String, String> expected = contentsOf(sequential);
+    assertStatement(booleanValue(expected.isEmpty())
+        .then()
+        .isFalse());
+    assertStatement(objectValue(contentsOf(parallel))
+        .then()
+        .isEqualTo(expected));
+  }
+  
+  @Test
+  public void givenChangeNotAffectingLinks_whenRunIncrementally_thenOtherPagesUpToDate() throws IOException {
+    Path sources = createSources(20);
+    Path out = Files.createTempDirectory("incremental");
+    javadoc(sources, "-d", out.toString(), "-incremental");
+    Map<String, String> before = inputHashesOf(out);
+    
+    // A new member of C5 adds an entry to the link index, but doesn't change links in the other pages.
+    replaceInFile(sources.resolve("p/C5.java"), "public void run() {", "public void other() {\n}\npublic void run() {");
+    javadoc(sources, "-d", out.toString(), "-incremental");
+    
+    assertStatement(objectValue(changedPages(before, inputHashesOf(out)))
+        .then()
+        .isEqualTo(List.of("p/C5.md")));
+  }
+  
+  @Test
+  public void givenChangeOfLinkedMember_whenRunIncrementally_thenLinkingPageNotUpToDate() throws IOException {
+    Path sources = createSources(20);
+    Path out = Files.createTempDirectory("incremental");
+    javadoc(sources, "-d", out.toString(), "-incremental");
+    Map<String, String> before = inputHashesOf(out);
+    
+    // C4 links to C5#run, which is renamed.
+    replaceInFile(sources.resolve("p/C5.java"), "run(", "go(");
+    javadoc(sources, "-d", out.toString(), "-incremental");
+    
+    assertStatement(objectValue(changedPages(before, inputHashesOf(out)))
+        .then()
+        .isEqualTo(List.of("p/C4.md", "p/C5.md")));
+  }
+  
+  /**
+   * Reads hashes of inputs from which pages were rendered, that is, a page is up-to-date in a run if its hash is
+   * unchanged.
+   */
+  private static Map<String, String> inputHashesOf(Path out) throws IOException {
+    Map<String, String> ret = new HashMap<>();
+    for (String each : Files.readAllLines(out.resolve(Manifest.FILE_NAME)))
+      if (!each.startsWith("#")) {
+        String[] columns = each.split("\t");
+        ret.put(columns[0], columns[2]);
+      }
+    return ret;
+  }
+  
+  private static List<String> changedPages(Map<String, String> before, Map<String, String> after) {
+    return after.keySet()
+                .stream()
+                .filter(each -> !Objects.equals(before.get(each), after.get(each)))
+                .sorted()
+                .toList();
+  }
+  
+  private static void replaceInFile(Path file, String target, String replacement) throws IOException {
+    Files.writeString(file, Files.readString(file)
+                                 .replace(target, replacement));
+  }
+  
+  @Test
+  public void givenAnnotatedTypes_whenRun_thenAnnotationsPrintedWhereTheyApply() throws IOException {
+    Path sources = createSources(Map.of("p/A.java", """
+                                            package p;
+
+                                            import java.lang.annotation.ElementType;
+                                            import java.lang.annotation.Target;
+
+                                            @Target(ElementType.TYPE_USE)
+                                            public @interface A {
+                                            }
+                                            """,
+                                        "p/C.java", """
+                                            package p;
+
+                                            public class C {
+                                              /**
+                                               * Takes arrays.
+                                               */
+                                              public @A String[] m(String @A [] a, @A String[] b, String @A ... c) {
+                                                return b;
+                                              }
+                                            }
+                                            """));
+    Path out = Files.createTempDirectory("out");
+    
+    javadoc(sources, "-d", out.toString());
+    
+    assertStatement(stringValue(Files.readString(out.resolve("p/C.md")))
+        .then()
+        .contains("## **METHOD:** `@A String[]` m(`String @A []` `a`, `@A String[]` `b`, `String @A ...` `c`)"));
+  }
+  
+  /**
+   * Writes classes `p.C0`, `p.C1`, ..., each of which has comments linking to its neighbours, overloads, and block tags.
+   */
+  static Path createSources(int classes) throws IOException {
+    Map<String, String> sources = new HashMap<>();
+    sources.put("p/package-info.java", """
+        /**
+         * A package of classes linking to each other.
+         */
+        package p;
+        """);
+    for (int i = 0; i < classes; i++)
+      sources.put("p/C" + i + ".java", String.format("""
+                                                         package p;
+
+                                                         /**
+                                                          * Class %1$d, next to {@link C%2$d}.
+                                                          *
+                                                          * @see C%2$d#run(int)
+                                                          */
+                                                         public class C%1$d {
+                                                           /**
+                                                            * Creates {@code C%1$d}.
+                                                            */
+                                                           public C%1$d() {
+                                                           }
+
+                                                           /**
+                                                            * Runs {@link #run(int) with a count}.
+                                                            */
+                                                           public void run() {
+                                                           }
+
+                                                           /**
+                                                            * Runs {@link C%2$d#run() the next one} `count` times.
+                                                            *
+                                                            * @param count A count.
+                                                            * @return The next one.
+                                                            */
+                                                           public C%2$d run(int count) {
+                                                             return null;
+                                                           }
+                                                         }
+                                                         """, i, (i + 1) % classes));
+    return createSources(sources);
+  }
+  
+  /**
+   * Writes sources to a temporary directory.
+   *
+   * @param sources Contents of source files, keyed by their paths relative to the directory.
+   */
+  static Path createSources(Map<String, String> sources) throws IOException {
+    Path ret = Files.createTempDirectory("sources");
+    for (Map.Entry<String, String> each : sources.entrySet()) {
+      Path file = ret.resolve(each.getKey());
+      Files.createDirectories(file.getParent());
+      Files.writeString(file, each.getValue());
+    }
+    return ret;
+  }
+  
+  /**
+   * Runs the doclet on all the sources in a directory.
+   */
+  static void javadoc(Path sources, String... options) throws IOException {
+    DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+    StringWriter out = new StringWriter();
+    try (StandardJavaFileManager fileManager = tool.getStandardFileManager(null, null, null);
+         Stream<Path> files = Files.walk(sources)) {
+      List<File> sourceFiles = files.filter(each -> each.toString()
+                                                        .endsWith(".java"))
+                                    .map(Path::toFile)
+                                    .toList();
+      List<String> arguments = new ArrayList<>(List.of(options));
+      arguments.addAll(List.of("-verbosity", "quiet"));
+      boolean succeeded = tool.getTask(out, fileManager, null, MdDoclet.class, arguments, fileManager.getJavaFileObjectsFromFiles(sourceFiles))
+                              .call();
+      assertStatement(objectValue(succeeded ? "" : out.toString())
+          .then()
+          .isEqualTo(""));
+    }
+  }
+  
+  /**
+   * Returns contents of files in a directory, keyed by their paths relative to it.
+   * Contents are decoded byte by byte, so that binary files are compared as they are.
+   */
+  static SortedMap<String, String> contentsOf(Path directory) throws IOException {
+    SortedMap<String, String> ret = new TreeMap<>();
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.filter(Files::isRegularFile)
+           .forEach(each -> {
+             try {
+               ret.put(directory.relativize(each)
+                                .toString(), new String(Files.readAllBytes(each), StandardCharsets.ISO_8859_1));
+             } catch (IOException e) {
+               throw new UncheckedIOException(e);
+             }
+           });
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,37 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.booleanValue;
+
+public class MdRenderTest extends TestBase {
+  @Test
+  public void givenOptionsNotForModelCache_whenRun_thenFails() throws IOException {
+    File modelCacheFile = File.createTempFile("model", ".bin");
+    modelCacheFile.deleteOnExit();
+    new DocModel(List.of(), List.of()).writeTo(modelCacheFile);
+    File directory = Files.createTempDirectory("render")
+                          .toFile();
+    directory.deleteOnExit();
+    
+    assertStatement(booleanValue(MdRender.run("-model-cache", modelCacheFile.getPath(), "-d", directory.getPath()))
+        .then()
+        .isTrue());
+    assertStatement(booleanValue(MdRender.run("-model-cache", modelCacheFile.getPath(), "-d", directory.getPath(), "-incremental"))
+        .then()
+        .isFalse());
+    assertStatement(booleanValue(MdRender.run("-model-cache", modelCacheFile.getPath(), "-d", directory.getPath(), "-target-packages", ".*"))
+        .then()
+        .isFalse());
+    assertStatement(booleanValue(MdRender.run("-model-cache", modelCacheFile.getPath(), "-d", directory.getPath(), "-exclude-packages", ".*"))
+        .then()
+        .isFalse());
+  }
+}
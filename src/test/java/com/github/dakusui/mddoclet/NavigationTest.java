@@ -0,0 +1,99 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.SequencedMap;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+
+public class NavigationTest extends TestBase {
+  @Test
+  public void givenPages_whenWriteToInMkDocsFormat_thenNavSection() throws IOException {
+    assertStatement(objectValue(write(createNavigation(), Navigation.Format.MKDOCS))
+        .then()
+        .isEqualTo("""
+                       nav:
+                         - "README.md"
+                         - "m":
+                             - "m/README.md"
+                             - "p":
+                                 - "m/p/README.md"
+                                 - "A": "m/p/A.md"
+                                 - "B":
+                                     - "m/p/B.md"
+                                     - "CONSTRUCTOR": "m/p/B-constructor.md"
+                                     - "METHOD": "m/p/B-method.md"
+                         - "n":
+                             - "q": "n/q/README.md"
+                       """));
+  }
+  
+  @Test
+  public void givenPages_whenWriteToInJsonFormat_thenTree() throws IOException {
+    assertStatement(objectValue(write(createNavigation(), Navigation.Format.JSON))
+        .then()
+        .isEqualTo("""
+                       {"title": "", "path": "README.md", "parts": [], "children": [
+                         {"title": "m", "path": "m/README.md", "parts": [], "children": [
+                           {"title": "p", "path": "m/p/README.md", "parts": [], "children": [
+                             {"title": "A", "path": "m/p/A.md", "parts": [], "children": []},
+                             {"title": "B", "path": "m/p/B.md", "parts": [{"title": "CONSTRUCTOR", "path": "m/p/B-constructor.md"}, {"title": "METHOD", "path": "m/p/B-method.md"}], "children": []}
+                           ]}
+                         ]},
+                         {"title": "n", "path": null, "parts": [], "children": [
+                           {"title": "q", "path": "n/q/README.md", "parts": [], "children": []}
+                         ]}
+                       ]}
+                       """));
+  }
+  
+  @Test
+  public void givenName_whenFromName_thenCaseInsensitive() {
+    assertStatement(objectValue(Navigation.Format.fromName("mkdocs"))
+        .then()
+        .isEqualTo(Optional.of(Navigation.Format.MKDOCS)));
+    assertStatement(objectValue(Navigation.Format.fromName("yaml"))
+        .then()
+        .isEqualTo(Optional.empty()));
+  }
+  
+  /**
+   * Creates a tree of the root page of the unnamed package, a module whose page has children, a split type, and a
+   * module without a page.
+   * Pages are added in the order that is not sorted, as the doclet visits elements.
+   */
+  private static Navigation createNavigation() {
+    Navigation ret = new Navigation();
+    SequencedMap<String, String> parts = new LinkedHashMap<>();
+    parts.put("m/p/B-constructor.md", "CONSTRUCTOR");
+    parts.put("m/p/B-method.md", "METHOD");
+    ret.add(List.of("n", "q"), "n/q/README.md", new LinkedHashMap<>());
+    ret.add(List.of("m", "p", "B"), "m/p/B.md", parts);
+    ret.add(List.of("m"), "m/README.md", new LinkedHashMap<>());
+    ret.add(List.of("m", "p", "A"), "m/p/A.md", new LinkedHashMap<>());
+    ret.add(List.of("m", "p"), "m/p/README.md", new LinkedHashMap<>());
+    // The unnamed package in the unnamed module.
+    ret.add(List.of("", ""), "README.md", new LinkedHashMap<>());
+    return ret;
+  }
+  
+  private static String write(Navigation navigation, Navigation.Format format) throws IOException {
+    File directory = Files.createTempDirectory("navigation")
+                          .toFile();
+    directory.deleteOnExit();
+    try (OutputSink sink = OutputSink.open(directory.getPath())) {
+      navigation.writeTo(sink, format);
+    }
+    File file = new File(directory, format.fileName());
+    file.deleteOnExit();
+    return Files.readString(file.toPath());
+  }
+}
@@ -0,0 +1,87 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+
+public class OutputFormatTest extends TestBase {
+  @Test
+  public void givenMarkdownPaths_whenPathOf_thenIndexPagesAreRenamed() {
+    assertStatement(objectValue(OutputFormat.MD.pathOf("m/pkg/README.md"))
+        .then()
+        .isEqualTo("m/pkg/README.md"));
+    assertStatement(objectValue(OutputFormat.HTML.pathOf("m/pkg/README.md"))
+        .then()
+        .isEqualTo("m/pkg/index.html"));
+    assertStatement(objectValue(OutputFormat.HTML.pathOf("README.md"))
+        .then()
+        .isEqualTo("index.html"));
+    assertStatement(objectValue(OutputFormat.ADOC.pathOf("m/pkg/README.md"))
+        .then()
+        .isEqualTo("m/pkg/index.adoc"));
+    assertStatement(objectValue(OutputFormat.HTML.pathOf("m/pkg/Type.Nested.md"))
+        .then()
+        .isEqualTo("m/pkg/Type.Nested.html"));
+    assertStatement(objectValue(OutputFormat.ADOC.pathOf("m/pkg/NOT_README.md"))
+        .then()
+        .isEqualTo("m/pkg/NOT_README.adoc"));
+  }
+  
+  @Test
+  public void givenRelativeTargets_whenTargetOf_thenAsciiDocLinksToHtml() {
+    assertStatement(objectValue(OutputFormat.MD.targetOf("Type.md"))
+        .then()
+        .isEqualTo("Type.md"));
+    assertStatement(objectValue(OutputFormat.HTML.targetOf("Type.md"))
+        .then()
+        .isEqualTo("Type.html"));
+    assertStatement(objectValue(OutputFormat.ADOC.targetOf("Type.md"))
+        .then()
+        .isEqualTo("Type.html"));
+    assertStatement(objectValue(OutputFormat.ADOC.targetOf("README.md"))
+        .then()
+        .isEqualTo("index.html"));
+    assertStatement(objectValue(OutputFormat.ADOC.targetOf("pkg/"))
+        .then()
+        .isEqualTo("pkg/"));
+  }
+  
+  @Test
+  public void givenPaths_whenLinkOf_thenIndexPagesAreLinkedByDirectories() {
+    assertStatement(objectValue(OutputFormat.MD.linkOf("/base/", "m/pkg/README.md"))
+        .then()
+        .isEqualTo("/base/m/pkg/"));
+    assertStatement(objectValue(OutputFormat.MD.linkOf("/base/", "m/pkg/Type.md"))
+        .then()
+        .isEqualTo("/base/m/pkg/Type"));
+    assertStatement(objectValue(OutputFormat.HTML.linkOf("/base/", "m/pkg/index.html"))
+        .then()
+        .isEqualTo("/base/m/pkg/"));
+    assertStatement(objectValue(OutputFormat.HTML.linkOf("/base/", "m/pkg/Type.html"))
+        .then()
+        .isEqualTo("/base/m/pkg/Type.html"));
+    assertStatement(objectValue(OutputFormat.ADOC.linkOf("/base/", "m/pkg/Type.adoc"))
+        .then()
+        .isEqualTo("/base/m/pkg/Type.html"));
+    assertStatement(objectValue(OutputFormat.ADOC.linkOf("/base/", "index.adoc"))
+        .then()
+        .isEqualTo("/base/"));
+  }
+  
+  @Test
+  public void givenNames_whenFromName_thenCaseInsensitive() {
+    assertStatement(objectValue(OutputFormat.fromName("HTML"))
+        .then()
+        .isEqualTo(Optional.of(OutputFormat.HTML)));
+    assertStatement(objectValue(OutputFormat.fromName("adoc"))
+        .then()
+        .isEqualTo(Optional.of(OutputFormat.ADOC)));
+    assertStatement(objectValue(OutputFormat.fromName("pdf"))
+        .then()
+        .isEqualTo(Optional.empty()));
+  }
+}
@@ -0,0 +1,65 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.booleanValue;
+
+public class PackageFilterTest extends TestBase {
+  @Test
+  public void givenNoRule_whenTest_thenAccepted() {
+    PackageFilter filter = new PackageFilter();
+    
+    assertStatement(booleanValue(filter.test("", "com.example"))
+        .then()
+        .isTrue());
+  }
+  
+  @Test
+  public void givenIncludeRuleWithoutPoundSign_whenTest_thenMatchedAgainstPackageNameOnly() {
+    PackageFilter filter = new PackageFilter();
+    filter.include(".*example.*");
+    
+    assertStatement(booleanValue(filter.test("any.module", "com.example.api"))
+        .then()
+        .isTrue());
+    assertStatement(booleanValue(filter.test("any.module", "com.other"))
+        .then()
+        .isFalse());
+  }
+  
+  @Test
+  public void givenIncludeRules_whenTest_thenAcceptedIfAnyMatches() {
+    PackageFilter filter = new PackageFilter();
+    filter.include("app#com\\.example\\..*");
+    filter.include(".*#org\\.example");
+    
+    assertStatement(booleanValue(filter.test("app", "com.example.api"))
+        .then()
+        .isTrue());
+    assertStatement(booleanValue(filter.test("lib", "com.example.api"))
+        .then()
+        .isFalse());
+    assertStatement(booleanValue(filter.test("lib", "org.example"))
+        .then()
+        .isTrue());
+  }
+  
+  @Test
+  public void givenExcludeRule_whenTest_thenRejectedEvenIfIncluded() {
+    PackageFilter filter = new PackageFilter();
+    filter.include(".*#com\\.example.*");
+    filter.exclude(".*\\.internal(\\..*)?");
+    
+    assertStatement(booleanValue(filter.test("app", "com.example.api"))
+        .then()
+        .isTrue());
+    assertStatement(booleanValue(filter.test("app", "com.example.internal"))
+        .then()
+        .isFalse());
+    assertStatement(booleanValue(filter.test("app", "com.example.internal.impl"))
+        .then()
+        .isFalse());
+  }
+}
@@ -0,0 +1,119 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.ElementKind;
+import java.util.List;
+import java.util.Optional;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+
+public class PageSplitTest extends TestBase {
+  private static final List<PageSplit.MemberKey> MEMBERS = List.of(member(ElementKind.CONSTRUCTOR, "<init>"),
+                                                                   member(ElementKind.CONSTRUCTOR, "<init>"),
+                                                                   member(ElementKind.FIELD, "x"),
+                                                                   member(ElementKind.METHOD, "a"),
+                                                                   member(ElementKind.METHOD, "b"),
+                                                                   member(ElementKind.METHOD, "b"),
+                                                                   member(ElementKind.METHOD, "c"),
+                                                                   member(ElementKind.METHOD, "d"));
+  
+  @Test
+  public void givenFewMembers_whenOfMembers_thenNotSplit() {
+    assertStatement(objectValue(PageSplit.ofMembers(MEMBERS, MEMBERS.size()))
+        .then()
+        .isEqualTo(Optional.empty()));
+  }
+  
+  @Test
+  public void givenManyMembers_whenOfMembers_thenSplitByKindsThenIntoChunks() {
+    PageSplit split = PageSplit.ofMembers(MEMBERS, 2)
+                               .orElseThrow();
+    
+    assertStatement(objectValue(split.parts())
+        .then()
+        .isEqualTo(List.of(new PageSplit.Part("-constructor", "CONSTRUCTOR", List.of(0, 1)),
+                           new PageSplit.Part("-field", "FIELD", List.of(2)),
+                           new PageSplit.Part("-method-1", "METHOD (`a` to `a`)", List.of(3)),
+                           new PageSplit.Part("-method-2", "METHOD (`b` to `b`)", List.of(4, 5)),
+                           new PageSplit.Part("-method-3", "METHOD (`c` to `d`)", List.of(6, 7)))));
+    assertStatement(objectValue(split.suffixOf(ElementKind.CONSTRUCTOR, "<init>"))
+        .then()
+        .isEqualTo(Optional.of("-constructor")));
+    assertStatement(objectValue(split.suffixOf(ElementKind.METHOD, "c"))
+        .then()
+        .isEqualTo(Optional.of("-method-3")));
+    assertStatement(objectValue(split.suffixOf(ElementKind.METHOD, "x"))
+        .then()
+        .isEqualTo(Optional.empty()));
+  }
+  
+  @Test
+  public void givenOverloadsCrossingSizeLimit_whenOfMembers_thenKeptInOnePart() {
+    PageSplit split = PageSplit.ofMembers(List.of(member(ElementKind.METHOD, "a"),
+                                                  member(ElementKind.METHOD, "b"),
+                                                  member(ElementKind.METHOD, "b"),
+                                                  member(ElementKind.METHOD, "b"),
+                                                  member(ElementKind.METHOD, "c")), 2)
+                               .orElseThrow();
+    
+    assertStatement(objectValue(split.parts())
+        .then()
+        .isEqualTo(List.of(new PageSplit.Part("-method-1", "METHOD (`a` to `a`)", List.of(0)),
+                           new PageSplit.Part("-method-2", "METHOD (`b` to `b`)", List.of(1, 2, 3)),
+                           new PageSplit.Part("-method-3", "METHOD (`c` to `c`)", List.of(4)))));
+    assertStatement(objectValue(split.suffixOf(ElementKind.METHOD, "b"))
+        .then()
+        .isEqualTo(Optional.of("-method-2")));
+  }
+  
+  @Test
+  public void givenFewEntries_whenOfEntries_thenNotSplit() {
+    assertStatement(objectValue(PageSplit.ofEntries(List.of("a", "b"), 2))
+        .then()
+        .isEqualTo(Optional.empty()));
+  }
+  
+  @Test
+  public void givenManyEntries_whenOfEntries_thenAdjacentLettersAreMerged() {
+    PageSplit split = PageSplit.ofEntries(List.of("alpha", "apple", "beta", "Bravo", "charlie", "delta", "echo", "_x", "1y"), 3)
+                               .orElseThrow();
+    
+    assertStatement(objectValue(split.parts())
+        .then()
+        .isEqualTo(List.of(new PageSplit.Part("-A", "A", List.of(0, 1)),
+                           new PageSplit.Part("-B-C", "B-C", List.of(2, 3, 4)),
+                           new PageSplit.Part("-D-E", "D-E", List.of(5, 6)),
+                           new PageSplit.Part("-_", "_", List.of(7, 8)))));
+  }
+  
+  @Test
+  public void givenLetterWithTooManyEntries_whenOfEntries_thenBucketByItself() {
+    PageSplit split = PageSplit.ofEntries(List.of("a1", "a2", "a3", "a4", "a5", "b", "c"), 2)
+                               .orElseThrow();
+    
+    assertStatement(objectValue(split.parts())
+        .then()
+        .isEqualTo(List.of(new PageSplit.Part("-A", "A", List.of(0, 1, 2, 3, 4)),
+                           new PageSplit.Part("-B-C", "B-C", List.of(5, 6)))));
+  }
+  
+  @Test
+  public void givenPaths_whenFileNameOf_thenSuffixBeforeExtension() {
+    assertStatement(objectValue(PageSplit.fileNameOf("m/p/Type.md", "-method-1"))
+        .then()
+        .isEqualTo("m/p/Type-method-1.md"));
+    assertStatement(objectValue(PageSplit.fileNameOf("m/p/index.html", "-A"))
+        .then()
+        .isEqualTo("m/p/index-A.html"));
+    assertStatement(objectValue(PageSplit.fileNameOf("m/org.example/Type", "-field"))
+        .then()
+        .isEqualTo("m/org.example/Type-field"));
+  }
+  
+  private static PageSplit.MemberKey member(ElementKind kind, String name) {
+    return new PageSplit.MemberKey(kind, name);
+  }
+}
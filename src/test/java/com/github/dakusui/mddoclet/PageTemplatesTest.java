@@ -0,0 +1,89 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.stringValue;
+import static com.github.dakusui.thincrest_pcond.forms.Predicates.isEqualTo;
+import static com.github.dakusui.thincrest_pcond.forms.Predicates.isSameReferenceAs;
+import static com.github.dakusui.thincrest_pcond.forms.Predicates.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PageTemplatesTest extends TestBase {
+  @Test
+  public void givenEveryFormat_whenDefaults_thenTemplatesOfAllStyles() {
+    for (OutputFormat format : OutputFormat.values())
+      for (MarkdownPage.PageStyle style : MarkdownPage.PageStyle.values())
+        assertStatement(objectValue(PageTemplates.defaults(format)
+                                                 .of(style))
+            .then()
+            .isNotNull());
+  }
+  
+  @Test
+  public void givenDirectoryWithOneTemplate_whenLoadFrom_thenOthersAreDefaults() throws IOException {
+    File directory = createDirectory();
+    Files.writeString(new File(directory, "TYPE.html").toPath(), "<h1>{{title}}</h1>\n");
+    
+    PageTemplates templates = PageTemplates.loadFrom(directory, OutputFormat.HTML);
+    
+    assertStatement(objectValue(templates.of(MarkdownPage.PageStyle.TYPE))
+        .then()
+        .checkWithPredicate(not(isSameReferenceAs(PageTemplates.defaults(OutputFormat.HTML)
+                                                               .of(MarkdownPage.PageStyle.TYPE)))));
+    assertStatement(objectValue(templates.of(MarkdownPage.PageStyle.INDEX))
+        .then()
+        .isSameReferenceAs(PageTemplates.defaults(OutputFormat.HTML)
+                                        .of(MarkdownPage.PageStyle.INDEX)));
+    // A template of another format is not picked up.
+    assertStatement(objectValue(PageTemplates.loadFrom(directory, OutputFormat.MD)
+                                             .of(MarkdownPage.PageStyle.TYPE))
+        .then()
+        .isSameReferenceAs(PageTemplates.defaults(OutputFormat.MD)
+                                        .of(MarkdownPage.PageStyle.TYPE)));
+  }
+  
+  @Test
+  public void givenChangedTemplate_whenLoadFrom_thenHashChanges() throws IOException {
+    File directory = createDirectory();
+    File file = new File(directory, "INDEX.md");
+    Files.writeString(file.toPath(), "# {{title}}\n");
+    String hash = PageTemplates.loadFrom(directory, OutputFormat.MD)
+                               .hash();
+    
+    assertStatement(objectValue(PageTemplates.loadFrom(directory, OutputFormat.MD)
+                                             .hash())
+        .then()
+        .isEqualTo(hash));
+    Files.writeString(file.toPath(), "# {{title}}!\n");
+    assertStatement(objectValue(PageTemplates.loadFrom(directory, OutputFormat.MD)
+                                             .hash())
+        .then()
+        .checkWithPredicate(not(isEqualTo(hash))));
+  }
+  
+  @Test
+  public void givenBrokenTemplate_whenLoadFrom_thenErrorHasFileName() throws IOException {
+    File directory = createDirectory();
+    File file = new File(directory, "INDEX.md");
+    Files.writeString(file.toPath(), "{{#entries}}{{title}}{{/entries}}\n");
+    
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> PageTemplates.loadFrom(directory, OutputFormat.MD));
+    assertStatement(stringValue(e.getMessage())
+        .then()
+        .startsWith(file + ": Unknown name: {{title}}"));
+  }
+  
+  private static File createDirectory() throws IOException {
+    File ret = Files.createTempDirectory("templates")
+                    .toFile();
+    ret.deleteOnExit();
+    return ret;
+  }
+}
@@ -0,0 +1,176 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.booleanValue;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PageWriterTest extends TestBase {
+  private static final MarkdownPage PAGE = new MarkdownPage(new MarkdownPage.Model(MarkdownPage.PageStyle.INDEX,
+                                                                                   "p",
+                                                                                   "PACKAGE",
+                                                                                   "p",
+                                                                                   "",
+                                                                                   "p",
+                                                                                   "PACKAGE: p",
+                                                                                   null,
+                                                                                   null,
+                                                                                   List.of(),
+                                                                                   List.of()),
+                                                            reference -> reference);
+  
+  @Test
+  public void givenPages_whenWriteAndClose_thenAllWritten() {
+    RecordingSink sink = new RecordingSink();
+    AtomicLong bytes = new AtomicLong();
+    
+    try (PageWriter writer = new PageWriter(sink, bytes::addAndGet)) {
+      writer.write(PAGE, "a.md", contentOf("alpha"));
+      writer.write(PAGE, "b.md", contentOf("beta"));
+    }
+    
+    assertStatement(objectValue(sink.contents)
+        .then()
+        .isEqualTo(Map.of("a.md", "alpha", "b.md", "beta")));
+    assertStatement(objectValue(bytes.get())
+        .then()
+        .isEqualTo(9L));
+  }
+  
+  @Test
+  public void givenFullQueue_whenWrite_thenBlockedUntilWriterCatchesUp() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    RecordingSink sink = new RecordingSink() {
+      @Override
+      public long write(String path, Content content) throws IOException {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        return super.write(path, content);
+      }
+    };
+    
+    try (PageWriter writer = new PageWriter(sink, bytes -> {
+    }, 10)) {
+      // The writer thread takes the first page and waits in the sink, while it still counts against the capacity.
+      writer.write(PAGE, "a.md", contentOf("012345"));
+      Thread producer = Thread.ofPlatform()
+                              .start(() -> writer.write(PAGE, "b.md", contentOf("678901")));
+      producer.join(500);
+      assertStatement(booleanValue(producer.isAlive())
+          .then()
+          .isTrue());
+      
+      release.countDown();
+      producer.join(5_000);
+      assertStatement(booleanValue(producer.isAlive())
+          .then()
+          .isFalse());
+    }
+    assertStatement(objectValue(sink.contents.keySet())
+        .then()
+        .isEqualTo(Set.of("a.md", "b.md")));
+  }
+  
+  @Test
+  public void givenPageLargerThanCapacity_whenWrite_thenWritten() {
+    RecordingSink sink = new RecordingSink();
+    
+    try (PageWriter writer = new PageWriter(sink, bytes -> {
+    }, 4)) {
+      writer.write(PAGE, "a.md", contentOf("larger than the capacity"));
+      writer.write(PAGE, "b.md", contentOf("again"));
+    }
+    
+    assertStatement(objectValue(sink.contents)
+        .then()
+        .isEqualTo(Map.of("a.md", "larger than the capacity", "b.md", "again")));
+  }
+  
+  @Test
+  public void givenFailingSink_whenClose_thenFailureIsThrown() {
+    PageWriter writer = new PageWriter(new FailingSink(), bytes -> {
+    });
+    writer.write(PAGE, "a.md", contentOf("alpha"));
+    
+    RuntimeException e = assertThrows(RuntimeException.class, writer::close);
+    assertStatement(objectValue(e.getCause())
+        .then()
+        .isInstanceOf(IOException.class));
+  }
+  
+  @Test
+  public void givenFailingSink_whenWriteAfterFailure_thenFailureIsThrown() throws InterruptedException {
+    PageWriter writer = new PageWriter(new FailingSink(), bytes -> {
+    });
+    writer.write(PAGE, "a.md", contentOf("alpha"));
+    
+    // The failure happens on the writer thread, so it is thrown by one of the following calls.
+    RuntimeException thrown = null;
+    for (int i = 0; i < 500 && thrown == null; i++) {
+      try {
+        writer.write(PAGE, "b.md", contentOf("beta"));
+        TimeUnit.MILLISECONDS.sleep(10);
+      } catch (RuntimeException e) {
+        thrown = e;
+      }
+    }
+    assertStatement(objectValue(thrown)
+        .then()
+        .isNotNull());
+    assertStatement(objectValue(thrown.getCause())
+        .then()
+        .isInstanceOf(IOException.class));
+    assertThrows(RuntimeException.class, writer::close);
+  }
+  
+  private static ByteArrayOutputStream contentOf(String content) {
+    ByteArrayOutputStream ret = new ByteArrayOutputStream();
+    ret.writeBytes(content.getBytes(StandardCharsets.UTF_8));
+    return ret;
+  }
+  
+  private static class RecordingSink implements OutputSink {
+    final Map<String, String> contents = new ConcurrentHashMap<>();
+    
+    @Override
+    public boolean createDirectories(String path) {
+      return false;
+    }
+    
+    @Override
+    public long write(String path, Content content) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      content.writeTo(out);
+      contents.put(path, out.toString(StandardCharsets.UTF_8));
+      return out.size();
+    }
+    
+    @Override
+    public void close() {
+    }
+  }
+  
+  private static final class FailingSink extends RecordingSink {
+    @Override
+    public long write(String path, Content content) throws IOException {
+      throw new IOException("Disk full: " + path);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import com.sun.source.doctree.DocCommentTree;
+import com.sun.source.doctree.DocTree;
+import com.sun.source.doctree.SinceTree;
+import com.sun.source.doctree.UnknownBlockTagTree;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static com.github.dakusui.mddoclet.CommentRendererTest.docCommentTreeOf;
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.booleanValue;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+
+public class TagHandlersTest extends TestBase {
+  @Test
+  public void givenUnknownBlockTags_whenHandles_thenLookedUpByName() {
+    List<? extends DocTree> tags = docCommentTreeOf("Body.",
+                                                    "@apiNote A note.",
+                                                    "@implNote A note for implementors.").getBlockTags();
+    
+    assertStatement(booleanValue(TagHandlers.instance()
+                                            .handles(tags.get(0)))
+        .then()
+        .isTrue());
+    assertStatement(booleanValue(TagHandlers.instance()
+                                            .handles(tags.get(1)))
+        .then()
+        .isFalse());
+  }
+  
+  @Test
+  public void givenTagWithoutHandler_whenRender_thenAppendedToBody() {
+    DocCommentTree docCommentTree = docCommentTreeOf("Body.",
+                                                     "@implNote A note for implementors.",
+                                                     "@since 1.0");
+    CommentRenderer renderer = new CommentRenderer(reference -> "/base/" + reference);
+    
+    assertStatement(objectValue(renderer.render(docCommentTree))
+        .then()
+        .isEqualTo(String.join(System.lineSeparator(), "Body.", "", "@implNote A note for implementors.")));
+    assertStatement(objectValue(renderer.renderBlockTags(docCommentTree))
+        .then()
+        .isEqualTo("+ **SINCE:** 1.0" + System.lineSeparator()));
+  }
+  
+  @Test
+  public void givenHandlersOnServiceLoader_whenLoad_thenReplaceBuiltInOnesAndAddNewOnes() throws IOException {
+    TagHandlers tagHandlers = TagHandlers.load(classLoaderProviding(UpperCaseSince.class, ImplNote.class));
+    DocCommentTree docCommentTree = docCommentTreeOf("Body.",
+                                                     "@implNote A note for implementors.",
+                                                     "@since next release");
+    CommentRenderer renderer = new CommentRenderer(reference -> "/base/" + reference, tagHandlers);
+    
+    assertStatement(objectValue(renderer.render(docCommentTree))
+        .then()
+        .isEqualTo("Body."));
+    assertStatement(objectValue(renderer.renderBlockTags(docCommentTree))
+        .then()
+        .isEqualTo(String.join(System.lineSeparator(),
+                               "+ **IMPLEMENTATION NOTE:** A note for implementors.",
+                               "+ **SINCE:** NEXT RELEASE",
+                               "")));
+  }
+  
+  /**
+   * Returns a class loader, which lists given handlers in `META-INF/services`, and loads them from the class loader of
+   * this test.
+   * The handlers are not listed on the class path of the test, so that they don't affect {@link TagHandlers#instance()}.
+   */
+  private static ClassLoader classLoaderProviding(Class<?>... handlers) throws IOException {
+    Path directory = Files.createTempDirectory("services");
+    Path services = Files.createDirectories(directory.resolve("META-INF/services"));
+    StringBuilder sb = new StringBuilder();
+    for (Class<?> each : handlers)
+      sb.append(each.getName())
+        .append("\n");
+    Files.writeString(services.resolve(TagHandler.class.getName()), sb);
+    return new URLClassLoader(new URL[]{directory.toUri()
+                                               .toURL()}, TagHandlersTest.class.getClassLoader());
+  }
+  
+  public static class UpperCaseSince implements TagHandler {
+    @Override
+    public DocTree.Kind kind() {
+      return DocTree.Kind.SINCE;
+    }
+    
+    @Override
+    public void render(DocTree tag, Context context, Appendable out) throws IOException {
+      TagHandler.renderItem("SINCE", context.render(((SinceTree) tag).getBody())
+                                            .toUpperCase(), out);
+    }
+  }
+  
+  public static class ImplNote implements TagHandler {
+    @Override
+    public DocTree.Kind kind() {
+      return DocTree.Kind.UNKNOWN_BLOCK_TAG;
+    }
+    
+    @Override
+    public Set<String> tagNames() {
+      return Set.of("implNote");
+    }
+    
+    @Override
+    public void render(DocTree tag, Context context, Appendable out) throws IOException {
+      TagHandler.renderItem("IMPLEMENTATION NOTE", context.render(((UnknownBlockTagTree) tag).getContent()), out);
+    }
+  }
+}
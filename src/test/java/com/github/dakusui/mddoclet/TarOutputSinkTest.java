@@ -0,0 +1,169 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.booleanValue;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+
+public class TarOutputSinkTest extends TestBase {
+  private static final int BLOCK_SIZE = 512;
+  
+  @Test
+  public void givenShortAndLongPaths_whenWrite_thenReadBackWithSizesAndPadding() throws IOException {
+    String shortPath = "m/p/Short.md";
+    // Longer than 100 bytes, but its last 100 bytes after a `/` fit in the name field.
+    String splitPath = "m/" + "p".repeat(60) + "/" + "q".repeat(40) + "/Split.md";
+    // Longer than 255 bytes, which doesn't fit even if split, so it is recorded in a PAX header.
+    String paxPath = "m/" + "p".repeat(150) + "/" + "Ü".repeat(60) + "/" + "Pax".repeat(10) + ".md";
+    assertStatement(booleanValue(splitPath.length() > 100)
+        .then()
+        .isTrue());
+    assertStatement(booleanValue(paxPath.getBytes(StandardCharsets.UTF_8).length > 255)
+        .then()
+        .isTrue());
+    byte[] shortContent = "short".getBytes(StandardCharsets.UTF_8);
+    byte[] splitContent = "x".repeat(BLOCK_SIZE)
+                             .getBytes(StandardCharsets.UTF_8);
+    byte[] paxContent = "y".repeat(BLOCK_SIZE + 1)
+                           .getBytes(StandardCharsets.UTF_8);
+    
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (TarOutputSink sink = new TarOutputSink(out, true)) {
+      assertStatement(booleanValue(sink.createDirectories("m/p"))
+          .then()
+          .isTrue());
+      assertStatement(booleanValue(sink.createDirectories("m/p"))
+          .then()
+          .isFalse());
+      assertStatement(objectValue(sink.write(shortPath, o -> o.write(shortContent)))
+          .then()
+          .isEqualTo((long) shortContent.length));
+      assertStatement(objectValue(sink.write(splitPath, o -> o.write(splitContent)))
+          .then()
+          .isEqualTo((long) splitContent.length));
+      assertStatement(objectValue(sink.write(paxPath, o -> o.write(paxContent)))
+          .then()
+          .isEqualTo((long) paxContent.length));
+    }
+    
+    List<Entry> entries = readEntries(out.toByteArray());
+    assertStatement(objectValue(entries.stream()
+                                       .map(Entry::name)
+                                       .toList())
+        .then()
+        .isEqualTo(List.of("m/", "m/p/", shortPath, splitPath, paxPath)));
+    assertStatement(objectValue(entries.stream()
+                                       .map(Entry::type)
+                                       .toList())
+        .then()
+        .isEqualTo(List.of('5', '5', '0', '0', '0')));
+    assertStatement(objectValue(new String(entries.get(2)
+                                                  .content(), StandardCharsets.UTF_8))
+        .then()
+        .isEqualTo(new String(shortContent, StandardCharsets.UTF_8)));
+    assertStatement(objectValue(new String(entries.get(3)
+                                                  .content(), StandardCharsets.UTF_8))
+        .then()
+        .isEqualTo(new String(splitContent, StandardCharsets.UTF_8)));
+    assertStatement(objectValue(new String(entries.get(4)
+                                                  .content(), StandardCharsets.UTF_8))
+        .then()
+        .isEqualTo(new String(paxContent, StandardCharsets.UTF_8)));
+  }
+  
+  /**
+   * Reads entries of a tar archive, checking checksums of headers, padding of contents, and the end of the archive.
+   */
+  private static List<Entry> readEntries(byte[] archive) {
+    assertStatement(objectValue(archive.length % BLOCK_SIZE)
+        .then()
+        .isEqualTo(0));
+    List<Entry> ret = new ArrayList<>();
+    String paxPath = null;
+    int offset = 0;
+    while (true) {
+      byte[] header = Arrays.copyOfRange(archive, offset, offset + BLOCK_SIZE);
+      if (isZeros(header, 0, BLOCK_SIZE)) {
+        // Two zero blocks end the archive, and nothing follows them.
+        assertStatement(objectValue(offset + BLOCK_SIZE * 2)
+            .then()
+            .isEqualTo(archive.length));
+        assertStatement(booleanValue(isZeros(archive, offset, archive.length))
+            .then()
+            .isTrue());
+        return ret;
+      }
+      assertStatement(objectValue(checksumOf(header))
+          .then()
+          .isEqualTo(octal(header, 148, 8)));
+      assertStatement(objectValue(new String(header, 257, 8, StandardCharsets.US_ASCII))
+          .then()
+          .isEqualTo("ustar\u000000"));
+      char type = (char) header[156];
+      int size = (int) octal(header, 124, 12);
+      byte[] content = Arrays.copyOfRange(archive, offset + BLOCK_SIZE, offset + BLOCK_SIZE + size);
+      int end = offset + BLOCK_SIZE + size;
+      int next = offset + BLOCK_SIZE + (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+      // Content is padded with zeros to a block boundary.
+      assertStatement(booleanValue(isZeros(archive, end, next))
+          .then()
+          .isTrue());
+      offset = next;
+      if (type == 'x') {
+        String record = new String(content, StandardCharsets.UTF_8);
+        assertStatement(objectValue(size)
+            .then()
+            .isEqualTo(Integer.parseInt(record.substring(0, record.indexOf(' ')))));
+        paxPath = record.substring(record.indexOf("path=") + "path=".length(), record.length() - 1);
+        continue;
+      }
+      String prefix = stringOf(header, 345, 155);
+      String name = paxPath != null
+                    ? paxPath
+                    : prefix.isEmpty()
+                      ? stringOf(header, 0, 100)
+                      : prefix + "/" + stringOf(header, 0, 100);
+      paxPath = null;
+      ret.add(new Entry(name, type, content));
+    }
+  }
+  
+  private static boolean isZeros(byte[] bytes, int begin, int end) {
+    for (int i = begin; i < end; i++)
+      if (bytes[i] != 0)
+        return false;
+    return true;
+  }
+  
+  private static long checksumOf(byte[] header) {
+    long ret = 0;
+    for (int i = 0; i < BLOCK_SIZE; i++)
+      ret += i >= 148 && i < 156
+             ? ' '
+             : header[i] & 0xff;
+    return ret;
+  }
+  
+  private static long octal(byte[] header, int offset, int length) {
+    return Long.parseLong(stringOf(header, offset, length).trim(), 8);
+  }
+  
+  private static String stringOf(byte[] header, int offset, int length) {
+    int end = offset;
+    while (end < offset + length && header[end] != 0)
+      end++;
+    return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+  }
+  
+  private record Entry(String name, char type, byte[] content) {
+  }
+}
@@ -0,0 +1,136 @@
+package com.github.dakusui.mddoclet;
+
+import com.github.dakusui.mddoclet.testutils.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.github.dakusui.thincrest.TestAssertions.assertStatement;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.objectValue;
+import static com.github.dakusui.thincrest_pcond.fluent.Statement.stringValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TemplateTest extends TestBase {
+  private static final Template.Schema SCHEMA = new Template.Schema(Set.of("title", "deprecated"),
+                                                                    Map.of("members", new Template.Schema(Set.of("name", "comment"), Map.of())));
+  
+  @Test
+  public void givenSlotsAndComment_whenRender_thenValuesAreReplaced() throws IOException {
+    Template template = Template.compile("{{! a comment line }}\n# {{title}}\n", SCHEMA);
+    
+    assertStatement(objectValue(render(template, Map.of("title", "Point")))
+        .then()
+        .isEqualTo(lines("# Point")));
+    assertStatement(objectValue(render(template, Map.of()))
+        .then()
+        .isEqualTo(lines("# ")));
+  }
+  
+  @Test
+  public void givenNestedSections_whenRender_thenRenderedForEachElement() throws IOException {
+    Template template = Template.compile("""
+                                             # {{title}}
+                                             {{#deprecated}}
+                                             Deprecated.
+                                             {{/deprecated}}
+                                             {{#members}}
+                                             ## {{name}}
+                                             {{#comment}}
+                                             {{comment}}
+                                             {{/comment}}
+                                             {{^comment}}
+                                             No comment.
+                                             {{/comment}}
+                                             {{/members}}
+                                             {{^members}}
+                                             No members.
+                                             {{/members}}
+                                             """, SCHEMA);
+    
+    assertStatement(objectValue(render(template, Map.of("title", "Point",
+                                                        "deprecated", true,
+                                                        "members", List.of(scope(Map.of("name", "x", "comment", "The x.")),
+                                                                           scope(Map.of("name", "y", "comment", ""))))))
+        .then()
+        .isEqualTo(lines("# Point",
+                         "Deprecated.",
+                         "## x",
+                         "The x.",
+                         "## y",
+                         "No comment.")));
+    assertStatement(objectValue(render(template, Map.of("title", "Point",
+                                                        "deprecated", false,
+                                                        "members", List.of())))
+        .then()
+        .isEqualTo(lines("# Point",
+                         "No members.")));
+  }
+  
+  @Test
+  public void givenUnknownName_whenCompile_thenIllegalArgumentException() {
+    assertStatement(stringValue(compileError("{{titel}}"))
+        .then()
+        .startsWith("Unknown name: {{titel}}"));
+    assertStatement(objectValue(compileError("{{#titles}}{{/titles}}"))
+        .then()
+        .isEqualTo("Unknown name: {{#titles}}"));
+    assertStatement(objectValue(compileError("{{^titles}}{{/titles}}"))
+        .then()
+        .isEqualTo("Unknown name: {{^titles}}"));
+  }
+  
+  @Test
+  public void givenNameOfOuterScopeInList_whenCompile_thenIllegalArgumentException() {
+    assertStatement(stringValue(compileError("{{#members}}{{title}}{{/members}}"))
+        .then()
+        .startsWith("Unknown name: {{title}}"));
+    // An inverted section of a list is rendered in the outer scope.
+    assertStatement(objectValue(Template.compile("{{^members}}{{title}}{{/members}}", SCHEMA))
+        .then()
+        .isNotNull());
+  }
+  
+  @Test
+  public void givenSyntaxErrors_whenCompile_thenIllegalArgumentException() {
+    assertStatement(objectValue(compileError("# {{title"))
+        .then()
+        .isEqualTo("Unclosed tag at offset 2"));
+    assertStatement(objectValue(compileError("{{}}"))
+        .then()
+        .isEqualTo("Empty tag at offset 0"));
+    assertStatement(objectValue(compileError("{{/members}}"))
+        .then()
+        .isEqualTo("Unexpected {{/members}}"));
+    assertStatement(objectValue(compileError("{{#deprecated}}{{#members}}{{/deprecated}}{{/members}}"))
+        .then()
+        .isEqualTo("Unexpected {{/deprecated}}, expected {{/members}}"));
+    assertStatement(objectValue(compileError("{{#members}}{{name}}"))
+        .then()
+        .isEqualTo("Unclosed section: {{#members}}"));
+  }
+  
+  private static String compileError(String source) {
+    return assertThrows(IllegalArgumentException.class, () -> Template.compile(source, SCHEMA)).getMessage();
+  }
+  
+  private static String render(Template template, Map<String, Object> values) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    template.render(scope(values), sb);
+    return sb.toString();
+  }
+  
+  private static Template.Scope scope(Map<String, Object> values) {
+    return values::get;
+  }
+  
+  private static String lines(String... lines) {
+    StringBuilder sb = new StringBuilder();
+    for (String each : lines)
+      sb.append(each)
+        .append(System.lineSeparator());
+    return sb.toString();
+  }
+}